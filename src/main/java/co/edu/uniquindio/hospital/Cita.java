@@ -1,34 +1,120 @@
 package co.edu.uniquindio.hospital;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+/**
+ * Cita médica en forma compacta.
+ *
+ * La fecha, la hora, el estado y la especialidad se empaquetan en un solo long
+ * (claveTiempo) en lugar de guardarse como objetos, y los textos (motivo,
+ * observaciones y diagnóstico) se guardan aparte y se materializan al pedirlos.
+ * Los getters y el builder funcionan igual que si fueran campos normales; la hora
+ * se conserva con precisión de segundos.
+ */
 public class Cita {
+    // claveTiempo: día epoch (bits 32-63) | segundo del día + 1 (bits 15-31) |
+    // fecha presente (bit 14) | estado + 1 (bits 8-11) | especialidad + 1 (bits 0-7).
+    // Un 0 en un campo significa null. Ordenar las claves ordena por fecha y hora.
+    private static final int BITS_DIA = 32;
+    private static final int BITS_SEGUNDO = 15;
+    private static final long MASCARA_SEGUNDO = 0x1FFFFL;
+    private static final long FECHA_PRESENTE = 1L << 14;
+    private static final int BITS_ESTADO = 8;
+    private static final long MASCARA_ESTADO = 0xFL;
+    private static final long MASCARA_ESPECIALIDAD = 0xFFL;
+
+    private static final EstadoCita[] ESTADOS = EstadoCita.values();
+    private static final Especialidad[] ESPECIALIDADES = Especialidad.values();
+
     private String id;
     private Paciente paciente;
     private Medico medico;
-    private Especialidad especialidad;
-    private LocalDate fecha;
-    private LocalTime hora;
+    private long claveTiempo;
     private double precio;
-    private String motivo;
-    private EstadoCita estado;
-    private String observaciones; // Campo opcional
-    private String diagnostico;   // Campo opcional
+    // null si los tres textos están vacíos, el motivo si es el único texto no vacío
+    // (el caso común, y así se comparte la instancia), o los tres en UTF-8 ([longitud][bytes], -1 = null)
+    private Object textos;
 
     // Constructor privado - solo accesible desde el Builder
     private Cita(CitaBuilder builder) {
         this.id = builder.id;
         this.paciente = builder.paciente;
         this.medico = builder.medico;
-        this.especialidad = builder.especialidad;
-        this.fecha = builder.fecha;
-        this.hora = builder.hora;
+        this.claveTiempo = conFecha(conHora(0, builder.hora), builder.fecha);
+        this.claveTiempo = conEstado(claveTiempo, builder.estado);
+        this.claveTiempo = conEspecialidad(claveTiempo, builder.especialidad);
         this.precio = builder.precio;
-        this.motivo = builder.motivo;
-        this.estado = builder.estado;
-        this.observaciones = builder.observaciones;
-        this.diagnostico = builder.diagnostico;
+        this.textos = empaquetar(builder.motivo, builder.observaciones, builder.diagnostico);
+    }
+
+    // Constructor de copia - usado por copiar()
+    private Cita(Cita original) {
+        this.id = original.id;
+        this.paciente = original.paciente;
+        this.medico = original.medico;
+        this.claveTiempo = original.claveTiempo;
+        this.precio = original.precio;
+        // Los textos no se modifican en el lugar, así que se pueden compartir
+        this.textos = original.textos;
+    }
+
+    /**
+     * Crea una copia independiente con los mismos valores (paciente y médico se comparten)
+     */
+    public Cita copiar() {
+        return new Cita(this);
+    }
+
+    /**
+     * Fecha, hora, estado y especialidad empaquetados; al compararlas como long,
+     * las claves de citas con fecha y hora quedan en orden cronológico
+     */
+    public long getClaveTiempo() {
+        return claveTiempo;
+    }
+
+    /**
+     * Clave de tiempo con solo la fecha y la hora (ver {@link #momentoDe(long)})
+     */
+    public static long claveTiempo(LocalDate fecha, LocalTime hora) {
+        return conHora(conFecha(0, fecha), hora);
+    }
+
+    /**
+     * Clave de tiempo completa, igual a la de una cita con esos valores
+     */
+    public static long claveTiempo(LocalDate fecha, LocalTime hora, EstadoCita estado, Especialidad especialidad) {
+        return conEspecialidad(conEstado(claveTiempo(fecha, hora), estado), especialidad);
+    }
+
+    /**
+     * Deja solo la fecha y la hora de una clave de tiempo, para ordenar o comparar
+     * momentos sin importar el estado ni la especialidad
+     */
+    public static long momentoDe(long claveTiempo) {
+        return claveTiempo & ~((MASCARA_ESTADO << BITS_ESTADO) | MASCARA_ESPECIALIDAD);
+    }
+
+    public static LocalDate fechaDe(long claveTiempo) {
+        return (claveTiempo & FECHA_PRESENTE) != 0 ? LocalDate.ofEpochDay(claveTiempo >> BITS_DIA) : null;
+    }
+
+    public static LocalTime horaDe(long claveTiempo) {
+        long segundo = (claveTiempo >>> BITS_SEGUNDO) & MASCARA_SEGUNDO;
+        return segundo != 0 ? LocalTime.ofSecondOfDay(segundo - 1) : null;
+    }
+
+    public static EstadoCita estadoDe(long claveTiempo) {
+        int valor = (int) ((claveTiempo >>> BITS_ESTADO) & MASCARA_ESTADO);
+        return valor != 0 ? ESTADOS[valor - 1] : null;
+    }
+
+    public static Especialidad especialidadDe(long claveTiempo) {
+        int valor = (int) (claveTiempo & MASCARA_ESPECIALIDAD);
+        return valor != 0 ? ESPECIALIDADES[valor - 1] : null;
     }
 
     // Getters y Setters
@@ -57,27 +143,27 @@ public class Cita {
     }
 
     public Especialidad getEspecialidad() {
-        return especialidad;
+        return especialidadDe(claveTiempo);
     }
 
     public void setEspecialidad(Especialidad especialidad) {
-        this.especialidad = especialidad;
+        this.claveTiempo = conEspecialidad(claveTiempo, especialidad);
     }
 
     public LocalDate getFecha() {
-        return fecha;
+        return fechaDe(claveTiempo);
     }
 
     public void setFecha(LocalDate fecha) {
-        this.fecha = fecha;
+        this.claveTiempo = conFecha(claveTiempo, fecha);
     }
 
     public LocalTime getHora() {
-        return hora;
+        return horaDe(claveTiempo);
     }
 
     public void setHora(LocalTime hora) {
-        this.hora = hora;
+        this.claveTiempo = conHora(claveTiempo, hora);
     }
 
     public double getPrecio() {
@@ -89,35 +175,110 @@ public class Cita {
     }
 
     public String getMotivo() {
-        return motivo;
+        return texto(0);
     }
 
     public void setMotivo(String motivo) {
-        this.motivo = motivo;
+        this.textos = empaquetar(motivo, getObservaciones(), getDiagnostico());
     }
 
     public EstadoCita getEstado() {
-        return estado;
+        return estadoDe(claveTiempo);
     }
 
     public void setEstado(EstadoCita estado) {
-        this.estado = estado;
+        this.claveTiempo = conEstado(claveTiempo, estado);
     }
 
     public String getObservaciones() {
-        return observaciones;
+        return texto(1);
     }
 
     public void setObservaciones(String observaciones) {
-        this.observaciones = observaciones;
+        this.textos = empaquetar(getMotivo(), observaciones, getDiagnostico());
     }
 
     public String getDiagnostico() {
-        return diagnostico;
+        return texto(2);
     }
 
     public void setDiagnostico(String diagnostico) {
-        this.diagnostico = diagnostico;
+        this.textos = empaquetar(getMotivo(), getObservaciones(), diagnostico);
+    }
+
+    // ==================== EMPAQUETADO ====================
+
+    private static long conFecha(long clave, LocalDate fecha) {
+        long sinFecha = clave & ~(FECHA_PRESENTE | (-1L << BITS_DIA));
+        if (fecha == null) {
+            return sinFecha;
+        }
+        long dia = fecha.toEpochDay();
+        // El día ocupa 32 bits; fuera de ese rango (unos 5,8 millones de años) se perdería
+        if (dia != (int) dia) {
+            throw new IllegalArgumentException("Fecha fuera del rango admitido: " + fecha);
+        }
+        return sinFecha | FECHA_PRESENTE | (dia << BITS_DIA);
+    }
+
+    private static long conHora(long clave, LocalTime hora) {
+        long segundo = hora != null ? hora.toSecondOfDay() + 1 : 0;
+        return (clave & ~(MASCARA_SEGUNDO << BITS_SEGUNDO)) | (segundo << BITS_SEGUNDO);
+    }
+
+    private static long conEstado(long clave, EstadoCita estado) {
+        long valor = estado != null ? estado.ordinal() + 1 : 0;
+        return (clave & ~(MASCARA_ESTADO << BITS_ESTADO)) | (valor << BITS_ESTADO);
+    }
+
+    private static long conEspecialidad(long clave, Especialidad especialidad) {
+        long valor = especialidad != null ? especialidad.ordinal() + 1 : 0;
+        return (clave & ~MASCARA_ESPECIALIDAD) | valor;
+    }
+
+    private static Object empaquetar(String motivo, String observaciones, String diagnostico) {
+        boolean sinExtras = "".equals(observaciones) && "".equals(diagnostico);
+        if (sinExtras && "".equals(motivo)) {
+            return null;
+        }
+        if (sinExtras && motivo != null) {
+            return motivo;
+        }
+        byte[][] partes = new byte[3][];
+        int tamanio = 0;
+        String[] valores = {motivo, observaciones, diagnostico};
+        for (int i = 0; i < 3; i++) {
+            if (valores[i] != null) {
+                partes[i] = valores[i].getBytes(StandardCharsets.UTF_8);
+                tamanio += partes[i].length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(tamanio + 3 * Integer.BYTES);
+        for (byte[] parte : partes) {
+            buffer.putInt(parte != null ? parte.length : -1);
+            if (parte != null) {
+                buffer.put(parte);
+            }
+        }
+        return buffer.array();
+    }
+
+    private String texto(int posicion) {
+        if (textos == null) {
+            return "";
+        }
+        if (textos instanceof String motivo) {
+            return posicion == 0 ? motivo : "";
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((byte[]) textos);
+        for (int i = 0; ; i++) {
+            int longitud = buffer.getInt();
+            if (i == posicion) {
+                return longitud < 0 ? null
+                        : new String((byte[]) textos, buffer.position(), longitud, StandardCharsets.UTF_8);
+            }
+            buffer.position(buffer.position() + Math.max(longitud, 0));
+        }
     }
 
     @Override
@@ -126,11 +287,11 @@ public class Cita {
                 "id='" + id + '\'' +
                 ", paciente=" + (paciente != null ? paciente.getNombre() : "null") +
                 ", medico=" + (medico != null ? medico.getNombre() : "null") +
-                ", especialidad=" + especialidad +
-                ", fecha=" + fecha +
-                ", hora=" + hora +
+                ", especialidad=" + getEspecialidad() +
+                ", fecha=" + getFecha() +
+                ", hora=" + getHora() +
                 ", precio=" + precio +
-                ", estado=" + estado +
+                ", estado=" + getEstado() +
                 '}';
     }
 
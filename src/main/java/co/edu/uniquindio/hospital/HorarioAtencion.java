@@ -0,0 +1,53 @@
+package co.edu.uniquindio.hospital;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rejilla de turnos de atención: de 08:00 a 17:30 en bloques de media hora.
+ * Es la misma que ofrece la pantalla de gestión de citas y la que usa el
+ * Hospital para sus mapas de ocupación.
+ */
+public final class HorarioAtencion {
+
+    public static final LocalTime PRIMER_TURNO = LocalTime.of(8, 0);
+    public static final int MINUTOS_POR_TURNO = 30;
+    public static final int TURNOS_POR_DIA = 20;
+
+    private HorarioAtencion() {
+    }
+
+    /**
+     * Obtiene la posición de una hora en la rejilla, o -1 si no cae en un turno
+     */
+    public static int indiceTurno(LocalTime hora) {
+        if (hora.getSecond() != 0 || hora.getNano() != 0) {
+            return -1;
+        }
+        int minutos = hora.getHour() * 60 + hora.getMinute() - PRIMER_TURNO.getHour() * 60;
+        if (minutos < 0 || minutos % MINUTOS_POR_TURNO != 0) {
+            return -1;
+        }
+        int indice = minutos / MINUTOS_POR_TURNO;
+        return indice < TURNOS_POR_DIA ? indice : -1;
+    }
+
+    /**
+     * Obtiene la hora de inicio del turno en la posición indicada
+     */
+    public static LocalTime horaDeTurno(int indice) {
+        return PRIMER_TURNO.plusMinutes((long) indice * MINUTOS_POR_TURNO);
+    }
+
+    /**
+     * Obtiene todas las horas de la rejilla en orden
+     */
+    public static List<LocalTime> getTurnos() {
+        List<LocalTime> turnos = new ArrayList<>(TURNOS_POR_DIA);
+        for (int i = 0; i < TURNOS_POR_DIA; i++) {
+            turnos.add(horaDeTurno(i));
+        }
+        return turnos;
+    }
+}
@@ -0,0 +1,11 @@
+package co.edu.uniquindio.hospital;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Turno de la rejilla de HorarioAtencion en el que un médico no tiene citas.
+ * Encontrarlo no lo reserva: el agendamiento lo vuelve a verificar.
+ */
+public record TurnoLibre(Medico medico, LocalDate fecha, LocalTime hora) {
+}
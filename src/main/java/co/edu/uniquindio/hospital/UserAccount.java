@@ -13,6 +13,13 @@ public class UserAccount {
         this.tipoUsuario = tipoUsuario;
     }
 
+    /**
+     * Crea una copia con el mismo usuario, contraseña y tipo, sin persona asociada
+     */
+    public UserAccount copiar() {
+        return new UserAccount(usuario, contrasenia, null, tipoUsuario);
+    }
+
     public String getUsuario() { return usuario; }
     public void setUsuario(String usuario) { this.usuario = usuario; }
 
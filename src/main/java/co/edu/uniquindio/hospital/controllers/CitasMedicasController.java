@@ -168,7 +168,7 @@ public class CitasMedicasController {
                 citaFacade.atenderCita(citaSeleccionada);
 
                 mostrarAlerta("Éxito", "✨ Cita atendida usando FACADE", Alert.AlertType.INFORMATION);
-                tablaCitas.refresh();
+                cargarCitasMedico();
 
             } catch (CitaException e) {
                 mostrarAlerta("Error", e.getMessage(), Alert.AlertType.WARNING);
@@ -211,7 +211,7 @@ public class CitasMedicasController {
                 citaFacade.cancelarCita(citaSeleccionada);
 
                 mostrarAlerta("Éxito", "✨ Cita cancelada usando FACADE", Alert.AlertType.INFORMATION);
-                tablaCitas.refresh();
+                cargarCitasMedico();
 
             } catch (CitaException e) {
                 mostrarAlerta("Error", e.getMessage(), Alert.AlertType.WARNING);
@@ -281,7 +281,7 @@ public class CitasMedicasController {
                 );
 
                 mostrarAlerta("Éxito", "✨ Diagnóstico guardado usando FACADE", Alert.AlertType.INFORMATION);
-                tablaCitas.refresh();
+                cargarCitasMedico();
 
             } catch (CitaException e) {
                 mostrarAlerta("Error", e.getMessage(), Alert.AlertType.ERROR);
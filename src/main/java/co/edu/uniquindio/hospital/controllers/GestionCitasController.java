@@ -59,7 +59,7 @@ public class GestionCitasController {
         cargarCitas();
         configurarSeleccionTabla();
         btnActualizar.setDisable(true);
-        txtId.setText(citaFacade.generarIdCita());
+        txtId.setText(citaFacade.verSiguienteIdCita());
 
         // Listener para filtrar médicos por especialidad
         cmbEspecialidad.valueProperty().addListener((obs, oldVal, newVal) -> {
@@ -136,9 +136,8 @@ public class GestionCitasController {
 
     private void configurarHorasDisponibles() {
         List<String> horas = new ArrayList<>();
-        for (int i = 8; i <= 17; i++) {
-            horas.add(String.format("%02d:00", i));
-            horas.add(String.format("%02d:30", i));
+        for (LocalTime turno : HorarioAtencion.getTurnos()) {
+            horas.add(turno.format(DateTimeFormatter.ofPattern("HH:mm")));
         }
         cmbHora.setItems(FXCollections.observableArrayList(horas));
     }
@@ -350,7 +349,7 @@ public class GestionCitasController {
     }
 
     private void limpiarFormulario() {
-        txtId.setText(citaFacade.generarIdCita());
+        txtId.setText(citaFacade.verSiguienteIdCita());
         cmbEspecialidad.setValue(null);
         cmbPaciente.setValue(null);
         cmbMedico.setValue(null);
@@ -2,6 +2,7 @@ package co.edu.uniquindio.hospital.controllers;
 
 import co.edu.uniquindio.hospital.*;
 import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,7 +11,6 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class GestionMedicosController {
 
@@ -129,7 +129,7 @@ public class GestionMedicosController {
         }
 
         // Validar que el documento no exista
-        if (documentoExiste(txtDocumento.getText().trim())) {
+        if (hospital.existeDocumento(TipoSecuencia.MEDICO, txtDocumento.getText().trim(), null)) {
             mostrarAlerta("Documento Duplicado",
                     "Ya existe un médico con este documento",
                     Alert.AlertType.WARNING);
@@ -157,7 +157,12 @@ public class GestionMedicosController {
         // Establecer relación bidireccional
         userAccount.setPerson(nuevoMedico);
 
-        hospital.agregarPersona(nuevoMedico);
+        try {
+            hospital.agregarPersona(nuevoMedico);
+        } catch (IllegalArgumentException e) {
+            mostrarAlerta("Datos Duplicados", e.getMessage(), Alert.AlertType.WARNING);
+            return;
+        }
 
         mostrarAlerta("Éxito",
                 "Médico agregado correctamente\nUsuario: " + usuario + "\nContraseña: 1234",
@@ -179,22 +184,34 @@ public class GestionMedicosController {
         }
 
         // Validar documento duplicado (excepto el mismo médico)
-        if (documentoExisteParaOtro(txtDocumento.getText().trim(), medicoSeleccionado.getId())) {
+        if (hospital.existeDocumento(TipoSecuencia.MEDICO, txtDocumento.getText().trim(),
+                medicoSeleccionado.getId())) {
             mostrarAlerta("Documento Duplicado",
                     "Ya existe otro médico con este documento",
                     Alert.AlertType.WARNING);
             return;
         }
 
-        medicoSeleccionado.setDocumento(txtDocumento.getText().trim());
-        medicoSeleccionado.setNombre(txtNombre.getText().trim());
-        medicoSeleccionado.setCorreo(txtCorreo.getText().trim());
-        medicoSeleccionado.setTelefono(txtTelefono.getText().trim());
-        medicoSeleccionado.setLicenciaMedica(txtLicenciaMedica.getText().trim());
-        medicoSeleccionado.setEspecialidad(cmbEspecialidad.getValue());
-        medicoSeleccionado.setDisponible(chkDisponible.isSelected());
+        // Los datos nuevos van en una copia; el Hospital los pasa al médico registrado
+        // solo si el documento sigue libre
+        Medico medicoActualizado = new Medico(
+                medicoSeleccionado.getId(),
+                txtDocumento.getText().trim(),
+                txtNombre.getText().trim(),
+                txtCorreo.getText().trim(),
+                txtTelefono.getText().trim(),
+                medicoSeleccionado.getUserAccount() != null ? medicoSeleccionado.getUserAccount().copiar() : null,
+                cmbEspecialidad.getValue(),
+                txtLicenciaMedica.getText().trim(),
+                chkDisponible.isSelected()
+        );
 
-        hospital.actualizarPersona(medicoSeleccionado);
+        try {
+            hospital.actualizarPersona(medicoActualizado);
+        } catch (IllegalArgumentException e) {
+            mostrarAlerta("Datos Duplicados", e.getMessage(), Alert.AlertType.WARNING);
+            return;
+        }
         mostrarAlerta("Éxito", "Médico actualizado correctamente", Alert.AlertType.INFORMATION);
         cargarMedicos();
         limpiarFormulario();
@@ -210,10 +227,7 @@ public class GestionMedicosController {
         }
 
         // Verificar si el médico tiene citas asignadas
-        long citasAsignadas = hospital.getListCitas().stream()
-                .filter(cita -> cita.getMedico() != null &&
-                        cita.getMedico().getId().equals(selected.getId()))
-                .count();
+        long citasAsignadas = hospital.contarCitasPorMedico(selected);
 
         if (citasAsignadas > 0) {
             mostrarAlerta("No se puede eliminar",
@@ -253,7 +267,7 @@ public class GestionMedicosController {
         tablaMedicos.getSelectionModel().clearSelection();
         btnAgregar.setDisable(false);
         btnActualizar.setDisable(true);
-        txtId.setText(generarIdMedico());
+        txtId.setText(hospital.verSiguienteId(TipoSecuencia.MEDICO));
     }
 
     private boolean validarCampos() {
@@ -296,58 +310,25 @@ public class GestionMedicosController {
     }
 
     private void cargarMedicos() {
-        List<Medico> medicos = hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Medico)
-                .map(person -> (Medico) person)
-                .collect(Collectors.toList());
+        List<Medico> medicos = hospital.getTodosMedicos();
 
         ObservableList<Medico> medicosList = FXCollections.observableArrayList(medicos);
         tablaMedicos.setItems(medicosList);
 
         if (txtId.getText().isEmpty()) {
-            txtId.setText(generarIdMedico());
+            txtId.setText(hospital.verSiguienteId(TipoSecuencia.MEDICO));
         }
     }
 
     private String generarIdMedico() {
-        int count = (int) hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Medico)
-                .count();
-        return String.format("MED%03d", count + 1);
+        return hospital.generarId(TipoSecuencia.MEDICO);
     }
 
     private String generarUsuario(String nombreCompleto) {
         String[] partes = nombreCompleto.toLowerCase().split(" ");
-        String usuario = partes[0];
-
-        // Si el usuario ya existe, agregar un número
-        int contador = 1;
-        String usuarioFinal = usuario;
-        while (usuarioExiste(usuarioFinal)) {
-            usuarioFinal = usuario + contador;
-            contador++;
-        }
-
-        return usuarioFinal;
-    }
-
-    private boolean usuarioExiste(String usuario) {
-        return hospital.getListPersonas().stream()
-                .anyMatch(person -> person.getUserAccount() != null &&
-                        person.getUserAccount().getUsuario().equalsIgnoreCase(usuario));
-    }
-
-    private boolean documentoExiste(String documento) {
-        return hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Medico)
-                .anyMatch(person -> person.getDocumento().equals(documento));
-    }
 
-    private boolean documentoExisteParaOtro(String documento, String idActual) {
-        return hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Medico)
-                .filter(person -> !person.getId().equals(idActual))
-                .anyMatch(person -> person.getDocumento().equals(documento));
+        // Si el usuario ya existe, el Hospital le agrega un número
+        return hospital.sugerirUsuario(partes[0]);
     }
 
     private void mostrarAlerta(String titulo, String mensaje, Alert.AlertType tipo) {
@@ -2,6 +2,7 @@ package co.edu.uniquindio.hospital.controllers;
 
 import co.edu.uniquindio.hospital.*;
 import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -12,7 +13,6 @@ import javafx.scene.control.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class GestionPacientesController {
 
@@ -101,6 +101,13 @@ public class GestionPacientesController {
             return;
         }
 
+        if (hospital.existeDocumento(TipoSecuencia.PACIENTE, txtDocumento.getText().trim(), null)) {
+            mostrarAlerta("Documento Duplicado",
+                    "Ya existe un paciente con este documento",
+                    Alert.AlertType.WARNING);
+            return;
+        }
+
         String id = generarIdPaciente();
 
         Paciente nuevoPaciente = new Paciente(
@@ -115,7 +122,12 @@ public class GestionPacientesController {
                 cmbGenero.getValue()
         );
 
-        hospital.agregarPersona(nuevoPaciente);
+        try {
+            hospital.agregarPersona(nuevoPaciente);
+        } catch (IllegalArgumentException e) {
+            mostrarAlerta("Datos Duplicados", e.getMessage(), Alert.AlertType.WARNING);
+            return;
+        }
         mostrarAlerta("Éxito", "Paciente agregado correctamente", Alert.AlertType.INFORMATION);
         cargarPacientes();
         limpiarFormulario();
@@ -132,15 +144,35 @@ public class GestionPacientesController {
             return;
         }
 
-        pacienteSeleccionado.setDocumento(txtDocumento.getText().trim());
-        pacienteSeleccionado.setNombre(txtNombre.getText().trim());
-        pacienteSeleccionado.setCorreo(txtCorreo.getText().trim());
-        pacienteSeleccionado.setTelefono(txtTelefono.getText().trim());
-        pacienteSeleccionado.setFechaNacimiento(dpFechaNacimiento.getValue());
-        pacienteSeleccionado.setDireccion(txtDireccion.getText().trim());
-        pacienteSeleccionado.setGenero(cmbGenero.getValue());
+        // Validar documento duplicado (excepto el mismo paciente)
+        if (hospital.existeDocumento(TipoSecuencia.PACIENTE, txtDocumento.getText().trim(),
+                pacienteSeleccionado.getId())) {
+            mostrarAlerta("Documento Duplicado",
+                    "Ya existe otro paciente con este documento",
+                    Alert.AlertType.WARNING);
+            return;
+        }
+
+        // Los datos nuevos van en una copia; el Hospital los pasa al paciente registrado
+        // solo si el documento sigue libre
+        Paciente pacienteActualizado = new Paciente(
+                pacienteSeleccionado.getId(),
+                txtDocumento.getText().trim(),
+                txtNombre.getText().trim(),
+                txtCorreo.getText().trim(),
+                txtTelefono.getText().trim(),
+                pacienteSeleccionado.getUserAccount() != null ? pacienteSeleccionado.getUserAccount().copiar() : null,
+                dpFechaNacimiento.getValue(),
+                txtDireccion.getText().trim(),
+                cmbGenero.getValue()
+        );
 
-        hospital.actualizarPersona(pacienteSeleccionado);
+        try {
+            hospital.actualizarPersona(pacienteActualizado);
+        } catch (IllegalArgumentException e) {
+            mostrarAlerta("Datos Duplicados", e.getMessage(), Alert.AlertType.WARNING);
+            return;
+        }
         mostrarAlerta("Éxito", "Paciente actualizado correctamente", Alert.AlertType.INFORMATION);
         cargarPacientes();
         limpiarFormulario();
@@ -186,7 +218,7 @@ public class GestionPacientesController {
         tablaPacientes.getSelectionModel().clearSelection();
         btnAgregar.setDisable(false);
         btnActualizar.setDisable(true);
-        txtId.setText(generarIdPaciente());
+        txtId.setText(hospital.verSiguienteId(TipoSecuencia.PACIENTE));
     }
 
     private boolean validarCampos() {
@@ -229,24 +261,18 @@ public class GestionPacientesController {
     }
 
     private void cargarPacientes() {
-        List<Paciente> pacientes = hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Paciente)
-                .map(person -> (Paciente) person)
-                .collect(Collectors.toList());
+        List<Paciente> pacientes = hospital.getTodosPacientes();
 
         ObservableList<Paciente> pacientesList = FXCollections.observableArrayList(pacientes);
         tablaPacientes.setItems(pacientesList);
 
         if (txtId.getText().isEmpty()) {
-            txtId.setText(generarIdPaciente());
+            txtId.setText(hospital.verSiguienteId(TipoSecuencia.PACIENTE));
         }
     }
 
     private String generarIdPaciente() {
-        int count = (int) hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Paciente)
-                .count();
-        return String.format("PAC%03d", count + 1);
+        return hospital.generarId(TipoSecuencia.PACIENTE);
     }
 
     private void mostrarAlerta(String titulo, String mensaje, Alert.AlertType tipo) {
@@ -2,6 +2,7 @@ package co.edu.uniquindio.hospital.controllers;
 
 import co.edu.uniquindio.hospital.*;
 import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -36,15 +37,23 @@ public class RegistroMedicoController {
             return;
         }
 
-        String id = generarIdMedico();
         String usuario = txtUsuario.getText().trim();
 
         // Validar que el usuario no exista
-        if (usuarioExiste(usuario)) {
-            mostrarAlerta("Usuario Existente", "El nombre de usuario ya está en uso. Por favor elija otro", Alert.AlertType.WARNING);
+        if (hospital.existeUsuario(usuario)) {
+            mostrarAlerta("Usuario Existente", "El nombre de usuario ya está en uso. Por favor elija otro. Sugerencia: "
+                    + hospital.sugerirUsuario(usuario), Alert.AlertType.WARNING);
             return;
         }
 
+        // Validar que el documento no exista
+        if (hospital.existeDocumento(TipoSecuencia.MEDICO, txtDocumento.getText().trim(), null)) {
+            mostrarAlerta("Documento Duplicado", "Ya existe un médico con este documento", Alert.AlertType.WARNING);
+            return;
+        }
+
+        String id = generarIdMedico();
+
         UserAccount userAccount = new UserAccount(usuario, txtContrasenia.getText(), null, TipoUsuario.MEDICO);
 
         Medico nuevoMedico = new Medico(
@@ -61,7 +70,12 @@ public class RegistroMedicoController {
 
         userAccount.setPerson(nuevoMedico);
 
-        hospital.agregarPersona(nuevoMedico);
+        try {
+            hospital.agregarPersona(nuevoMedico);
+        } catch (IllegalArgumentException e) {
+            mostrarAlerta("Datos Duplicados", e.getMessage(), Alert.AlertType.WARNING);
+            return;
+        }
 
         mostrarAlerta("Registro Exitoso", "¡Médico registrado exitosamente! Ya puede iniciar sesión", Alert.AlertType.INFORMATION);
 
@@ -130,17 +144,8 @@ public class RegistroMedicoController {
         return pattern.matcher(correo).matches();
     }
 
-    private boolean usuarioExiste(String usuario) {
-        return hospital.getListPersonas().stream()
-                .anyMatch(person -> person.getUserAccount() != null &&
-                        person.getUserAccount().getUsuario().equalsIgnoreCase(usuario));
-    }
-
     private String generarIdMedico() {
-        int numeroMedicos = (int) hospital.getListPersonas().stream()
-                .filter(person -> person instanceof Medico)
-                .count();
-        return String.format("MED%03d", numeroMedicos + 1);
+        return hospital.generarId(TipoSecuencia.MEDICO);
     }
 
     private void cerrarVentana() {
@@ -0,0 +1,166 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+import co.edu.uniquindio.hospital.Person;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Instantáneas en disco del estado del Hospital (instantanea-000007.snap, ...).
+ *
+ * La instantánea N contiene las personas y las citas tal como estaban al empezar
+ * el segmento N de la bitácora, así que para reconstruir el estado basta con
+ * cargarla y reproducir los segmentos desde N. Usa el formato de registros fijos
+ * de RegistrosMapeados: las personas (incluidas las retiradas que aún referencian
+ * citas) y luego las citas, que se decodifican una por una desde el archivo mapeado.
+ *
+ * Se escribe en un archivo temporal que se renombra al terminar, de modo que una
+ * instantánea a medio escribir nunca se confunde con una completa. Se conservan
+ * las dos últimas: si la más reciente no se puede leer, se usa la anterior con
+ * sus segmentos. Si hay instantáneas pero ninguna se puede leer, el Hospital no
+ * arranca: reproducir solo la bitácora daría un estado parcial.
+ */
+final class ArchivoInstantaneas {
+
+    private static final String PREFIJO = "instantanea-";
+    private static final String EXTENSION = ".snap";
+
+    private final Path directorio;
+
+    ArchivoInstantaneas(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    /**
+     * Escribe la instantánea que corresponde al inicio del segmento indicado
+     *
+     * @param escritor      con las personas registradas ya agregadas
+     * @param idsPersonas   IDs de esas personas
+     * @param citas         citas capturadas junto con las personas; se recorren dos veces
+     */
+    void escribir(long segmento, EscritorRegistros escritor, Set<String> idsPersonas,
+                  Iterable<Cita> citas) throws IOException {
+        // Las personas eliminadas no están en la lista, pero sus citas las siguen referenciando
+        Map<String, Person> retiradas = new LinkedHashMap<>();
+        for (Cita cita : citas) {
+            for (Person person : List.<Person>of(cita.getPaciente(), cita.getMedico())) {
+                if (!idsPersonas.contains(person.getId())) {
+                    retiradas.putIfAbsent(person.getId(), person);
+                }
+            }
+        }
+        for (Person person : retiradas.values()) {
+            escritor.agregarPersona(person, true);
+        }
+
+        Files.createDirectories(directorio);
+        Path destino = ruta(segmento);
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try {
+            escritor.escribir(temporal, segmento, citas);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+    }
+
+    /**
+     * Carga la instantánea completa más reciente
+     *
+     * @param reiniciar deshace lo cargado de una instantánea que resultó incompleta
+     * @return el segmento desde el que hay que reproducir la bitácora, o 0 si no
+     *         hay ninguna instantánea
+     * @throws IOException si no se puede listar el directorio o si ninguna de las
+     *                     instantáneas que hay se puede cargar
+     */
+    long cargarUltima(Carga carga, Runnable reiniciar) throws IOException {
+        TreeMap<Long, Path> instantaneas = listar();
+        IOException falla = null;
+        for (var instantanea : instantaneas.descendingMap().entrySet()) {
+            try {
+                RegistrosMapeados registros = RegistrosMapeados.abrir(instantanea.getValue());
+                if (registros.getSegmento() == instantanea.getKey()) {
+                    carga.cargar(registros);
+                    return instantanea.getKey();
+                }
+                System.err.println("⚠ Instantánea con un segmento distinto a su nombre, se usa la anterior: "
+                        + instantanea.getValue().getFileName());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠ Instantánea incompleta o dañada, se usa la anterior: "
+                        + instantanea.getValue().getFileName() + " (" + e.getMessage() + ")");
+                reiniciar.run();
+                falla = e instanceof IOException io ? io : new IOException(e);
+            }
+        }
+        if (!instantaneas.isEmpty()) {
+            throw new IOException("Ninguna de las instantáneas en " + directorio + " se pudo cargar", falla);
+        }
+        return 0;
+    }
+
+    /**
+     * Borra las instantáneas anteriores a la indicada
+     */
+    void descartarAnteriores(long segmento) {
+        try {
+            for (Path ruta : listar().headMap(segmento).values()) {
+                Files.deleteIfExists(ruta);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ No se pudieron borrar instantáneas viejas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Número de la instantánea más reciente en disco, o 0 si no hay ninguna
+     */
+    long ultima() {
+        try {
+            TreeMap<Long, Path> instantaneas = listar();
+            return instantaneas.isEmpty() ? 0 : instantaneas.lastKey();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private TreeMap<Long, Path> listar() throws IOException {
+        TreeMap<Long, Path> instantaneas = new TreeMap<>();
+        if (!Files.isDirectory(directorio)) {
+            return instantaneas;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path ruta : archivos) {
+                String nombre = ruta.getFileName().toString();
+                String numero = nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length());
+                try {
+                    instantaneas.put(Long.parseLong(numero), ruta);
+                } catch (NumberFormatException e) {
+                    // No es una instantánea
+                }
+            }
+        }
+        return instantaneas;
+    }
+
+    private Path ruta(long segmento) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO, segmento, EXTENSION));
+    }
+
+    /**
+     * Recibe una instantánea ya validada para volcarla al Hospital
+     */
+    @FunctionalInterface
+    interface Carga {
+        void cargar(RegistrosMapeados registros) throws IOException;
+    }
+}
@@ -0,0 +1,507 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora de solo escritura al final (write-ahead log) de los cambios del Hospital.
+ *
+ * Cada registro se guarda como [longitud][CRC32][contenido]. Los registros se
+ * agregan en memoria, en el orden en que el Hospital aplica los cambios, y un
+ * único hilo escritor los lleva a disco por lotes: espera la ventana de
+ * durabilidad para reunir los registros de escritores concurrentes, los escribe
+ * y hace un solo fsync por lote (group commit). Quien registra un cambio espera
+ * a que su lote sea durable, fuera del candado del Hospital.
+ *
+ * La bitácora se divide en segmentos numerados (bitacora-000001.log, ...). Cada
+ * instantánea del Hospital empieza un segmento nuevo, y los segmentos que ya
+ * cubre una instantánea se pueden borrar.
+ *
+ * Si la aplicación se cierra a mitad de un registro, la lectura se detiene en el
+ * último registro completo y el resto del segmento se descarta.
+ *
+ * Si un lote no se puede escribir, la posición durable no avanza: quienes esperan
+ * ese lote reciben una excepción, el Hospital rechaza los cambios nuevos y el
+ * escritor reintenta el mismo lote, desde su inicio, hasta que el disco responda.
+ */
+final class Bitacora {
+
+    private static final int MAGICO = 0x48424954; // "HBIT"
+    private static final short VERSION = 1;
+    private static final int TAMANIO_ENCABEZADO = Integer.BYTES + Short.BYTES;
+    static final int TAMANIO_MARCO = Integer.BYTES * 2;
+
+    private static final String PREFIJO = "bitacora-";
+    private static final String EXTENSION = ".log";
+    // Archivo único de la versión anterior, que pasa a ser el segmento 0
+    private static final String ARCHIVO_ANTERIOR = "bitacora.log";
+
+    // Espera entre reintentos de un lote que no se pudo escribir
+    private static final long REINTENTO_MILLIS = 1000;
+
+    private final Path directorio;
+    private final long ventanaNanos;
+
+    // El hilo escritor y la rotación de segmentos no usan el canal a la vez
+    private final Object candadoCanal = new Object();
+    private FileChannel canal;
+    private long segmentoActual;
+    // Dónde empezaba en el segmento el lote que falló, para reescribirlo completo; -1 si no hay
+    private long inicioLoteFallido = -1;
+
+    // Las posiciones son lógicas: cuentan los bytes registrados desde que se abrió la bitácora
+    private final Object monitor = new Object();
+    private final ByteArrayOutputStream pendiente = new ByteArrayOutputStream(4096);
+    private long posicionRegistrada;
+    private long posicionDurable;
+    private long posicionInicioSegmento;
+    private boolean cerrada;
+    private boolean terminada;
+    // Error del último intento de escritura, mientras el lote siga sin llegar a disco
+    private IOException falla;
+    private Thread escritor;
+
+    /**
+     * @param ventanaMillis tiempo que el escritor espera para reunir registros antes
+     *                      de cada fsync; 0 escribe en cuanto hay algo pendiente
+     */
+    Bitacora(Path directorio, long ventanaMillis) {
+        this.directorio = directorio;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ventanaMillis));
+    }
+
+    /**
+     * Lee en orden los registros completos de los segmentos desde el indicado y
+     * deja el último listo para agregar. Debe llamarse una vez, antes de
+     * registrar cualquier cambio.
+     *
+     * @param desdeSegmento primer segmento a leer; los anteriores ya los cubre una instantánea
+     * @return cuántos registros se leyeron
+     * @throws IOException si no se puede leer o abrir, si falta un segmento o si un
+     *                     registro completo no se puede aplicar; el Hospital no arranca
+     *                     solo en memoria ni saltándose cambios
+     */
+    long abrir(long desdeSegmento, LectorRegistro lector) throws IOException {
+        Files.createDirectories(directorio);
+        Path anterior = directorio.resolve(ARCHIVO_ANTERIOR);
+        if (Files.exists(anterior) && !Files.exists(rutaSegmento(0))) {
+            Files.move(anterior, rutaSegmento(0));
+        }
+
+        long leidos = 0;
+        TreeMap<Long, Path> segmentos = listarSegmentos();
+        long ultimo = Math.max(desdeSegmento, segmentos.isEmpty() ? 1 : segmentos.lastKey());
+        NavigableMap<Long, Path> porLeer = segmentos.tailMap(desdeSegmento, true);
+        verificarContinuidad(desdeSegmento, porLeer);
+        for (var segmento : porLeer.entrySet()) {
+            leidos += leerSegmento(segmento.getValue(), lector);
+        }
+
+        segmentoActual = ultimo;
+        canal = abrirSegmento(ultimo);
+        canal.position(canal.size());
+
+        escritor = new Thread(this::escribirLotes, "bitacora-hospital");
+        escritor.setDaemon(true);
+        escritor.start();
+        return leidos;
+    }
+
+    /**
+     * Agrega un registro al lote pendiente. Se llama con el candado de escritura del
+     * Hospital tomado, para que el orden de la bitácora sea el de los cambios.
+     *
+     * @return la posición que debe llegar a disco para que el registro sea durable
+     */
+    long registrar(byte[] contenido) {
+        // Al leer, una longitud 0 marca el final de lo escrito (un resto en ceros)
+        if (contenido.length == 0) {
+            throw new IllegalArgumentException("Un registro de la bitácora no puede estar vacío");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(contenido);
+        synchronized (monitor) {
+            escribirEntero(contenido.length);
+            escribirEntero((int) crc.getValue());
+            pendiente.write(contenido, 0, contenido.length);
+            posicionRegistrada += TAMANIO_MARCO + contenido.length;
+            monitor.notifyAll();
+            return posicionRegistrada;
+        }
+    }
+
+    /**
+     * Rechaza un cambio nuevo mientras la bitácora no pueda escribir. Se llama con el
+     * candado de escritura del Hospital tomado, antes de aplicar el cambio.
+     */
+    void verificarDisponible() {
+        synchronized (monitor) {
+            if (falla != null) {
+                throw new UncheckedIOException("La bitácora no puede escribir; no se aceptan cambios", falla);
+            }
+        }
+    }
+
+    /**
+     * Espera a que todo lo registrado hasta la posición esté en disco
+     *
+     * @throws UncheckedIOException si el lote no se pudo escribir; el cambio ya está
+     *                              aplicado en memoria y el escritor lo seguirá reintentando
+     */
+    void esperarDurable(long posicion) {
+        synchronized (monitor) {
+            while (posicionDurable < posicion) {
+                if (falla != null) {
+                    throw new UncheckedIOException("No se pudo guardar el cambio en la bitácora", falla);
+                }
+                if (terminada) {
+                    return;
+                }
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indica si hay registros en el segmento actual, es decir, cambios que
+     * todavía no cubre ninguna instantánea
+     */
+    boolean hayRegistrosSinInstantanea() {
+        synchronized (monitor) {
+            return posicionRegistrada > posicionInicioSegmento;
+        }
+    }
+
+    /**
+     * Lleva a disco lo registrado y empieza un segmento nuevo. Se llama con el
+     * candado de escritura del Hospital tomado, así que nadie registra mientras tanto.
+     *
+     * @return el número del segmento nuevo
+     */
+    long rotar() throws IOException {
+        long hasta;
+        synchronized (monitor) {
+            hasta = posicionRegistrada;
+        }
+        esperarDurable(hasta);
+        synchronized (candadoCanal) {
+            FileChannel nuevo = abrirSegmento(segmentoActual + 1);
+            canal.close();
+            canal = nuevo;
+            segmentoActual++;
+        }
+        synchronized (monitor) {
+            posicionInicioSegmento = hasta;
+        }
+        return segmentoActual;
+    }
+
+    /**
+     * Borra los segmentos anteriores al indicado, ya cubiertos por una instantánea
+     */
+    void descartarAnteriores(long segmento) {
+        try {
+            for (Path ruta : listarSegmentos().headMap(segmento).values()) {
+                Files.deleteIfExists(ruta);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ No se pudieron borrar segmentos viejos de la bitácora: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lleva a disco lo pendiente y detiene el hilo escritor
+     */
+    void cerrar() {
+        synchronized (monitor) {
+            cerrada = true;
+            monitor.notifyAll();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (candadoCanal) {
+            if (canal != null) {
+                try {
+                    canal.close();
+                } catch (IOException e) {
+                    System.err.println("❌ Error al cerrar la bitácora: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ==================== MARCOS ====================
+
+    /**
+     * Escribe un registro con su marco; usado también por las instantáneas
+     */
+    static void escribirMarco(DataOutput salida, byte[] contenido) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(contenido);
+        salida.writeInt(contenido.length);
+        salida.writeInt((int) crc.getValue());
+        salida.write(contenido);
+    }
+
+    /**
+     * Lee registros hasta agotar los bytes disponibles o encontrar uno incompleto o dañado.
+     *
+     * @return {registros leídos, bytes válidos leídos}
+     * @throws IOException si el lector no puede aplicar un registro íntegro
+     */
+    static long[] leerMarcos(DataInputStream entrada, long disponible, LectorRegistro lector) throws IOException {
+        long leidos = 0;
+        long valido = 0;
+        CRC32 crc = new CRC32();
+        while (disponible - valido >= TAMANIO_MARCO) {
+            int longitud = entrada.readInt();
+            int suma = entrada.readInt();
+            if (longitud <= 0 || longitud > disponible - valido - TAMANIO_MARCO) {
+                break;
+            }
+            byte[] contenido = new byte[longitud];
+            entrada.readFully(contenido);
+            crc.reset();
+            crc.update(contenido);
+            if ((int) crc.getValue() != suma) {
+                break;
+            }
+            try {
+                lector.leer(contenido);
+            } catch (IOException | RuntimeException e) {
+                // Solo se registra lo que ya se aplicó, así que omitirlo dejaría un estado distinto
+                throw new IOException("No se pudo aplicar el registro " + (leidos + 1) + " de la bitácora", e);
+            }
+            leidos++;
+            valido += TAMANIO_MARCO + longitud;
+        }
+        return new long[]{leidos, valido};
+    }
+
+    // ==================== SEGMENTOS ====================
+
+    private long leerSegmento(Path ruta, LectorRegistro lector) throws IOException {
+        if (Files.size(ruta) < TAMANIO_ENCABEZADO) {
+            // Se cortó al crearlo, antes de completar el encabezado: no tiene registros
+            try (FileChannel vacio = FileChannel.open(ruta, StandardOpenOption.WRITE)) {
+                vacio.truncate(0);
+            }
+            return 0;
+        }
+        if (!encabezadoValido(ruta)) {
+            // Saltarlo perdería sus cambios, y sobrescribirlo también
+            throw new IOException("Segmento de bitácora con formato desconocido: " + ruta);
+        }
+        try (FileChannel lectura = FileChannel.open(ruta, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            lectura.position(TAMANIO_ENCABEZADO);
+            // El flujo solo envuelve el canal para leerlo con buffer
+            DataInputStream entrada = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(lectura), 1 << 16));
+            long[] resultado = leerMarcos(entrada, lectura.size() - TAMANIO_ENCABEZADO, lector);
+            long valido = TAMANIO_ENCABEZADO + resultado[1];
+            if (valido < lectura.size()) {
+                System.err.println("⚠ Segmento " + ruta.getFileName() + " truncado en el byte " + valido
+                        + ": se descarta un registro incompleto o dañado");
+                lectura.truncate(valido);
+                lectura.force(true);
+            }
+            return resultado[0];
+        }
+    }
+
+    /**
+     * Los segmentos por leer deben empezar en el indicado (el 0 o el 1 si no hay
+     * instantánea) y seguir sin huecos; si falta uno, la reproducción saltaría cambios
+     */
+    private static void verificarContinuidad(long desdeSegmento, NavigableMap<Long, Path> segmentos)
+            throws IOException {
+        if (desdeSegmento > 0 && segmentos.isEmpty()) {
+            throw new IOException("Falta el segmento " + desdeSegmento + " de la bitácora");
+        }
+        long esperado = desdeSegmento;
+        for (long numero : segmentos.keySet()) {
+            if (numero != esperado && !(esperado == 0 && numero == 1)) {
+                throw new IOException("Falta el segmento " + esperado + " de la bitácora");
+            }
+            esperado = numero + 1;
+        }
+    }
+
+    private FileChannel abrirSegmento(long numero) throws IOException {
+        Path ruta = rutaSegmento(numero);
+        FileChannel nuevo = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (nuevo.size() == 0) {
+            ByteBuffer encabezado = ByteBuffer.allocate(TAMANIO_ENCABEZADO).putInt(MAGICO).putShort(VERSION).flip();
+            while (encabezado.hasRemaining()) {
+                nuevo.write(encabezado);
+            }
+            nuevo.force(true);
+        }
+        nuevo.position(nuevo.size());
+        return nuevo;
+    }
+
+    private TreeMap<Long, Path> listarSegmentos() throws IOException {
+        TreeMap<Long, Path> segmentos = new TreeMap<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path ruta : archivos) {
+                String nombre = ruta.getFileName().toString();
+                String numero = nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length());
+                try {
+                    segmentos.put(Long.parseLong(numero), ruta);
+                } catch (NumberFormatException e) {
+                    // No es un segmento
+                }
+            }
+        }
+        return segmentos;
+    }
+
+    private Path rutaSegmento(long numero) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO, numero, EXTENSION));
+    }
+
+    private static boolean encabezadoValido(Path ruta) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(Files.newInputStream(ruta))) {
+            return entrada.readInt() == MAGICO && entrada.readShort() == VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // ==================== HILO ESCRITOR ====================
+
+    private void escribirLotes() {
+        while (true) {
+            synchronized (monitor) {
+                while (pendiente.size() == 0 && !cerrada) {
+                    try {
+                        monitor.wait();
+                    } catch (InterruptedException e) {
+                        cerrada = true;
+                    }
+                }
+                if (pendiente.size() == 0) {
+                    terminada = true;
+                    monitor.notifyAll();
+                    return;
+                }
+            }
+
+            // Ventana de durabilidad: los escritores que lleguen mientras tanto comparten el fsync
+            if (ventanaNanos > 0) {
+                LockSupport.parkNanos(ventanaNanos);
+            }
+
+            byte[] lote;
+            long fin;
+            synchronized (monitor) {
+                lote = pendiente.toByteArray();
+                pendiente.reset();
+                fin = posicionRegistrada;
+            }
+
+            // La posición durable solo avanza cuando el lote llegó completo a disco
+            while (true) {
+                IOException error = escribirEnDisco(lote);
+                synchronized (monitor) {
+                    if (error == null) {
+                        if (falla != null) {
+                            System.err.println("✅ La bitácora volvió a escribir");
+                        }
+                        falla = null;
+                        posicionDurable = fin;
+                        monitor.notifyAll();
+                        break;
+                    }
+                    if (falla == null) {
+                        // Se avisa una vez por falla para no inundar la consola
+                        System.err.println("❌ No se pudo escribir en la bitácora, se reintentará: "
+                                + error.getMessage());
+                    }
+                    falla = error;
+                    monitor.notifyAll();
+                    if (cerrada) {
+                        System.err.println("❌ La bitácora se cerró sin guardar los últimos cambios");
+                        terminada = true;
+                        return;
+                    }
+                    try {
+                        monitor.wait(REINTENTO_MILLIS);
+                    } catch (InterruptedException e) {
+                        cerrada = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe el lote y fuerza el segmento. Si un intento anterior falló, primero
+     * descarta lo que haya quedado de él.
+     *
+     * @return null si el lote llegó a disco, o el error
+     */
+    private IOException escribirEnDisco(byte[] lote) {
+        synchronized (candadoCanal) {
+            try {
+                if (inicioLoteFallido >= 0) {
+                    canal.truncate(inicioLoteFallido);
+                    canal.position(inicioLoteFallido);
+                } else {
+                    inicioLoteFallido = canal.position();
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(lote);
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(false);
+                inicioLoteFallido = -1;
+                return null;
+            } catch (IOException e) {
+                return e;
+            }
+        }
+    }
+
+    private void escribirEntero(int valor) {
+        pendiente.write(valor >>> 24);
+        pendiente.write(valor >>> 16);
+        pendiente.write(valor >>> 8);
+        pendiente.write(valor);
+    }
+
+    /**
+     * Recibe, en orden, el contenido de cada registro válido
+     */
+    @FunctionalInterface
+    interface LectorRegistro {
+        void leer(byte[] contenido) throws IOException;
+    }
+}
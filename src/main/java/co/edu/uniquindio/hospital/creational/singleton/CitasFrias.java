@@ -0,0 +1,522 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+import co.edu.uniquindio.hospital.EstadoCita;
+import co.edu.uniquindio.hospital.Medico;
+import co.edu.uniquindio.hospital.Paciente;
+import co.edu.uniquindio.hospital.Person;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Nivel frío de citas: las citas cerradas y viejas se guardan codificadas en un
+ * archivo mapeado en memoria (datos/citas-frias.dat), fuera del heap, y se
+ * decodifican solo cuando se consultan.
+ *
+ * El archivo solo crece: cada cita archivada se agrega al final y al quitarla su
+ * registro se marca como dado de baja. Cada registro enlaza con el anterior del
+ * mismo paciente, del mismo médico y del mismo día, así que en el heap solo
+ * quedan las cabezas de esas cadenas (una por paciente, médico o día) y una
+ * tabla de IDs fuera del heap. No es durable: la bitácora y las instantáneas
+ * siguen siendo la fuente de verdad, y el archivo se borra al cerrar.
+ *
+ * Registro: [baja long][anterior paciente long][anterior médico long]
+ * [anterior día long][claveTiempo long][longitud int][cita codificada]
+ *
+ * Las citas frías de la instantánea con la que arranca el Hospital no se copian:
+ * su registro guarda, en lugar de la cita codificada, el ID y la posición de la
+ * cita en la instantánea mapeada ([0][longitud][UTF-8][origen int][índice int]),
+ * y se decodifican desde allí. El mapeo sigue siendo válido aunque después se
+ * borre el archivo de la instantánea.
+ *
+ * No es seguro entre hilos; el Hospital lo usa con su candado.
+ */
+final class CitasFrias {
+
+    // Regiones mapeadas de 64 MB; un registro nunca cruza de una región a otra
+    private static final int BITS_REGION = 26;
+    private static final long TAMANIO_REGION = 1L << BITS_REGION;
+
+    private static final int R_BAJA = 0;
+    private static final int R_ANTERIOR_PACIENTE = 8;
+    private static final int R_ANTERIOR_MEDICO = 16;
+    private static final int R_ANTERIOR_DIA = 24;
+    private static final int R_CLAVE_TIEMPO = 32;
+    private static final int R_LONGITUD = 40;
+    private static final int TAMANIO_CABECERA = 44;
+
+    private static final long SIN_ANTERIOR = -1;
+
+    // Primer byte del cuerpo de una referencia; ningún TipoRegistro usa el 0
+    private static final byte REFERENCIA = 0;
+
+    private final Path archivo;
+    private FileChannel canal;
+    private final List<MappedByteBuffer> regiones = new ArrayList<>();
+    private long fin;
+
+    // Cada baja toma una generación nueva; las instantáneas ven las bajas posteriores a su corte
+    private long generacion;
+
+    private final TablaIds tabla = new TablaIds();
+    private final Map<String, Long> cabezaPorPaciente = new HashMap<>();
+    private final Map<String, Long> cabezaPorMedico = new HashMap<>();
+    private final TreeMap<Long, Long> cabezaPorDia = new TreeMap<>();
+    private final long[] conteoPorEstado = new long[EstadoCita.values().length];
+    private int cantidad;
+
+    // Personas que referencian las citas archivadas, para decodificarlas con las mismas instancias
+    private final Map<String, Person> personas = new HashMap<>();
+
+    // Instantáneas a las que apuntan las referencias
+    private final List<RegistrosMapeados> origenes = new ArrayList<>();
+
+    CitasFrias(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    /**
+     * Posición final y generación del nivel en un momento dado. Las citas vigentes
+     * en el corte son las que estaban antes de la posición y no tienen una baja
+     * anterior o igual a la generación.
+     */
+    record Corte(long fin, long generacion) {
+    }
+
+    // ==================== CAMBIOS ====================
+
+    void agregar(Cita cita) {
+        agregar(cita.getId(), cita.getPaciente(), cita.getMedico(), cita.getClaveTiempo(),
+                CodificadorRegistros.cita(TipoRegistro.CITA_AGREGADA, cita));
+    }
+
+    /**
+     * Archiva una cita que sigue en una instantánea mapeada guardando solo su ID y
+     * su posición allí
+     */
+    void agregar(String citaId, Paciente paciente, Medico medico, long claveTiempo,
+                 RegistrosMapeados origen, int indice) {
+        int numeroOrigen = origenes.indexOf(origen);
+        if (numeroOrigen < 0) {
+            numeroOrigen = origenes.size();
+            origenes.add(origen);
+        }
+        byte[] id = citaId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer cuerpo = ByteBuffer.allocate(1 + Integer.BYTES + id.length + 2 * Integer.BYTES)
+                .put(REFERENCIA)
+                .putInt(id.length)
+                .put(id)
+                .putInt(numeroOrigen)
+                .putInt(indice);
+        agregar(citaId, paciente, medico, claveTiempo, cuerpo.array());
+    }
+
+    private void agregar(String citaId, Person paciente, Person medico, long claveTiempo, byte[] cuerpo) {
+        long tamanio = TAMANIO_CABECERA + (long) cuerpo.length;
+        if (tamanio > TAMANIO_REGION) {
+            throw new IllegalArgumentException("La cita " + citaId + " es demasiado grande para archivarla");
+        }
+        if (desplazamiento(fin) + tamanio > TAMANIO_REGION) {
+            fin = (fin >>> BITS_REGION) + 1 << BITS_REGION;
+        }
+        long posicion = fin;
+        ByteBuffer region = region(posicion);
+        int base = desplazamiento(posicion);
+        String pacienteId = paciente.getId();
+        String medicoId = medico.getId();
+        long dia = Cita.fechaDe(claveTiempo).toEpochDay();
+        region.putLong(base + R_BAJA, 0);
+        region.putLong(base + R_ANTERIOR_PACIENTE, cabezaPorPaciente.getOrDefault(pacienteId, SIN_ANTERIOR));
+        region.putLong(base + R_ANTERIOR_MEDICO, cabezaPorMedico.getOrDefault(medicoId, SIN_ANTERIOR));
+        region.putLong(base + R_ANTERIOR_DIA, cabezaPorDia.getOrDefault(dia, SIN_ANTERIOR));
+        region.putLong(base + R_CLAVE_TIEMPO, claveTiempo);
+        region.put(base + TAMANIO_CABECERA, cuerpo);
+        // La longitud va al final: un registro sin longitud no existe
+        region.putInt(base + R_LONGITUD, cuerpo.length);
+        fin = posicion + tamanio;
+
+        cabezaPorPaciente.put(pacienteId, posicion);
+        cabezaPorMedico.put(medicoId, posicion);
+        cabezaPorDia.put(dia, posicion);
+        personas.put(pacienteId, paciente);
+        personas.put(medicoId, medico);
+        tabla.poner(citaId, posicion);
+        EstadoCita estado = Cita.estadoDe(claveTiempo);
+        if (estado != null) {
+            conteoPorEstado[estado.ordinal()]++;
+        }
+        cantidad++;
+    }
+
+    /**
+     * Da de baja una cita archivada
+     *
+     * @return la cita tal como estaba archivada, o null si no estaba
+     */
+    Cita quitar(String citaId) {
+        long posicion = tabla.quitar(citaId);
+        if (posicion < 0) {
+            return null;
+        }
+        Cita cita = decodificar(posicion);
+        region(posicion).putLong(desplazamiento(posicion) + R_BAJA, ++generacion);
+        if (cita.getEstado() != null) {
+            conteoPorEstado[cita.getEstado().ordinal()]--;
+        }
+        cantidad--;
+        return cita;
+    }
+
+    /**
+     * Da de baja todas las citas. El archivo no se reutiliza, para que las
+     * instantáneas en curso puedan terminar de leerlo.
+     */
+    void limpiar() {
+        long bajaComun = ++generacion;
+        tabla.recorrer(posicion -> region(posicion).putLong(desplazamiento(posicion) + R_BAJA, bajaComun));
+        tabla.limpiar();
+        cabezaPorPaciente.clear();
+        cabezaPorMedico.clear();
+        cabezaPorDia.clear();
+        // Las personas y los orígenes se conservan: una instantánea en curso todavía puede decodificar registros
+        Arrays.fill(conteoPorEstado, 0);
+        cantidad = 0;
+    }
+
+    void cerrar() {
+        try {
+            if (canal != null) {
+                canal.close();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ No se pudo cerrar el nivel frío de citas: " + e.getMessage());
+        }
+    }
+
+    // ==================== CONSULTAS ====================
+
+    boolean contiene(String citaId) {
+        return tabla.buscar(citaId) >= 0;
+    }
+
+    /**
+     * Decodifica una cita archivada; cada llamada devuelve una instancia nueva
+     */
+    Cita buscar(String citaId) {
+        long posicion = tabla.buscar(citaId);
+        return posicion >= 0 ? decodificar(posicion) : null;
+    }
+
+    int getCantidad() {
+        return cantidad;
+    }
+
+    long contarPorEstado(EstadoCita estado) {
+        return conteoPorEstado[estado.ordinal()];
+    }
+
+    /**
+     * Citas de un paciente con el momento (fecha y hora empaquetadas) en [desde, hasta)
+     */
+    List<Cita> dePaciente(String pacienteId, long desde, long hasta) {
+        return recorrerCadena(cabezaPorPaciente.get(pacienteId), R_ANTERIOR_PACIENTE, desde, hasta);
+    }
+
+    /**
+     * Citas de un médico con el momento (fecha y hora empaquetadas) en [desde, hasta)
+     */
+    List<Cita> deMedico(String medicoId, long desde, long hasta) {
+        return recorrerCadena(cabezaPorMedico.get(medicoId), R_ANTERIOR_MEDICO, desde, hasta);
+    }
+
+    /**
+     * Cuenta las citas de un médico con el momento en [desde, hasta), sin decodificarlas
+     */
+    long contarDeMedico(String medicoId, long desde, long hasta) {
+        long[] cantidad = {0};
+        recorrerCadena(cabezaPorMedico.get(medicoId), R_ANTERIOR_MEDICO, desde, hasta, posicion -> cantidad[0]++);
+        return cantidad[0];
+    }
+
+    /**
+     * Días epoch en que un médico tiene citas con el momento en [desde, hasta), en
+     * orden, sin decodificarlas
+     */
+    NavigableSet<Long> diasDeMedico(String medicoId, long desde, long hasta) {
+        NavigableSet<Long> dias = new TreeSet<>();
+        recorrerCadena(cabezaPorMedico.get(medicoId), R_ANTERIOR_MEDICO, desde, hasta, posicion -> {
+            long claveTiempo = region(posicion).getLong(desplazamiento(posicion) + R_CLAVE_TIEMPO);
+            dias.add(Cita.fechaDe(claveTiempo).toEpochDay());
+        });
+        return dias;
+    }
+
+    /**
+     * Citas entre dos días epoch (inclusive)
+     */
+    List<Cita> entreDias(long desde, long hasta) {
+        List<Cita> citas = new ArrayList<>();
+        for (long cabeza : cabezaPorDia.subMap(desde, true, hasta, true).values()) {
+            citas.addAll(recorrerCadena(cabeza, R_ANTERIOR_DIA, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        return citas;
+    }
+
+    /**
+     * Primer día epoch con citas archivadas desde un día (inclusive), o null si no hay más
+     */
+    LocalDate siguienteDia(long desde) {
+        Long dia = cabezaPorDia.ceilingKey(desde);
+        return dia != null ? LocalDate.ofEpochDay(dia) : null;
+    }
+
+    Corte cortar() {
+        return new Corte(fin, generacion);
+    }
+
+    /**
+     * Decodifica hasta {@code maximo} citas vigentes en el corte, a partir de una posición
+     *
+     * @return la posición desde la que seguir, o -1 si ya no quedan
+     */
+    long leer(Corte corte, long posicion, List<Cita> destino, int maximo) {
+        while (posicion < corte.fin() && destino.size() < maximo) {
+            if (desplazamiento(posicion) > TAMANIO_REGION - TAMANIO_CABECERA) {
+                posicion = (posicion >>> BITS_REGION) + 1 << BITS_REGION;
+                continue;
+            }
+            ByteBuffer region = region(posicion);
+            int base = desplazamiento(posicion);
+            int longitud = region.getInt(base + R_LONGITUD);
+            if (longitud == 0) {
+                // El resto de la región quedó vacío porque el siguiente registro no cabía
+                posicion = (posicion >>> BITS_REGION) + 1 << BITS_REGION;
+                continue;
+            }
+            long baja = region.getLong(base + R_BAJA);
+            if (baja == 0 || baja > corte.generacion()) {
+                destino.add(decodificar(posicion));
+            }
+            posicion += TAMANIO_CABECERA + longitud;
+        }
+        return posicion < corte.fin() ? posicion : -1;
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private List<Cita> recorrerCadena(Long cabeza, int campoAnterior, long desde, long hasta) {
+        List<Cita> citas = new ArrayList<>();
+        recorrerCadena(cabeza, campoAnterior, desde, hasta, posicion -> citas.add(decodificar(posicion)));
+        return citas;
+    }
+
+    /**
+     * Visita las posiciones vigentes de una cadena con el momento en [desde, hasta);
+     * el momento se lee de la cabecera, sin decodificar la cita
+     */
+    private void recorrerCadena(Long cabeza, int campoAnterior, long desde, long hasta, LongConsumer accion) {
+        long posicion = cabeza != null ? cabeza : SIN_ANTERIOR;
+        while (posicion != SIN_ANTERIOR) {
+            ByteBuffer region = region(posicion);
+            int base = desplazamiento(posicion);
+            long momento = Cita.momentoDe(region.getLong(base + R_CLAVE_TIEMPO));
+            if (region.getLong(base + R_BAJA) == 0 && momento >= desde && momento < hasta) {
+                accion.accept(posicion);
+            }
+            posicion = region.getLong(base + campoAnterior);
+        }
+    }
+
+    private Cita decodificar(long posicion) {
+        ByteBuffer region = region(posicion);
+        int base = desplazamiento(posicion);
+        byte[] cuerpo = new byte[region.getInt(base + R_LONGITUD)];
+        region.get(base + TAMANIO_CABECERA, cuerpo);
+        try {
+            DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(cuerpo));
+            if (cuerpo[0] == REFERENCIA) {
+                entrada.skipBytes(1);
+                entrada.skipBytes(entrada.readInt());
+                RegistrosMapeados origen = origenes.get(entrada.readInt());
+                return origen.cita(entrada.readInt(), personas::get);
+            }
+            CodificadorRegistros.leerTipo(entrada);
+            return CodificadorRegistros.leerCita(entrada, personas::get);
+        } catch (IOException e) {
+            // Lo escribió este mismo proceso, o se validó al cargar la instantánea, así que no debería pasar
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Indica si el registro de la posición es el de la cita con ese ID
+     */
+    private boolean esDe(long posicion, byte[] id) {
+        ByteBuffer region = region(posicion);
+        // El cuerpo empieza con el tipo de registro y el ID: [tipo][longitud][UTF-8]
+        int inicio = desplazamiento(posicion) + TAMANIO_CABECERA + 1;
+        if (region.getInt(inicio) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (region.get(inicio + Integer.BYTES + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MappedByteBuffer region(long posicion) {
+        int indice = (int) (posicion >>> BITS_REGION);
+        while (regiones.size() <= indice) {
+            regiones.add(mapear(regiones.size()));
+        }
+        return regiones.get(indice);
+    }
+
+    private MappedByteBuffer mapear(int indice) {
+        try {
+            if (canal == null) {
+                Files.createDirectories(archivo.toAbsolutePath().getParent());
+                canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            // Mapear más allá del final agranda el archivo (sin ocupar disco hasta que se escribe)
+            return canal.map(FileChannel.MapMode.READ_WRITE, indice * TAMANIO_REGION, TAMANIO_REGION);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo mapear el nivel frío de citas", e);
+        }
+    }
+
+    private static int desplazamiento(long posicion) {
+        return (int) (posicion & (TAMANIO_REGION - 1));
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto, fuera del heap, del ID de cada cita
+     * vigente a la posición de su registro. Guarda posición + 1 (0 = libre,
+     * -1 = borrado) y compara los IDs contra el registro.
+     */
+    private final class TablaIds {
+        private static final long LIBRE = 0;
+        private static final long BORRADO = -1;
+
+        private ByteBuffer casillas = ByteBuffer.allocateDirect(1024 * Long.BYTES);
+        private int capacidad = 1024;
+        private int ocupadas;
+        private int borradas;
+
+        long buscar(String citaId) {
+            byte[] id = citaId.getBytes(StandardCharsets.UTF_8);
+            int casilla = casillaDe(citaId, id);
+            return casilla >= 0 ? casillas.getLong(casilla * Long.BYTES) - 1 : -1;
+        }
+
+        void poner(String citaId, long posicion) {
+            if ((ocupadas + borradas + 1) * 2L > capacidad) {
+                redimensionar(ocupadas * 4L > capacidad ? capacidad * 2 : capacidad);
+            }
+            int casilla = inicioDe(citaId);
+            while (casillas.getLong(casilla * Long.BYTES) > LIBRE) {
+                casilla = (casilla + 1) & (capacidad - 1);
+            }
+            if (casillas.getLong(casilla * Long.BYTES) == BORRADO) {
+                borradas--;
+            }
+            casillas.putLong(casilla * Long.BYTES, posicion + 1);
+            ocupadas++;
+        }
+
+        long quitar(String citaId) {
+            int casilla = casillaDe(citaId, citaId.getBytes(StandardCharsets.UTF_8));
+            if (casilla < 0) {
+                return -1;
+            }
+            long posicion = casillas.getLong(casilla * Long.BYTES) - 1;
+            casillas.putLong(casilla * Long.BYTES, BORRADO);
+            ocupadas--;
+            borradas++;
+            return posicion;
+        }
+
+        void recorrer(LongConsumer accion) {
+            for (int casilla = 0; casilla < capacidad; casilla++) {
+                long valor = casillas.getLong(casilla * Long.BYTES);
+                if (valor > LIBRE) {
+                    accion.accept(valor - 1);
+                }
+            }
+        }
+
+        void limpiar() {
+            casillas = ByteBuffer.allocateDirect(1024 * Long.BYTES);
+            capacidad = 1024;
+            ocupadas = 0;
+            borradas = 0;
+        }
+
+        private int casillaDe(String citaId, byte[] id) {
+            int casilla = inicioDe(citaId);
+            while (true) {
+                long valor = casillas.getLong(casilla * Long.BYTES);
+                if (valor == LIBRE) {
+                    return -1;
+                }
+                if (valor > LIBRE && esDe(valor - 1, id)) {
+                    return casilla;
+                }
+                casilla = (casilla + 1) & (capacidad - 1);
+            }
+        }
+
+        private int inicioDe(String citaId) {
+            return (citaId.hashCode() * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(capacidad));
+        }
+
+        private void redimensionar(int nuevaCapacidad) {
+            ByteBuffer anteriores = casillas;
+            int capacidadAnterior = capacidad;
+            casillas = ByteBuffer.allocateDirect(nuevaCapacidad * Long.BYTES);
+            capacidad = nuevaCapacidad;
+            borradas = 0;
+            for (int casilla = 0; casilla < capacidadAnterior; casilla++) {
+                long valor = anteriores.getLong(casilla * Long.BYTES);
+                if (valor > LIBRE) {
+                    int destino = inicioDe(idDe(valor - 1));
+                    while (casillas.getLong(destino * Long.BYTES) != LIBRE) {
+                        destino = (destino + 1) & (capacidad - 1);
+                    }
+                    casillas.putLong(destino * Long.BYTES, valor);
+                }
+            }
+        }
+
+        private String idDe(long posicion) {
+            ByteBuffer region = region(posicion);
+            int inicio = desplazamiento(posicion) + TAMANIO_CABECERA + 1;
+            byte[] id = new byte[region.getInt(inicio)];
+            region.get(inicio + Integer.BYTES, id);
+            return new String(id, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Clave de ordenamiento de las agendas: fecha y hora, empaquetadas como en
+ * {@link Cita#claveTiempo(LocalDate, LocalTime)}, y como desempate el ID de la
+ * cita (un médico puede tener una cita cancelada y otra programada en el mismo
+ * horario).
+ */
+record ClaveAgenda(long momento, String citaId) implements Comparable<ClaveAgenda> {
+
+    /**
+     * Primera clave posible de un día, útil como límite de los rangos
+     */
+    static ClaveAgenda inicioDe(LocalDate fecha) {
+        return new ClaveAgenda(Cita.claveTiempo(fecha, null), "");
+    }
+
+    /**
+     * Primera clave posible de un horario
+     */
+    static ClaveAgenda inicioDe(LocalDate fecha, LocalTime hora) {
+        return new ClaveAgenda(Cita.claveTiempo(fecha, hora), "");
+    }
+
+    @Override
+    public int compareTo(ClaveAgenda otra) {
+        int orden = Long.compare(momento, otra.momento);
+        return orden != 0 ? orden : citaId.compareTo(otra.citaId);
+    }
+}
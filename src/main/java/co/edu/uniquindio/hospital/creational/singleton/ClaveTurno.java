@@ -0,0 +1,18 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Turno concreto de un médico: la unidad que se reserva al agendar una cita.
+ *
+ * @param momento fecha y hora empaquetadas como en {@link Cita#claveTiempo(LocalDate, LocalTime)}
+ */
+record ClaveTurno(String medicoId, long momento) {
+
+    static ClaveTurno de(String medicoId, LocalDate fecha, LocalTime hora) {
+        return new ClaveTurno(medicoId, Cita.claveTiempo(fecha, hora));
+    }
+}
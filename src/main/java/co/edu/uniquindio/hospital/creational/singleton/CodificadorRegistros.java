@@ -0,0 +1,265 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.function.Function;
+
+/**
+ * Convierte los cambios del Hospital en registros binarios de la bitácora y de vuelta.
+ *
+ * Cada registro empieza con el código de su TipoRegistro. Las personas se guardan
+ * completas, con su cuenta; las citas guardan solo el ID del paciente y del médico.
+ * Los enums se guardan por nombre, para que reordenar sus constantes no cambie
+ * el significado de los registros ya escritos.
+ */
+final class CodificadorRegistros {
+
+    private static final byte MEDICO = 1;
+    private static final byte PACIENTE = 2;
+    private static final byte ADMIN = 3;
+
+    private CodificadorRegistros() {
+    }
+
+    // ==================== ESCRITURA ====================
+
+    static byte[] persona(TipoRegistro tipo, Person person) {
+        return codificar(tipo, salida -> escribirPersona(salida, person));
+    }
+
+    static byte[] cita(TipoRegistro tipo, Cita cita) {
+        return codificar(tipo, salida -> escribirCita(salida, cita));
+    }
+
+    static byte[] eliminacion(TipoRegistro tipo, String id) {
+        return codificar(tipo, salida -> escribirTexto(salida, id));
+    }
+
+    static byte[] marca(TipoRegistro tipo) {
+        return codificar(tipo, salida -> { });
+    }
+
+    private static byte[] codificar(TipoRegistro tipo, Escritura escritura) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeByte(tipo.getCodigo());
+            escritura.escribir(salida);
+        } catch (IOException e) {
+            // Un ByteArrayOutputStream no falla al escribir
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void escribirPersona(DataOutput salida, Person person) throws IOException {
+        if (person instanceof Medico) {
+            salida.writeByte(MEDICO);
+        } else if (person instanceof Paciente) {
+            salida.writeByte(PACIENTE);
+        } else if (person instanceof Admin) {
+            salida.writeByte(ADMIN);
+        } else {
+            throw new IllegalArgumentException("Tipo de persona no soportado: " + person.getClass().getName());
+        }
+        escribirTexto(salida, person.getId());
+        escribirTexto(salida, person.getDocumento());
+        escribirTexto(salida, person.getNombre());
+        escribirTexto(salida, person.getCorreo());
+        escribirTexto(salida, person.getTelefono());
+
+        UserAccount cuenta = person.getUserAccount();
+        salida.writeBoolean(cuenta != null);
+        if (cuenta != null) {
+            escribirTexto(salida, cuenta.getUsuario());
+            escribirTexto(salida, cuenta.getContrasenia());
+            escribirEnum(salida, cuenta.getTipoUsuario());
+        }
+
+        if (person instanceof Medico medico) {
+            escribirEnum(salida, medico.getEspecialidad());
+            escribirTexto(salida, medico.getLicenciaMedica());
+            salida.writeBoolean(medico.isDisponible());
+        } else if (person instanceof Paciente paciente) {
+            escribirFecha(salida, paciente.getFechaNacimiento());
+            escribirTexto(salida, paciente.getDireccion());
+            escribirTexto(salida, paciente.getGenero());
+        } else if (person instanceof Admin admin) {
+            escribirTexto(salida, admin.getCargo());
+        }
+    }
+
+    private static void escribirCita(DataOutput salida, Cita cita) throws IOException {
+        escribirTexto(salida, cita.getId());
+        escribirTexto(salida, cita.getPaciente().getId());
+        escribirTexto(salida, cita.getMedico().getId());
+        escribirEnum(salida, cita.getEspecialidad());
+        escribirFecha(salida, cita.getFecha());
+        salida.writeInt(cita.getHora().toSecondOfDay());
+        salida.writeDouble(cita.getPrecio());
+        escribirTexto(salida, cita.getMotivo());
+        escribirEnum(salida, cita.getEstado());
+        escribirTexto(salida, cita.getObservaciones());
+        escribirTexto(salida, cita.getDiagnostico());
+    }
+
+    // ==================== LECTURA ====================
+
+    static TipoRegistro leerTipo(DataInput entrada) throws IOException {
+        return TipoRegistro.deCodigo(entrada.readByte());
+    }
+
+    static String leerId(DataInput entrada) throws IOException {
+        return leerTexto(entrada);
+    }
+
+    static Person leerPersona(DataInput entrada) throws IOException {
+        byte clase = entrada.readByte();
+        String id = leerTexto(entrada);
+        String documento = leerTexto(entrada);
+        String nombre = leerTexto(entrada);
+        String correo = leerTexto(entrada);
+        String telefono = leerTexto(entrada);
+
+        UserAccount cuenta = null;
+        if (entrada.readBoolean()) {
+            cuenta = new UserAccount(leerTexto(entrada), leerTexto(entrada), null,
+                    leerEnum(entrada, TipoUsuario.class));
+        }
+
+        Person person = switch (clase) {
+            case MEDICO -> new Medico(id, documento, nombre, correo, telefono, cuenta,
+                    leerEnum(entrada, Especialidad.class), leerTexto(entrada), entrada.readBoolean());
+            case PACIENTE -> new Paciente(id, documento, nombre, correo, telefono, cuenta,
+                    leerFecha(entrada), leerTexto(entrada), leerTexto(entrada));
+            case ADMIN -> new Admin(id, documento, nombre, correo, telefono, cuenta, leerTexto(entrada));
+            default -> throw new IOException("Tipo de persona desconocido: " + clase);
+        };
+        if (cuenta != null) {
+            cuenta.setPerson(person);
+        }
+        return person;
+    }
+
+    /**
+     * Lee una cita resolviendo su paciente y su médico por ID
+     *
+     * @throws IOException si alguno de los dos no existe
+     */
+    static Cita leerCita(DataInput entrada, Function<String, Person> personas) throws IOException {
+        String id = leerTexto(entrada);
+        String pacienteId = leerTexto(entrada);
+        String medicoId = leerTexto(entrada);
+        if (!(personas.apply(pacienteId) instanceof Paciente paciente)) {
+            throw new IOException("La cita " + id + " referencia un paciente desconocido: " + pacienteId);
+        }
+        if (!(personas.apply(medicoId) instanceof Medico medico)) {
+            throw new IOException("La cita " + id + " referencia un médico desconocido: " + medicoId);
+        }
+        Especialidad especialidad = leerEnum(entrada, Especialidad.class);
+        LocalDate fecha = leerFecha(entrada);
+        LocalTime hora = LocalTime.ofSecondOfDay(entrada.readInt());
+        return Cita.builder(id, paciente, medico, fecha, hora)
+                .especialidad(especialidad)
+                .precio(entrada.readDouble())
+                .motivo(leerTexto(entrada))
+                .estado(leerEnum(entrada, EstadoCita.class))
+                .observaciones(leerTexto(entrada))
+                .diagnostico(leerTexto(entrada))
+                .build();
+    }
+
+    /**
+     * Copia los datos de una persona leída sobre la instancia registrada, que es
+     * la que referencian las citas
+     */
+    static void copiarDatos(Person origen, Person destino) {
+        destino.setDocumento(origen.getDocumento());
+        destino.setNombre(origen.getNombre());
+        destino.setCorreo(origen.getCorreo());
+        destino.setTelefono(origen.getTelefono());
+
+        UserAccount cuenta = origen.getUserAccount();
+        if (cuenta != null && destino.getUserAccount() != null) {
+            destino.getUserAccount().setUsuario(cuenta.getUsuario());
+            destino.getUserAccount().setContrasenia(cuenta.getContrasenia());
+            destino.getUserAccount().setTipoUsuario(cuenta.getTipoUsuario());
+        } else {
+            if (cuenta != null) {
+                cuenta.setPerson(destino);
+            }
+            destino.setUserAccount(cuenta);
+        }
+
+        if (origen instanceof Medico desde && destino instanceof Medico hacia) {
+            hacia.setEspecialidad(desde.getEspecialidad());
+            hacia.setLicenciaMedica(desde.getLicenciaMedica());
+            hacia.setDisponible(desde.isDisponible());
+        } else if (origen instanceof Paciente desde && destino instanceof Paciente hacia) {
+            hacia.setFechaNacimiento(desde.getFechaNacimiento());
+            hacia.setDireccion(desde.getDireccion());
+            hacia.setGenero(desde.getGenero());
+        } else if (origen instanceof Admin desde && destino instanceof Admin hacia) {
+            hacia.setCargo(desde.getCargo());
+        }
+    }
+
+    // ==================== VALORES ====================
+
+    private static void escribirTexto(DataOutput salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static String leerTexto(DataInput entrada) throws IOException {
+        int longitud = entrada.readInt();
+        if (longitud < 0) {
+            return null;
+        }
+        if (longitud == 0) {
+            // Los campos opcionales vacíos son muy comunes; comparten la misma instancia
+            return "";
+        }
+        byte[] bytes = new byte[longitud];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escribirFecha(DataOutput salida, LocalDate fecha) throws IOException {
+        salida.writeBoolean(fecha != null);
+        if (fecha != null) {
+            salida.writeInt((int) fecha.toEpochDay());
+        }
+    }
+
+    private static LocalDate leerFecha(DataInput entrada) throws IOException {
+        return entrada.readBoolean() ? LocalDate.ofEpochDay(entrada.readInt()) : null;
+    }
+
+    private static void escribirEnum(DataOutput salida, Enum<?> valor) throws IOException {
+        escribirTexto(salida, valor != null ? valor.name() : null);
+    }
+
+    private static <E extends Enum<E>> E leerEnum(DataInput entrada, Class<E> tipo) throws IOException {
+        String nombre = leerTexto(entrada);
+        return nombre != null ? Enum.valueOf(tipo, nombre) : null;
+    }
+
+    @FunctionalInterface
+    private interface Escritura {
+        void escribir(DataOutput salida) throws IOException;
+    }
+}
@@ -0,0 +1,274 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+import co.edu.uniquindio.hospital.Especialidad;
+import co.edu.uniquindio.hospital.EstadoCita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia en columnas de los datos numéricos de las citas, para los reportes.
+ *
+ * Cada cita ocupa una fila en arreglos primitivos paralelos (día epoch, minuto
+ * del día, estado, especialidad, precio y claves enteras del médico y del
+ * paciente). Los reportes recorren solo las columnas que usan, de forma
+ * secuencial y sin seguir referencias, con ciclos simples que el JIT puede
+ * vectorizar. Las filas se mantienen contiguas: al borrar una cita, la última
+ * fila ocupa su lugar.
+ *
+ * El Hospital la actualiza junto con sus índices, con el candado de escritura,
+ * y la consulta con el de lectura.
+ */
+final class ColumnasCitas {
+
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final byte SIN_VALOR = -1;
+
+    private static final int NUMERO_ESTADOS = EstadoCita.values().length;
+    private static final int NUMERO_ESPECIALIDADES = Especialidad.values().length;
+
+    private int cantidad;
+    private String[] ids = new String[CAPACIDAD_INICIAL];
+    private int[] dias = new int[CAPACIDAD_INICIAL];
+    private short[] minutos = new short[CAPACIDAD_INICIAL];
+    private byte[] estados = new byte[CAPACIDAD_INICIAL];
+    private byte[] especialidades = new byte[CAPACIDAD_INICIAL];
+    private double[] precios = new double[CAPACIDAD_INICIAL];
+    private int[] medicos = new int[CAPACIDAD_INICIAL];
+    private int[] pacientes = new int[CAPACIDAD_INICIAL];
+
+    private final Map<String, Integer> filaPorId = new HashMap<>();
+
+    // Claves enteras de médicos y pacientes; se asignan la primera vez y no se liberan
+    private final Map<String, Integer> claveMedico = new HashMap<>();
+    private final List<String> medicoPorClave = new ArrayList<>();
+    private final Map<String, Integer> clavePaciente = new HashMap<>();
+    private final List<String> pacientePorClave = new ArrayList<>();
+
+    // ==================== MANTENIMIENTO ====================
+
+    /**
+     * Agrega la fila de una cita o la reescribe si ya estaba
+     */
+    void escribir(Cita cita) {
+        escribir(cita.getId(), cita.getClaveTiempo(), cita.getPrecio(), cita.getMedico().getId(),
+                cita.getPaciente().getId());
+    }
+
+    /**
+     * Igual que escribir(Cita), con los valores ya extraídos de la cita
+     */
+    void escribir(String citaId, long claveTiempo, double precio, String medicoId, String pacienteId) {
+        Integer existente = filaPorId.get(citaId);
+        int fila;
+        if (existente != null) {
+            fila = existente;
+        } else {
+            if (cantidad == dias.length) {
+                crecer();
+            }
+            fila = cantidad++;
+            ids[fila] = citaId;
+            filaPorId.put(citaId, fila);
+        }
+        LocalTime hora = Cita.horaDe(claveTiempo);
+        dias[fila] = (int) Cita.fechaDe(claveTiempo).toEpochDay();
+        minutos[fila] = (short) (hora.getHour() * 60 + hora.getMinute());
+        estados[fila] = ordinal(Cita.estadoDe(claveTiempo));
+        especialidades[fila] = ordinal(Cita.especialidadDe(claveTiempo));
+        precios[fila] = precio;
+        medicos[fila] = clave(claveMedico, medicoPorClave, medicoId);
+        pacientes[fila] = clave(clavePaciente, pacientePorClave, pacienteId);
+    }
+
+    void quitar(String citaId) {
+        Integer fila = filaPorId.remove(citaId);
+        if (fila == null) {
+            return;
+        }
+        int ultima = --cantidad;
+        if (fila != ultima) {
+            ids[fila] = ids[ultima];
+            dias[fila] = dias[ultima];
+            minutos[fila] = minutos[ultima];
+            estados[fila] = estados[ultima];
+            especialidades[fila] = especialidades[ultima];
+            precios[fila] = precios[ultima];
+            medicos[fila] = medicos[ultima];
+            pacientes[fila] = pacientes[ultima];
+            filaPorId.put(ids[fila], fila);
+        }
+        ids[ultima] = null;
+    }
+
+    void limpiar() {
+        Arrays.fill(ids, 0, cantidad, null);
+        cantidad = 0;
+        filaPorId.clear();
+    }
+
+    int getCantidad() {
+        return cantidad;
+    }
+
+    // ==================== REPORTES ====================
+
+    /**
+     * Cuenta las citas de cada estado entre dos fechas (inclusive)
+     *
+     * @return un conteo por ordinal de EstadoCita
+     */
+    long[] contarPorEstado(LocalDate desde, LocalDate hasta) {
+        int inicio = inicio(desde);
+        int fin = fin(hasta);
+        long[] conteos = new long[NUMERO_ESTADOS];
+        for (int i = 0; i < cantidad; i++) {
+            int dia = dias[i];
+            if (dia >= inicio && dia <= fin && estados[i] >= 0) {
+                conteos[estados[i]]++;
+            }
+        }
+        return conteos;
+    }
+
+    /**
+     * Suma los precios de las citas en un estado entre dos fechas (inclusive)
+     */
+    double sumarPrecios(LocalDate desde, LocalDate hasta, EstadoCita estado) {
+        int inicio = inicio(desde);
+        int fin = fin(hasta);
+        byte buscado = ordinal(estado);
+        double suma = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int dia = dias[i];
+            suma += dia >= inicio && dia <= fin && estados[i] == buscado ? precios[i] : 0;
+        }
+        return suma;
+    }
+
+    /**
+     * Suma los precios de las citas en un estado entre dos fechas (inclusive),
+     * por especialidad
+     *
+     * @return una suma por ordinal de Especialidad
+     */
+    double[] sumarPreciosPorEspecialidad(LocalDate desde, LocalDate hasta, EstadoCita estado) {
+        int inicio = inicio(desde);
+        int fin = fin(hasta);
+        byte buscado = ordinal(estado);
+        double[] sumas = new double[NUMERO_ESPECIALIDADES];
+        for (int i = 0; i < cantidad; i++) {
+            int dia = dias[i];
+            if (dia >= inicio && dia <= fin && estados[i] == buscado && especialidades[i] >= 0) {
+                sumas[especialidades[i]] += precios[i];
+            }
+        }
+        return sumas;
+    }
+
+    /**
+     * Cuenta las citas de cada médico entre dos fechas (inclusive)
+     *
+     * @return los médicos con al menos una cita, por ID
+     */
+    Map<String, Long> contarPorMedico(LocalDate desde, LocalDate hasta) {
+        int inicio = inicio(desde);
+        int fin = fin(hasta);
+        long[] conteos = new long[medicoPorClave.size()];
+        for (int i = 0; i < cantidad; i++) {
+            int dia = dias[i];
+            if (dia >= inicio && dia <= fin) {
+                conteos[medicos[i]]++;
+            }
+        }
+        Map<String, Long> porMedico = new HashMap<>();
+        for (int clave = 0; clave < conteos.length; clave++) {
+            if (conteos[clave] > 0) {
+                porMedico.put(medicoPorClave.get(clave), conteos[clave]);
+            }
+        }
+        return porMedico;
+    }
+
+    /**
+     * Cuenta las citas no canceladas que empiezan en cada hora del día, entre dos
+     * fechas (inclusive)
+     *
+     * @return 24 conteos, uno por hora
+     */
+    long[] contarPorHora(LocalDate desde, LocalDate hasta) {
+        int inicio = inicio(desde);
+        int fin = fin(hasta);
+        byte cancelada = ordinal(EstadoCita.CANCELADA);
+        long[] conteos = new long[24];
+        for (int i = 0; i < cantidad; i++) {
+            int dia = dias[i];
+            if (dia >= inicio && dia <= fin && estados[i] != cancelada) {
+                conteos[minutos[i] / 60]++;
+            }
+        }
+        return conteos;
+    }
+
+    /**
+     * Cuenta los pacientes distintos atendidos entre dos fechas (inclusive)
+     */
+    int contarPacientesAtendidos(LocalDate desde, LocalDate hasta) {
+        int inicio = inicio(desde);
+        int fin = fin(hasta);
+        byte atendida = ordinal(EstadoCita.ATENDIDA);
+        boolean[] vistos = new boolean[pacientePorClave.size()];
+        int distintos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int dia = dias[i];
+            if (dia >= inicio && dia <= fin && estados[i] == atendida && !vistos[pacientes[i]]) {
+                vistos[pacientes[i]] = true;
+                distintos++;
+            }
+        }
+        return distintos;
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void crecer() {
+        int capacidad = dias.length + (dias.length >> 1);
+        ids = Arrays.copyOf(ids, capacidad);
+        dias = Arrays.copyOf(dias, capacidad);
+        minutos = Arrays.copyOf(minutos, capacidad);
+        estados = Arrays.copyOf(estados, capacidad);
+        especialidades = Arrays.copyOf(especialidades, capacidad);
+        precios = Arrays.copyOf(precios, capacidad);
+        medicos = Arrays.copyOf(medicos, capacidad);
+        pacientes = Arrays.copyOf(pacientes, capacidad);
+    }
+
+    private static int clave(Map<String, Integer> claves, List<String> porClave, String id) {
+        Integer clave = claves.get(id);
+        if (clave == null) {
+            clave = porClave.size();
+            claves.put(id, clave);
+            porClave.add(id);
+        }
+        return clave;
+    }
+
+    private static byte ordinal(Enum<?> valor) {
+        return valor != null ? (byte) valor.ordinal() : SIN_VALOR;
+    }
+
+    // Una fecha nula deja el rango abierto por ese lado
+    private static int inicio(LocalDate desde) {
+        return desde != null ? (int) desde.toEpochDay() : Integer.MIN_VALUE;
+    }
+
+    private static int fin(LocalDate hasta) {
+        return hasta != null ? (int) hasta.toEpochDay() : Integer.MAX_VALUE;
+    }
+}
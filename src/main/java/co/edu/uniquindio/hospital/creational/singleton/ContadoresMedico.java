@@ -0,0 +1,84 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.EstadoCita;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de citas de un médico, mantenidos de forma incremental por el
+ * Hospital cada vez que una cita entra o sale de sus índices. Se leen sin
+ * candado desde los tableros.
+ *
+ * Por día solo se cuentan los días recientes (desde inicioPorDia); los
+ * anteriores se descartan para que el mapa no crezca con el historial, y el
+ * Hospital los cuenta en sus índices.
+ */
+final class ContadoresMedico {
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder pendientes = new LongAdder();
+    private final ConcurrentNavigableMap<LocalDate, LongAdder> porDia = new ConcurrentSkipListMap<>();
+    private volatile LocalDate inicioPorDia;
+
+    ContadoresMedico(LocalDate inicioPorDia) {
+        this.inicioPorDia = inicioPorDia;
+    }
+
+    void sumar(HuellaCita huella) {
+        ajustar(huella, 1);
+    }
+
+    void restar(HuellaCita huella) {
+        ajustar(huella, -1);
+    }
+
+    // Los cambios llegan con el candado de escritura del Hospital, uno a la vez
+    private void ajustar(HuellaCita huella, int delta) {
+        total.add(delta);
+        if (huella.estado() == EstadoCita.PROGRAMADA) {
+            pendientes.add(delta);
+        }
+        LocalDate fecha = huella.fecha();
+        if (fecha.isBefore(inicioPorDia)) {
+            return;
+        }
+        LongAdder delDia = porDia.computeIfAbsent(fecha, k -> new LongAdder());
+        delDia.add(delta);
+        if (delDia.sum() == 0) {
+            porDia.remove(fecha);
+        }
+    }
+
+    /**
+     * Deja de contar por día los días anteriores a una fecha
+     */
+    void descartarAntesDe(LocalDate fecha) {
+        if (!fecha.isAfter(inicioPorDia)) {
+            return;
+        }
+        // Primero el límite: un lector que ya no encuentre el día sabrá que se descartó
+        inicioPorDia = fecha;
+        porDia.headMap(fecha).clear();
+    }
+
+    long getTotal() {
+        return total.sum();
+    }
+
+    long getPendientes() {
+        return pendientes.sum();
+    }
+
+    /**
+     * @return las citas del día, o -1 si el día ya no se cuenta aquí
+     */
+    long getDelDia(LocalDate fecha) {
+        LongAdder contador = porDia.get(fecha);
+        long cantidad = contador != null ? contador.sum() : 0;
+        // El límite se lee después del mapa, por si el día se descartó entretanto
+        return fecha.isBefore(inicioPorDia) ? -1 : cantidad;
+    }
+}
@@ -0,0 +1,93 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.HorarioAtencion;
+import co.edu.uniquindio.hospital.Medico;
+import co.edu.uniquindio.hospital.TurnoLibre;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Recorre en orden los turnos libres de un médico, día por día, sobre los mapas
+ * de bits de OcupacionMedicos: cada día se resuelve con operaciones de bits, sin
+ * mirar las citas. Un turno reservado por un agendamiento en curso tampoco está
+ * libre.
+ *
+ * Se usa con el candado de lectura del Hospital tomado.
+ */
+final class CursorTurnosLibres implements Comparable<CursorTurnosLibres> {
+
+    private static final int TODOS_LOS_TURNOS = (1 << HorarioAtencion.TURNOS_POR_DIA) - 1;
+
+    private final Medico medico;
+    private final OcupacionMedicos ocupacion;
+    private final Map<ClaveTurno, String> reservas;
+    private final long ultimoDia;
+
+    // Turno libre actual; dia > ultimoDia cuando ya no quedan
+    private long dia;
+    private int turno;
+
+    /**
+     * @param primerDia  día epoch desde el que se busca
+     * @param primerTurno primer turno posible de ese día
+     * @param ultimoDia  último día epoch que se revisa (inclusive)
+     */
+    CursorTurnosLibres(Medico medico, OcupacionMedicos ocupacion, Map<ClaveTurno, String> reservas,
+                       long primerDia, int primerTurno, long ultimoDia) {
+        this.medico = medico;
+        this.ocupacion = ocupacion;
+        this.reservas = reservas;
+        this.ultimoDia = ultimoDia;
+        this.dia = primerDia;
+        this.turno = primerTurno;
+        buscar();
+    }
+
+    boolean hayTurno() {
+        return dia <= ultimoDia;
+    }
+
+    TurnoLibre actual() {
+        return new TurnoLibre(medico, LocalDate.ofEpochDay(dia), HorarioAtencion.horaDeTurno(turno));
+    }
+
+    void avanzar() {
+        turno++;
+        buscar();
+    }
+
+    /**
+     * Deja el cursor en el primer turno libre desde la posición actual
+     */
+    private void buscar() {
+        while (dia <= ultimoDia) {
+            LocalDate fecha = LocalDate.ofEpochDay(dia);
+            int libres = ~ocupacion.bitsDe(medico.getId(), fecha) & TODOS_LOS_TURNOS & (TODOS_LOS_TURNOS << turno);
+            while (libres != 0) {
+                int candidato = Integer.numberOfTrailingZeros(libres);
+                if (!reservas.containsKey(ClaveTurno.de(medico.getId(), fecha, HorarioAtencion.horaDeTurno(candidato)))) {
+                    turno = candidato;
+                    return;
+                }
+                libres &= libres - 1;
+            }
+            dia++;
+            turno = 0;
+        }
+    }
+
+    /**
+     * Primero el turno más temprano; a igual turno, por ID del médico
+     */
+    @Override
+    public int compareTo(CursorTurnosLibres otro) {
+        if (dia != otro.dia) {
+            return Long.compare(dia, otro.dia);
+        }
+        if (turno != otro.turno) {
+            return Integer.compare(turno, otro.turno);
+        }
+        return medico.getId().compareTo(otro.medico.getId());
+    }
+}
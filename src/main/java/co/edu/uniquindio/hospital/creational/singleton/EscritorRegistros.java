@@ -0,0 +1,206 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static co.edu.uniquindio.hospital.creational.singleton.RegistrosMapeados.*;
+
+/**
+ * Escribe personas y citas en el formato de registros fijos de RegistrosMapeados.
+ *
+ * Las personas se codifican al agregarlas (el Hospital lo hace con el candado
+ * tomado, porque son mutables) y se guardan en memoria; las citas se escriben
+ * directamente al archivo, por lotes, junto con el diccionario de textos.
+ *
+ * Un archivo que no cabría en las secciones de 2 GB de RegistrosMapeados se
+ * rechaza al escribirlo, no al cargarlo: la instantánea falla y la bitácora se
+ * conserva entera.
+ */
+final class EscritorRegistros {
+
+    // Más allá de este número de textos distintos se dejan de deduplicar
+    private static final int MAXIMO_COMPARTIDOS = 1 << 16;
+
+    // RegistrosMapeados mapea cada sección, y ubica los textos, con posiciones int
+    private static final long MAXIMO_SECCION = Integer.MAX_VALUE;
+
+    private final ByteArrayOutputStream personas = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream diccionario = new ByteArrayOutputStream(1 << 16);
+    private final Map<String, Integer> compartidos = new HashMap<>();
+    private int cantidadPersonas;
+
+    /**
+     * @param retirada persona eliminada que todavía referencian algunas citas
+     */
+    void agregarPersona(Person person, boolean retirada) {
+        ByteBuffer r = ByteBuffer.allocate(TAMANIO_PERSONA);
+        UserAccount cuenta = person.getUserAccount();
+        r.put(P_TIPO, person instanceof Medico ? MEDICO : person instanceof Paciente ? PACIENTE : ADMIN);
+        r.put(P_RETIRADA, (byte) (retirada ? 1 : 0));
+        r.put(P_TIPO_USUARIO, ordinal(cuenta != null ? cuenta.getTipoUsuario() : null));
+        r.put(P_ESPECIALIDAD, (byte) -1);
+        r.putInt(P_ID, texto(person.getId(), true));
+        r.putInt(P_DOCUMENTO, texto(person.getDocumento(), false));
+        r.putInt(P_NOMBRE, texto(person.getNombre(), false));
+        r.putInt(P_CORREO, texto(person.getCorreo(), false));
+        r.putInt(P_TELEFONO, texto(person.getTelefono(), false));
+        r.putInt(P_USUARIO, cuenta != null ? texto(cuenta.getUsuario(), false) : SIN_CUENTA);
+        r.putInt(P_CONTRASENIA, cuenta != null ? texto(cuenta.getContrasenia(), false) : NULO);
+        r.putInt(P_FECHA_NACIMIENTO, FECHA_NULA);
+        r.putInt(P_TEXTO_1, NULO);
+        r.putInt(P_TEXTO_2, NULO);
+
+        if (person instanceof Medico medico) {
+            r.put(P_ESPECIALIDAD, ordinal(medico.getEspecialidad()));
+            r.put(P_DISPONIBLE, (byte) (medico.isDisponible() ? 1 : 0));
+            r.putInt(P_TEXTO_1, texto(medico.getLicenciaMedica(), false));
+        } else if (person instanceof Paciente paciente) {
+            if (paciente.getFechaNacimiento() != null) {
+                r.putInt(P_FECHA_NACIMIENTO, (int) paciente.getFechaNacimiento().toEpochDay());
+            }
+            r.putInt(P_TEXTO_1, texto(paciente.getDireccion(), true));
+            r.putInt(P_TEXTO_2, texto(paciente.getGenero(), true));
+        } else if (person instanceof Admin admin) {
+            r.putInt(P_TEXTO_1, texto(admin.getCargo(), true));
+        } else {
+            throw new IllegalArgumentException("Tipo de persona no soportado: " + person.getClass().getName());
+        }
+        personas.write(r.array(), 0, TAMANIO_PERSONA);
+        cantidadPersonas++;
+    }
+
+    /**
+     * Escribe el archivo completo: encabezado, personas, citas, diccionario y cierre
+     */
+    void escribir(Path archivo, long segmento, Iterable<Cita> citas) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.position(TAMANIO_ENCABEZADO);
+            escribirTodo(canal, ByteBuffer.wrap(personas.toByteArray()));
+
+            long inicioCitas = canal.position();
+            int cantidadCitas = 0;
+            ByteBuffer lote = ByteBuffer.allocate(TAMANIO_CITA * 2048);
+            for (Cita cita : citas) {
+                if (inicioCitas + (cantidadCitas + 1L) * TAMANIO_CITA > MAXIMO_SECCION) {
+                    throw new IOException("Las citas no caben en una instantánea de registros fijos: "
+                            + "la sección de registros superaría los 2 GB");
+                }
+                if (lote.remaining() < TAMANIO_CITA) {
+                    escribirTodo(canal, lote.flip());
+                    lote.clear();
+                }
+                codificarCita(lote, cita);
+                cantidadCitas++;
+            }
+            escribirTodo(canal, lote.flip());
+
+            // Las tablas de los enums van al diccionario antes de escribirlo
+            int estados = texto(nombres(EstadoCita.values()), false);
+            int especialidades = texto(nombres(Especialidad.values()), false);
+            int tiposUsuario = texto(nombres(TipoUsuario.values()), false);
+
+            long inicioDiccionario = canal.position();
+            escribirTodo(canal, ByteBuffer.wrap(diccionario.toByteArray()));
+            escribirTodo(canal, ByteBuffer.allocate(Integer.BYTES).putInt(MAGICO_FIN).flip());
+
+            ByteBuffer encabezado = ByteBuffer.allocate(TAMANIO_ENCABEZADO)
+                    .putInt(MAGICO)
+                    .putShort(VERSION)
+                    .putShort((short) 0)
+                    .putLong(segmento)
+                    .putInt(cantidadPersonas)
+                    .putInt(cantidadCitas)
+                    .putLong(inicioCitas)
+                    .putLong(inicioDiccionario)
+                    .putLong(diccionario.size())
+                    .putInt(estados)
+                    .putInt(especialidades)
+                    .putInt(tiposUsuario)
+                    .putInt(0)
+                    .flip();
+            canal.position(0);
+            escribirTodo(canal, encabezado);
+            canal.force(true);
+        }
+    }
+
+    private void codificarCita(ByteBuffer lote, Cita cita) {
+        int base = lote.position();
+        lote.putInt(base + C_ID, texto(cita.getId(), false));
+        lote.putInt(base + C_PACIENTE, texto(cita.getPaciente().getId(), true));
+        lote.putInt(base + C_MEDICO, texto(cita.getMedico().getId(), true));
+        lote.putInt(base + C_FECHA, (int) cita.getFecha().toEpochDay());
+        lote.putInt(base + C_HORA, cita.getHora().toSecondOfDay());
+        lote.put(base + C_ESTADO, ordinal(cita.getEstado()));
+        lote.put(base + C_ESPECIALIDAD, ordinal(cita.getEspecialidad()));
+        lote.putDouble(base + C_PRECIO, cita.getPrecio());
+        lote.putInt(base + C_MOTIVO, texto(cita.getMotivo(), true));
+        lote.putInt(base + C_OBSERVACIONES, texto(cita.getObservaciones(), true));
+        lote.putInt(base + C_DIAGNOSTICO, texto(cita.getDiagnostico(), true));
+        lote.position(base + TAMANIO_CITA);
+    }
+
+    /**
+     * Agrega un texto al diccionario y devuelve su posición
+     *
+     * @param compartir true si el texto suele repetirse (IDs de personas, motivos...)
+     */
+    private int texto(String texto, boolean compartir) {
+        if (texto == null) {
+            return NULO;
+        }
+        if (compartir) {
+            Integer existente = compartidos.get(texto);
+            if (existente != null) {
+                return existente;
+            }
+        }
+        int posicion = diccionario.size();
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (posicion + Integer.BYTES + (long) bytes.length > MAXIMO_SECCION) {
+            throw new UncheckedIOException(new IOException(
+                    "Los textos no caben en una instantánea de registros fijos: el diccionario superaría los 2 GB"));
+        }
+        diccionario.write(bytes.length >>> 24);
+        diccionario.write(bytes.length >>> 16);
+        diccionario.write(bytes.length >>> 8);
+        diccionario.write(bytes.length);
+        diccionario.write(bytes, 0, bytes.length);
+        if (compartir && compartidos.size() < MAXIMO_COMPARTIDOS) {
+            compartidos.put(texto, posicion);
+        }
+        return posicion;
+    }
+
+    private static byte ordinal(Enum<?> valor) {
+        return (byte) (valor != null ? valor.ordinal() : -1);
+    }
+
+    private static String nombres(Enum<?>[] valores) {
+        StringBuilder nombres = new StringBuilder();
+        for (Enum<?> valor : valores) {
+            if (nombres.length() > 0) {
+                nombres.append(',');
+            }
+            nombres.append(valor.name());
+        }
+        return nombres.toString();
+    }
+
+    private static void escribirTodo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+}
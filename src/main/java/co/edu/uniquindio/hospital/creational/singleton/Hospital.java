@@ -2,28 +2,389 @@ package co.edu.uniquindio.hospital.creational.singleton;
 
 import co.edu.uniquindio.hospital.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Almacén central del sistema, compartido por todas las pantallas.
+ *
+ * Es seguro usarlo desde varios hilos: las escrituras toman el candado de
+ * escritura y las consultas el de lectura, de modo que las lecturas corren
+ * en paralelo entre sí. Las consultas devuelven copias, nunca las colecciones
+ * internas ni las citas registradas; las citas se modifican con modificarCita.
+ *
+ * Cada alta, actualización y baja queda en la bitácora (datos/bitacora-*.log).
+ * Cada cierto tiempo se guarda en segundo plano una instantánea del estado
+ * (datos/instantanea-*.snap) y se borran los segmentos de la bitácora que ya
+ * cubre. Al iniciar se carga la última instantánea y se reproducen solo los
+ * segmentos posteriores; los datos de prueba solo se cargan si no hay nada en disco.
+ *
+ * Objetivo de reinicio: con un millón de citas, cargar la instantánea y reproducir
+ * la cola de la bitácora debe tomar menos de 5 segundos, con un heap inicial que
+ * alcance para los datos (-Xms3g); con el heap por defecto la recolección de basura
+ * puede casi duplicarlo. La cola se mantiene corta con el intervalo de instantáneas.
+ *
+ * Las citas atendidas o canceladas con más de cierta edad pasan a un nivel frío
+ * fuera del heap (CitasFrias), así que el heap crece con las citas activas y no
+ * con el historial. Las citas frías se siguen encontrando por ID, por paciente,
+ * por médico y por fecha, y cuentan en los conteos y reportes; la lista de citas,
+ * la instantánea y las consultas por estado solo incluyen las activas. Modificar
+ * una cita fría la devuelve al heap.
+ *
+ * Configuración (propiedades del sistema):
+ * -Dhospital.bitacora.ventanaMs=<milisegundos> agrupación de escrituras a disco (2 por defecto)
+ * -Dhospital.instantanea.intervaloSeg=<segundos> intervalo entre instantáneas (300 por defecto)
+ * -Dhospital.frias.edadDias=<días> edad desde la que se archiva una cita cerrada (90 por defecto, -1 desactiva)
+ * -Dhospital.frias.intervaloSeg=<segundos> intervalo entre archivados (3600 por defecto)
+ */
 public class Hospital {
-    private static Hospital instance;
-    private Person usuarioActivo;
-    private ArrayList<Person> listPersonas;
-    private ArrayList<Cita> listCitas;
+    // Directorio de los archivos del sistema; se puede cambiar con -Dhospital.datos=<ruta>
+    static final Path DIRECTORIO_DATOS = Path.of(System.getProperty("hospital.datos", "datos"));
+
+    // Hasta dónde busca buscarTurnosLibres
+    private static final int DIAS_BUSQUEDA_TURNOS = 366;
+
+    // Días hacia atrás que los contadores de cada médico guardan por día; los más
+    // viejos se cuentan en los índices
+    private static final int DIAS_CONTEO_POR_DIA = 90;
+
+    // Mismo orden que las agendas: fecha y hora, y luego ID
+    private static final Comparator<Cita> ORDEN_AGENDA =
+            Comparator.comparingLong((Cita cita) -> Cita.momentoDe(cita.getClaveTiempo())).thenComparing(Cita::getId);
+
+    private volatile Person usuarioActivo;
+
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // Personas y citas por ID, en orden de registro; una actualización conserva el lugar
+    // y una baja no recorre nada
+    private final Map<String, Person> personasPorId;
+    private final Map<String, Cita> citasPorId;
+    private final Map<String, HuellaCita> huellasPorId;
+
+    // Personas separadas por tipo, en orden de registro
+    private final Map<String, Medico> medicos;
+    private final Map<String, Paciente> pacientes;
+    private final Map<String, Admin> admins;
+
+    // Médicos disponibles de cada especialidad
+    private final Map<Especialidad, Map<String, Medico>> medicosDisponibles;
+
+    // Cuentas por nombre de usuario normalizado (sin mayúsculas), y la clave con la que
+    // quedó indexada cada persona; dos cuentas no pueden diferir solo en mayúsculas
+    private final Map<String, UserAccount> cuentasPorUsuario;
+    private final Map<String, String> usuarioPorPersona;
+
+    // Persona dueña de cada documento normalizado, por tipo de persona: un médico
+    // puede ser también paciente, pero dos médicos no comparten documento
+    private final Map<TipoSecuencia, Map<String, String>> personaPorDocumento;
+    private final Map<String, String> documentoPorPersona;
+
+    // Agenda de cada médico ordenada por fecha y hora
+    private final Map<String, NavigableMap<ClaveAgenda, Cita>> agendaPorMedico;
+
+    // Historial de cada paciente ordenado por fecha y hora
+    private final Map<String, NavigableMap<ClaveAgenda, Cita>> historialPorPaciente;
+
+    // Citas agrupadas por día; las consultas por fecha solo tocan los días pedidos
+    private final NavigableMap<LocalDate, NavigableMap<ClaveAgenda, Cita>> citasPorDia;
+
+    // Citas de cada estado, en orden de registro
+    private final Map<EstadoCita, Map<String, Cita>> citasPorEstado;
+
+    // Columnas primitivas de las citas para los reportes
+    private final ColumnasCitas columnas;
+
+    // Contadores por médico (total, por día y pendientes), legibles sin candado
+    private final ConcurrentMap<String, ContadoresMedico> contadoresPorMedico;
+
+    // Turnos ocupados de cada médico por día, sobre la rejilla de HorarioAtencion
+    private final OcupacionMedicos ocupacion;
+
+    // Cita dueña de cada turno activo. Se reserva con putIfAbsent, sin tomar el candado,
+    // para que dos agendamientos simultáneos del mismo turno no puedan tener éxito ambos
+    private final ConcurrentMap<ClaveTurno, String> reservas;
+
+    // Última versión publicada de las citas y la secuencia de registro de cada una
+    private volatile InstantaneaCitas instantanea;
+    private final Map<String, Long> secuenciaPorId;
+    private long ultimaSecuencia;
+    // Mientras se cargan los datos del disco nadie lee la instantánea; se construye al final
+    private boolean cargandoDisco;
+    // Durante un lote, las citas por publicar se juntan aquí y salen en una sola versión
+    private List<Cita> publicacionesDelLote;
+
+    // Nivel frío de las citas cerradas y viejas, fuera del heap
+    private final CitasFrias frias;
+    private final int edadFriasDias;
+
+    // Generadores de IDs por tipo de entidad
+    private final SecuenciasIds secuencias;
+
+    // Registro durable de los cambios, reproducido al iniciar
+    private final Bitacora bitacora;
+
+    // Instantáneas en disco; solo se escribe una a la vez
+    private final ArchivoInstantaneas archivoInstantaneas;
+    private final Object candadoInstantanea = new Object();
 
     private Hospital() {
-        listPersonas = new ArrayList<>();
-        listCitas = new ArrayList<>();
-        cargarDatosPrueba();
+        personasPorId = new LinkedHashMap<>();
+        citasPorId = new LinkedHashMap<>();
+        huellasPorId = new HashMap<>();
+        medicos = new LinkedHashMap<>();
+        pacientes = new LinkedHashMap<>();
+        admins = new LinkedHashMap<>();
+        medicosDisponibles = new EnumMap<>(Especialidad.class);
+        for (Especialidad especialidad : Especialidad.values()) {
+            medicosDisponibles.put(especialidad, new LinkedHashMap<>());
+        }
+        cuentasPorUsuario = new HashMap<>();
+        usuarioPorPersona = new HashMap<>();
+        personaPorDocumento = new EnumMap<>(TipoSecuencia.class);
+        for (TipoSecuencia tipo : TipoSecuencia.values()) {
+            personaPorDocumento.put(tipo, new HashMap<>());
+        }
+        documentoPorPersona = new HashMap<>();
+        agendaPorMedico = new HashMap<>();
+        historialPorPaciente = new HashMap<>();
+        citasPorDia = new TreeMap<>();
+        citasPorEstado = new EnumMap<>(EstadoCita.class);
+        for (EstadoCita estado : EstadoCita.values()) {
+            citasPorEstado.put(estado, new LinkedHashMap<>());
+        }
+        columnas = new ColumnasCitas();
+        contadoresPorMedico = new ConcurrentHashMap<>();
+        ocupacion = new OcupacionMedicos();
+        reservas = new ConcurrentHashMap<>();
+        instantanea = InstantaneaCitas.VACIA;
+        secuenciaPorId = new HashMap<>();
+        secuencias = new SecuenciasIds(DIRECTORIO_DATOS.resolve("secuencias.properties"));
+
+        bitacora = new Bitacora(DIRECTORIO_DATOS, Long.getLong("hospital.bitacora.ventanaMs", 2));
+        archivoInstantaneas = new ArchivoInstantaneas(DIRECTORIO_DATOS);
+        frias = new CitasFrias(DIRECTORIO_DATOS.resolve("citas-frias.dat"));
+        edadFriasDias = Integer.getInteger("hospital.frias.edadDias", 90);
+
+        // Nadie más ve la instancia todavía, así que la carga no necesita el candado
+        Map<String, Person> retiradas = new HashMap<>();
+        Bitacora.LectorRegistro lector = contenido -> reproducir(contenido, retiradas);
+        cargandoDisco = true;
+        long desdeSegmento;
+        long reproducidos;
+        try {
+            desdeSegmento = archivoInstantaneas.cargarUltima(registros -> cargarInstantanea(registros, retiradas),
+                    () -> {
+                        aplicarListaCitas(List.of());
+                        aplicarListaPersonas(List.of());
+                        retiradas.clear();
+                    });
+            reproducidos = bitacora.abrir(desdeSegmento, lector);
+        } catch (IOException e) {
+            // Arrancar con un estado parcial, o solo en memoria, escondería la pérdida de datos
+            throw new UncheckedIOException("No se pudieron recuperar los datos de " + DIRECTORIO_DATOS, e);
+        }
+        cargandoDisco = false;
+        publicarTodas();
+        if (desdeSegmento == 0 && reproducidos == 0) {
+            cargarDatosPrueba();
+        } else {
+            System.out.println("=== DATOS RECUPERADOS ===");
+            System.out.println("Instantánea: " + (desdeSegmento > 0 ? desdeSegmento : "ninguna"));
+            System.out.println("Registros de bitácora: " + reproducidos);
+            System.out.println("Total Personas: " + personasPorId.size());
+            System.out.println("Total Citas: " + citasPorId.size());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            bitacora.cerrar();
+            frias.cerrar();
+        }, "cierre-bitacora"));
+        programarMantenimiento(Long.getLong("hospital.instantanea.intervaloSeg", 300),
+                Long.getLong("hospital.frias.intervaloSeg", 3600));
+    }
+
+    // La JVM inicializa la clase interna una sola vez y publica la instancia de forma segura
+    private static class Holder {
+        private static final Hospital INSTANCE = new Hospital();
     }
 
     public static Hospital getInstance() {
-        if (instance == null) {
-            instance = new Hospital();
+        return Holder.INSTANCE;
+    }
+
+    private <T> T leer(Supplier<T> consulta) {
+        candado.readLock().lock();
+        try {
+            return consulta.get();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void escribir(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            cambio.run();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private <T> T escribir(Supplier<T> cambio) {
+        candado.writeLock().lock();
+        try {
+            return cambio.get();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica un cambio con el candado de escritura y lo agrega a la bitácora. La espera a
+     * que llegue a disco se hace ya sin el candado, para que los escritores concurrentes
+     * compartan el mismo fsync.
+     *
+     * Mientras la bitácora no pueda escribir, el cambio se rechaza sin aplicarlo.
+     *
+     * @param cambio devuelve la posición de su último registro, o 0 si no cambió nada
+     * @throws UncheckedIOException si la bitácora no está disponible o no pudo guardar el cambio
+     */
+    private void escribirRegistrado(Supplier<Long> cambio) {
+        long posicion = escribir(() -> {
+            bitacora.verificarDisponible();
+            return cambio.get();
+        });
+        bitacora.esperarDurable(posicion);
+    }
+
+    // ==================== INSTANTÁNEAS ====================
+
+    /**
+     * Guarda en disco una instantánea del estado y borra lo que ya no hace falta de
+     * la bitácora. Con el candado de escritura solo se corta el segmento y se capturan
+     * las personas, la versión de las citas y el corte del nivel frío; el archivo se
+     * escribe sin el candado, mientras los cambios continúan en el segmento nuevo.
+     */
+    public void tomarInstantanea() {
+        record Captura(long segmento, EscritorRegistros escritor, Set<String> ids, InstantaneaCitas citas,
+                       CitasFrias.Corte corteFrias) { }
+
+        synchronized (candadoInstantanea) {
+            try {
+                Captura captura = escribir(() -> {
+                    long segmento;
+                    try {
+                        segmento = bitacora.rotar();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    descartarConteosViejos();
+                    // Las personas son mutables, así que se codifican ya; las citas de la versión no cambian
+                    EscritorRegistros escritor = new EscritorRegistros();
+                    for (Person person : personasPorId.values()) {
+                        escritor.agregarPersona(person, false);
+                    }
+                    return new Captura(segmento, escritor, Set.copyOf(personasPorId.keySet()), instantanea,
+                            frias.cortar());
+                });
+                long anterior = archivoInstantaneas.ultima();
+                Iterable<Cita> citas = () -> Stream.concat(captura.citas().registradas(),
+                        StreamSupport.stream(citasFriasEn(captura.corteFrias()).spliterator(), false)).iterator();
+                archivoInstantaneas.escribir(captura.segmento(), captura.escritor(), captura.ids(), citas);
+                // Se conserva la instantánea anterior y sus segmentos por si la nueva se daña
+                archivoInstantaneas.descartarAnteriores(anterior);
+                bitacora.descartarAnteriores(anterior);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("❌ No se pudo guardar la instantánea: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Citas frías vigentes en un corte, decodificadas por lotes con el candado de lectura
+     */
+    private Iterable<Cita> citasFriasEn(CitasFrias.Corte corte) {
+        return () -> new Iterator<>() {
+            private final List<Cita> lote = new ArrayList<>();
+            private int indice;
+            private long posicion = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (indice == lote.size() && posicion >= 0) {
+                    lote.clear();
+                    indice = 0;
+                    posicion = leer(() -> frias.leer(corte, posicion, lote, 4096));
+                }
+                return indice < lote.size();
+            }
+
+            @Override
+            public Cita next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return lote.get(indice++);
+            }
+        };
+    }
+
+    private void programarMantenimiento(long intervaloInstantaneas, long intervaloArchivado) {
+        boolean archivar = edadFriasDias >= 0 && intervaloArchivado > 0;
+        if (intervaloInstantaneas <= 0 && !archivar) {
+            return;
+        }
+        ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "mantenimiento-hospital");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        if (intervaloInstantaneas > 0) {
+            programador.scheduleWithFixedDelay(() -> {
+                if (bitacora.hayRegistrosSinInstantanea()) {
+                    tomarInstantanea();
+                }
+            }, intervaloInstantaneas, intervaloInstantaneas, TimeUnit.SECONDS);
+        }
+        if (archivar) {
+            programador.scheduleWithFixedDelay(this::archivarCitasCerradas,
+                    intervaloArchivado, intervaloArchivado, TimeUnit.SECONDS);
         }
-        return instance;
     }
 
     private void cargarDatosPrueba() {
@@ -52,46 +413,237 @@ public class Hospital {
         agregarPersona(paciente);
 
         System.out.println("=== DATOS DE PRUEBA CARGADOS ===");
-        System.out.println("Total Personas: " + listPersonas.size());
-        System.out.println("Total Citas: " + listCitas.size());
+        System.out.println("Total Personas: " + personasPorId.size());
+        System.out.println("Total Citas: " + citasPorId.size());
     }
 
     // ==================== MÉTODOS CRUD PARA PERSONAS ====================
 
     public void agregarPersona(Person person) {
-        listPersonas.add(person);
+        escribirRegistrado(() -> {
+            aplicarAgregarPersona(person);
+            return bitacora.registrar(CodificadorRegistros.persona(TipoRegistro.PERSONA_AGREGADA, person));
+        });
     }
 
     public void eliminarPersona(Person person) {
-        listPersonas.remove(person);
+        escribirRegistrado(() -> aplicarEliminarPersona(person.getId())
+                ? bitacora.registrar(CodificadorRegistros.eliminacion(TipoRegistro.PERSONA_ELIMINADA, person.getId()))
+                : 0L);
     }
 
+    /**
+     * Actualiza una persona con los datos recibidos. Conviene pasar una copia con
+     * los datos nuevos: el Hospital los copia a la instancia registrada con el
+     * candado de escritura, después de validar que el usuario y el documento
+     * sigan libres.
+     */
     public void actualizarPersona(Person person) {
-        for (int i = 0; i < listPersonas.size(); i++) {
-            if (listPersonas.get(i).getId().equals(person.getId())) {
-                listPersonas.set(i, person);
-                break;
+        escribirRegistrado(() -> aplicarActualizarPersona(person)
+                ? bitacora.registrar(CodificadorRegistros.persona(TipoRegistro.PERSONA_ACTUALIZADA,
+                        personasPorId.get(person.getId())))
+                : 0L);
+    }
+
+    /**
+     * Agrega un lote de personas con un solo candado de escritura y una sola espera
+     * a disco. Cada persona se valida por separado: una rechazada no impide agregar
+     * las demás.
+     *
+     * @return el motivo del rechazo de cada persona, en el mismo orden, o null si se agregó
+     */
+    public List<String> agregarPersonas(List<? extends Person> personas) {
+        List<String> rechazos = new ArrayList<>(personas.size());
+        escribirRegistrado(() -> {
+            long posicion = 0;
+            for (Person person : personas) {
+                try {
+                    aplicarAgregarPersona(person);
+                    posicion = bitacora.registrar(CodificadorRegistros.persona(TipoRegistro.PERSONA_AGREGADA, person));
+                    rechazos.add(null);
+                } catch (IllegalArgumentException e) {
+                    rechazos.add(e.getMessage());
+                }
             }
+            return posicion;
+        });
+        return rechazos;
+    }
+
+    private void aplicarAgregarPersona(Person person) {
+        if (personasPorId.containsKey(person.getId())) {
+            throw new IllegalArgumentException("Ya existe una persona con ID: " + person.getId());
+        }
+        validarUnicidad(person);
+        personasPorId.put(person.getId(), person);
+        indexarPersona(person);
+        avanzarSecuencia(tipoSecuenciaDe(person), person.getId());
+    }
+
+    private boolean aplicarEliminarPersona(String personaId) {
+        Person registrada = personasPorId.remove(personaId);
+        if (registrada == null) {
+            return false;
+        }
+        desindexarPersona(registrada);
+        return true;
+    }
+
+    private boolean aplicarActualizarPersona(Person datos) {
+        Person registrada = personasPorId.get(datos.getId());
+        if (registrada == null) {
+            return false;
+        }
+        // Se valida antes de tocar nada: si se rechaza, la persona queda como estaba
+        validarUnicidad(datos);
+        // La especialidad o la disponibilidad del médico pueden haber cambiado
+        desindexarPersona(registrada);
+        if (registrada.getClass() == datos.getClass()) {
+            // Se modifica la instancia registrada, que es la que referencian sus citas
+            CodificadorRegistros.copiarDatos(datos, registrada);
+        } else {
+            personasPorId.put(datos.getId(), datos);
+            registrada = datos;
         }
+        indexarPersona(registrada);
+        return true;
+    }
+
+    /**
+     * Busca una persona por su ID
+     */
+    public Person buscarPersonaPorId(String personaId) {
+        return leer(() -> personasPorId.get(personaId));
     }
 
     // ==================== MÉTODOS CRUD PARA CITAS ====================
 
     /**
-     * Agrega una nueva cita al sistema
+     * Agrega una nueva cita al sistema. Se registra una copia: cambiar después la
+     * instancia recibida no afecta a la cita registrada.
      */
     public void addCita(Cita cita) {
-        listCitas.add(cita);
+        Cita registrada = cita.copiar();
+        escribirRegistrado(() -> {
+            aplicarAddCita(registrada);
+            return bitacora.registrar(CodificadorRegistros.cita(TipoRegistro.CITA_AGREGADA, registrada));
+        });
     }
 
     /**
-     * Actualiza una cita existente
+     * Reemplaza una cita existente por una copia de la recibida
      */
     public void updateCita(Cita cita) {
-        for (int i = 0; i < listCitas.size(); i++) {
-            if (listCitas.get(i).getId().equals(cita.getId())) {
-                listCitas.set(i, cita);
-                break;
+        Cita registrada = cita.copiar();
+        escribirRegistrado(() -> aplicarUpdateCita(registrada)
+                ? bitacora.registrar(CodificadorRegistros.cita(TipoRegistro.CITA_ACTUALIZADA, registrada))
+                : 0L);
+    }
+
+    /**
+     * Cambio que se aplica a una copia de una cita registrada. Puede rechazarse
+     * con una excepción; en ese caso la cita registrada no cambia.
+     */
+    @FunctionalInterface
+    public interface CambioCita<E extends Exception> {
+        void aplicar(Cita cita) throws E;
+    }
+
+    /**
+     * Modifica una cita con el candado de escritura: el cambio recibe una copia de la
+     * cita registrada y, si termina sin excepción, la copia pasa a ser la registrada.
+     * Así las validaciones del cambio ven el estado actual de la cita y ningún otro
+     * hilo puede modificarla en medio.
+     *
+     * @return una copia de la cita ya modificada, o null si no existe
+     */
+    public <E extends Exception> Cita modificarCita(String citaId, CambioCita<E> cambio) throws E {
+        List<Cita> modificadas = modificarCitas(List.of(citaId), cambio);
+        return modificadas.isEmpty() ? null : modificadas.get(0);
+    }
+
+    /**
+     * Modifica un lote de citas (sin IDs repetidos) con un solo candado de escritura,
+     * una sola espera a disco y una sola versión nueva de la instantánea. Es todo o
+     * nada: si el cambio rechaza una cita, o una no se puede aplicar, no queda
+     * modificada ninguna ni se registra nada en la bitácora.
+     *
+     * @return copias de las citas modificadas; las que no existen se ignoran
+     */
+    public <E extends Exception> List<Cita> modificarCitas(List<String> citaIds, CambioCita<E> cambio) throws E {
+        List<Cita> modificadas = new ArrayList<>(citaIds.size());
+        List<Exception> rechazo = new ArrayList<>(1);
+        escribirRegistrado(() -> {
+            List<Cita> anteriores = new ArrayList<>(citaIds.size());
+            List<Cita> copias = new ArrayList<>(citaIds.size());
+            for (String citaId : citaIds) {
+                Cita registrada = citasPorId.get(citaId);
+                Cita anterior = registrada != null ? registrada : frias.buscar(citaId);
+                if (anterior == null) {
+                    continue;
+                }
+                Cita copia = anterior.copiar();
+                try {
+                    cambio.aplicar(copia);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    // Se relanza ya sin el candado
+                    rechazo.add(e);
+                    return 0L;
+                }
+                anteriores.add(anterior);
+                copias.add(copia);
+            }
+            // Se codifica todo antes de tocar los índices; registrar solo agrega al lote en memoria
+            List<byte[]> registros = new ArrayList<>(copias.size());
+            for (Cita copia : copias) {
+                registros.add(CodificadorRegistros.cita(TipoRegistro.CITA_ACTUALIZADA, copia));
+            }
+            publicacionesDelLote = copias.size() > 1 ? new ArrayList<>(copias.size()) : null;
+            try {
+                int aplicadas = 0;
+                try {
+                    for (; aplicadas < copias.size(); aplicadas++) {
+                        aplicarUpdateCita(copias.get(aplicadas));
+                    }
+                } catch (RuntimeException e) {
+                    deshacerCambios(anteriores, aplicadas, e);
+                    throw e;
+                }
+                long posicion = 0;
+                for (byte[] registro : registros) {
+                    posicion = bitacora.registrar(registro);
+                }
+                for (Cita copia : copias) {
+                    modificadas.add(copia.copiar());
+                }
+                return posicion;
+            } finally {
+                if (publicacionesDelLote != null) {
+                    publicarLote();
+                }
+            }
+        });
+        if (!rechazo.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            E excepcion = (E) rechazo.get(0);
+            throw excepcion;
+        }
+        return modificadas;
+    }
+
+    /**
+     * Vuelve a poner las versiones anteriores de las citas ya aplicadas y de la que
+     * falló, de la última a la primera. Una cita fría que se deshace recupera sus
+     * datos anteriores, aunque puede quedar en el heap. Lo que no se pueda deshacer se agrega a la falla.
+     */
+    private void deshacerCambios(List<Cita> anteriores, int fallida, RuntimeException falla) {
+        for (int j = fallida; j >= 0; j--) {
+            try {
+                aplicarUpdateCita(anteriores.get(j));
+            } catch (RuntimeException e) {
+                falla.addSuppressed(e);
             }
         }
     }
@@ -100,17 +652,519 @@ public class Hospital {
      * Elimina una cita por su ID
      */
     public void deleteCita(String citaId) {
-        listCitas.removeIf(cita -> cita.getId().equals(citaId));
+        escribirRegistrado(() -> aplicarDeleteCita(citaId)
+                ? bitacora.registrar(CodificadorRegistros.eliminacion(TipoRegistro.CITA_ELIMINADA, citaId))
+                : 0L);
+    }
+
+    /**
+     * Agrega un lote de citas con un solo candado de escritura, una sola espera a
+     * disco y una sola versión nueva de la instantánea. Cada cita se valida por
+     * separado: una rechazada no impide agregar las demás. Como en addCita, se
+     * registran copias.
+     *
+     * @return el motivo del rechazo de cada cita, en el mismo orden, o null si se agregó
+     */
+    public List<String> agregarCitas(List<Cita> citas) {
+        List<String> rechazos = new ArrayList<>(citas.size());
+        List<Cita> copias = new ArrayList<>(citas.size());
+        for (Cita cita : citas) {
+            copias.add(cita.copiar());
+        }
+        escribirRegistrado(() -> {
+            publicacionesDelLote = new ArrayList<>(copias.size());
+            try {
+                long posicion = 0;
+                for (Cita cita : copias) {
+                    try {
+                        aplicarAddCita(cita);
+                        posicion = bitacora.registrar(CodificadorRegistros.cita(TipoRegistro.CITA_AGREGADA, cita));
+                        rechazos.add(null);
+                    } catch (IllegalArgumentException e) {
+                        rechazos.add(e.getMessage());
+                    }
+                }
+                return posicion;
+            } finally {
+                publicarLote();
+            }
+        });
+        return rechazos;
+    }
+
+    private void aplicarAddCita(Cita cita) {
+        if (citasPorId.containsKey(cita.getId()) || frias.contiene(cita.getId())) {
+            throw new IllegalArgumentException("Ya existe una cita con ID: " + cita.getId());
+        }
+        ubicar(cita);
+        avanzarSecuencia(TipoSecuencia.CITA, cita.getId());
+    }
+
+    private boolean aplicarUpdateCita(Cita cita) {
+        Cita anterior = citasPorId.get(cita.getId());
+        if (anterior == null) {
+            // Una cita fría que cambia vuelve al heap, salvo que siga siendo cerrada y vieja
+            Cita fria = frias.quitar(cita.getId());
+            if (fria == null) {
+                return false;
+            }
+            contadoresPorMedico.get(fria.getMedico().getId()).restar(HuellaCita.de(fria));
+            ubicar(cita);
+            return true;
+        }
+        citasPorId.put(cita.getId(), cita);
+        // Si la cita sigue activa, su nuevo turno se conserva reservado durante el reindexado
+        HuellaCita nueva = HuellaCita.de(cita);
+        desindexarCita(cita.getId(), nueva.ocupaHorario() ? nueva.claveTurno() : null);
+        indexarCita(cita);
+        publicar(cita);
+        return true;
+    }
+
+    private boolean aplicarDeleteCita(String citaId) {
+        Cita eliminada = citasPorId.remove(citaId);
+        if (eliminada == null) {
+            Cita fria = frias.quitar(citaId);
+            if (fria == null) {
+                return false;
+            }
+            contadoresPorMedico.get(fria.getMedico().getId()).restar(HuellaCita.de(fria));
+            columnas.quitar(citaId);
+            return true;
+        }
+        desindexarCita(citaId, null);
+        columnas.quitar(citaId);
+        Long secuencia = secuenciaPorId.remove(citaId);
+        if (!cargandoDisco) {
+            instantanea = instantanea.sin(secuencia);
+        }
+        return true;
+    }
+
+    /**
+     * Registra una cita en el heap o, si ya es cerrada y vieja, en el nivel frío
+     */
+    private void ubicar(Cita cita) {
+        if (vaAlNivelFrio(cita.getClaveTiempo(), limiteFrias())) {
+            archivar(cita);
+            return;
+        }
+        citasPorId.put(cita.getId(), cita);
+        indexarCita(cita);
+        secuenciaPorId.put(cita.getId(), ++ultimaSecuencia);
+        publicar(cita);
     }
 
     /**
-     * Busca una cita por su ID
+     * Guarda la cita en el nivel frío; sigue contando en los contadores y en las columnas
+     */
+    private void archivar(Cita cita) {
+        frias.agregar(cita);
+        columnas.escribir(cita);
+        contadoresDe(cita.getMedico().getId()).sumar(HuellaCita.de(cita));
+    }
+
+    private ContadoresMedico contadoresDe(String medicoId) {
+        return contadoresPorMedico.computeIfAbsent(medicoId, k -> new ContadoresMedico(inicioConteoPorDia()));
+    }
+
+    private static LocalDate inicioConteoPorDia() {
+        return LocalDate.now().minusDays(DIAS_CONTEO_POR_DIA);
+    }
+
+    /**
+     * Quita de los contadores por día los días que ya salieron de DIAS_CONTEO_POR_DIA
+     */
+    private void descartarConteosViejos() {
+        LocalDate inicio = inicioConteoPorDia();
+        for (ContadoresMedico contadores : contadoresPorMedico.values()) {
+            contadores.descartarAntesDe(inicio);
+        }
+    }
+
+    /**
+     * Primer día que todavía no se archiva, o null si el nivel frío está desactivado
+     */
+    private LocalDate limiteFrias() {
+        return edadFriasDias >= 0 ? LocalDate.now().minusDays(edadFriasDias) : null;
+    }
+
+    private static boolean vaAlNivelFrio(long claveTiempo, LocalDate limite) {
+        EstadoCita estado = Cita.estadoDe(claveTiempo);
+        LocalDate fecha = Cita.fechaDe(claveTiempo);
+        return limite != null && (estado == EstadoCita.ATENDIDA || estado == EstadoCita.CANCELADA)
+                && fecha != null && fecha.isBefore(limite);
+    }
+
+    /**
+     * Pasa al nivel frío las citas atendidas o canceladas con más de
+     * hospital.frias.edadDias días. No cambia el estado lógico, así que no se
+     * registra en la bitácora.
+     *
+     * @return cuántas citas se archivaron
+     */
+    public int archivarCitasCerradas() {
+        return escribir(() -> {
+            descartarConteosViejos();
+            LocalDate limite = limiteFrias();
+            if (limite == null) {
+                return 0;
+            }
+            List<Cita> cerradas = new ArrayList<>();
+            for (NavigableMap<ClaveAgenda, Cita> dia : citasPorDia.headMap(limite, false).values()) {
+                for (Cita cita : dia.values()) {
+                    if (vaAlNivelFrio(cita.getClaveTiempo(), limite)) {
+                        cerradas.add(cita);
+                    }
+                }
+            }
+            if (cerradas.isEmpty()) {
+                return 0;
+            }
+            for (Cita cita : cerradas) {
+                citasPorId.remove(cita.getId());
+                desindexarCita(cita.getId(), null);
+                Long secuencia = secuenciaPorId.remove(cita.getId());
+                if (cerradas.size() <= 1024) {
+                    instantanea = instantanea.sin(secuencia);
+                }
+                archivar(cita);
+            }
+            // Con muchas citas es más barato reconstruir la versión que quitarlas una por una
+            if (cerradas.size() > 1024) {
+                publicarTodas();
+            }
+            return cerradas.size();
+        });
+    }
+
+    /**
+     * Busca una cita por su ID. Devuelve una copia; para modificar la cita hay que
+     * usar modificarCita.
      */
     public Cita buscarCitaPorId(String citaId) {
-        return listCitas.stream()
-                .filter(cita -> cita.getId().equals(citaId))
-                .findFirst()
-                .orElse(null);
+        return leer(() -> {
+            Cita cita = citasPorId.get(citaId);
+            // Las frías se decodifican en cada llamada, así que ya son instancias nuevas
+            return cita != null ? cita.copiar() : frias.buscar(citaId);
+        });
+    }
+
+    /**
+     * Obtiene la última versión publicada de las citas, sin tomar candados.
+     * Los cambios posteriores producen versiones nuevas, y cada cita leída de
+     * ella es una copia.
+     */
+    public InstantaneaCitas getInstantaneaCitas() {
+        return instantanea;
+    }
+
+    // ==================== SECUENCIAS DE IDS ====================
+
+    /**
+     * Genera un ID nuevo para el tipo de entidad. Nunca se repite, ni siquiera
+     * después de eliminar registros o de reiniciar la aplicación.
+     */
+    public String generarId(TipoSecuencia tipo) {
+        return tipo.formatear(secuencias.siguiente(tipo));
+    }
+
+    /**
+     * Reserva de una vez los IDs de una carga masiva
+     */
+    public List<String> reservarIds(TipoSecuencia tipo, int cantidad) {
+        long primero = secuencias.reservar(tipo, cantidad);
+        List<String> ids = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(tipo.formatear(primero + i));
+        }
+        return ids;
+    }
+
+    /**
+     * Muestra el ID que probablemente se asignará, sin consumirlo (para formularios)
+     */
+    public String verSiguienteId(TipoSecuencia tipo) {
+        return tipo.formatear(secuencias.verSiguiente(tipo));
+    }
+
+    /**
+     * Los IDs asignados por fuera de la secuencia (datos de prueba, cargas)
+     * adelantan la secuencia para que nunca se vuelvan a generar
+     */
+    private void avanzarSecuencia(TipoSecuencia tipo, String id) {
+        if (tipo == null) {
+            return;
+        }
+        long numero = tipo.numeroDe(id);
+        if (numero >= 0) {
+            secuencias.avanzarMasAllaDe(tipo, numero);
+        }
+    }
+
+    private static TipoSecuencia tipoSecuenciaDe(Person person) {
+        if (person instanceof Medico) {
+            return TipoSecuencia.MEDICO;
+        } else if (person instanceof Paciente) {
+            return TipoSecuencia.PACIENTE;
+        } else if (person instanceof Admin) {
+            return TipoSecuencia.ADMIN;
+        }
+        return null;
+    }
+
+    // ==================== MANTENIMIENTO DE ÍNDICES ====================
+
+    /**
+     * Publica una versión nueva con una copia de la cita, de modo que los lectores
+     * de la instantánea nunca vean la cita a medio modificar
+     */
+    private void publicar(Cita cita) {
+        if (cargandoDisco) {
+            return;
+        }
+        if (publicacionesDelLote != null) {
+            publicacionesDelLote.add(cita);
+            return;
+        }
+        instantanea = instantanea.con(secuenciaPorId.get(cita.getId()), cita.copiar());
+    }
+
+    /**
+     * Publica en una sola versión las citas juntadas durante un lote
+     */
+    private void publicarLote() {
+        List<Cita> pendientes = publicacionesDelLote;
+        publicacionesDelLote = null;
+        // Una cita puede haber cambiado dos veces o haber pasado al nivel frío después
+        Map<Long, Cita> porSecuencia = new TreeMap<>();
+        for (Cita cita : pendientes) {
+            Long secuencia = secuenciaPorId.get(cita.getId());
+            if (secuencia != null && citasPorId.get(cita.getId()) == cita) {
+                porSecuencia.put(secuencia, cita);
+            }
+        }
+        long[] secuencias = new long[porSecuencia.size()];
+        Cita[] copias = new Cita[porSecuencia.size()];
+        int i = 0;
+        for (Map.Entry<Long, Cita> entrada : porSecuencia.entrySet()) {
+            secuencias[i] = entrada.getKey();
+            copias[i] = entrada.getValue().copiar();
+            i++;
+        }
+        instantanea = instantanea.conVarias(secuencias, copias);
+    }
+
+    /**
+     * Publica de una vez todas las citas, en orden de registro
+     */
+    private void publicarTodas() {
+        long[] secuencias = new long[citasPorId.size()];
+        Cita[] copias = new Cita[citasPorId.size()];
+        int i = 0;
+        for (Cita cita : citasPorId.values()) {
+            secuencias[i] = secuenciaPorId.get(cita.getId());
+            copias[i] = cita.copiar();
+            i++;
+        }
+        instantanea = InstantaneaCitas.construir(secuencias, copias);
+    }
+
+    private void indexarPersona(Person person) {
+        UserAccount cuenta = person.getUserAccount();
+        if (cuenta != null && cuenta.getUsuario() != null) {
+            // El login resuelve la persona desde la cuenta, así que la relación debe ser bidireccional
+            if (cuenta.getPerson() == null) {
+                cuenta.setPerson(person);
+            }
+            String clave = normalizar(cuenta.getUsuario());
+            cuentasPorUsuario.put(clave, cuenta);
+            usuarioPorPersona.put(person.getId(), clave);
+        }
+
+        TipoSecuencia tipo = tipoSecuenciaDe(person);
+        if (tipo != null && person.getDocumento() != null) {
+            String documento = normalizar(person.getDocumento());
+            personaPorDocumento.get(tipo).put(documento, person.getId());
+            documentoPorPersona.put(person.getId(), documento);
+        }
+
+        if (person instanceof Medico medico) {
+            medicos.put(medico.getId(), medico);
+            if (medico.isDisponible() && medico.getEspecialidad() != null) {
+                medicosDisponibles.get(medico.getEspecialidad()).put(medico.getId(), medico);
+            }
+        } else if (person instanceof Paciente paciente) {
+            pacientes.put(paciente.getId(), paciente);
+        } else if (person instanceof Admin admin) {
+            admins.put(admin.getId(), admin);
+        }
+    }
+
+    /**
+     * Rechaza la persona si su usuario o su documento ya pertenecen a otra. Lo
+     * propio se reconoce por el ID de la persona, no por la instancia, así que
+     * también sirve para validar una copia con datos nuevos.
+     */
+    private void validarUnicidad(Person person) {
+        UserAccount cuenta = person.getUserAccount();
+        if (cuenta != null && cuenta.getUsuario() != null) {
+            String usuario = normalizar(cuenta.getUsuario());
+            if (cuentasPorUsuario.containsKey(usuario) && !usuario.equals(usuarioPorPersona.get(person.getId()))) {
+                throw new IllegalArgumentException("El usuario ya está en uso: " + cuenta.getUsuario());
+            }
+        }
+        TipoSecuencia tipo = tipoSecuenciaDe(person);
+        if (tipo != null && person.getDocumento() != null) {
+            String duenio = personaPorDocumento.get(tipo).get(normalizar(person.getDocumento()));
+            if (duenio != null && !duenio.equals(person.getId())) {
+                throw new IllegalArgumentException("Ya existe una persona con el documento: " + person.getDocumento());
+            }
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return texto.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void desindexarPersona(Person person) {
+        // La cuenta pudo cambiar de usuario después de indexarse
+        String usuario = usuarioPorPersona.remove(person.getId());
+        if (usuario != null) {
+            cuentasPorUsuario.remove(usuario);
+        }
+        String documento = documentoPorPersona.remove(person.getId());
+        TipoSecuencia tipo = tipoSecuenciaDe(person);
+        if (documento != null && tipo != null) {
+            personaPorDocumento.get(tipo).remove(documento);
+        }
+
+        if (person instanceof Medico medico) {
+            medicos.remove(medico.getId());
+            // La especialidad indexada puede no ser la actual, así que se quita de todas
+            for (Map<String, Medico> disponibles : medicosDisponibles.values()) {
+                disponibles.remove(medico.getId());
+            }
+        } else if (person instanceof Paciente paciente) {
+            pacientes.remove(paciente.getId());
+        } else if (person instanceof Admin admin) {
+            admins.remove(admin.getId());
+        }
+    }
+
+    private void indexarCita(Cita cita) {
+        HuellaCita huella = HuellaCita.de(cita);
+        ClaveAgenda clave = huella.claveAgenda(cita.getId());
+        huellasPorId.put(cita.getId(), huella);
+        agregarEnIndice(agendaPorMedico, huella.medicoId(), clave, cita);
+        agregarEnIndice(historialPorPaciente, huella.pacienteId(), clave, cita);
+        agregarEnIndice(citasPorDia, huella.fecha(), clave, cita);
+        citasPorEstado.get(huella.estado()).put(cita.getId(), cita);
+        columnas.escribir(cita);
+        contadoresDe(huella.medicoId()).sumar(huella);
+
+        if (huella.ocupaHorario()) {
+            reservas.putIfAbsent(huella.claveTurno(), cita.getId());
+            int turno = HorarioAtencion.indiceTurno(huella.hora());
+            if (turno >= 0) {
+                ocupacion.ocupar(huella.medicoId(), huella.fecha(), turno);
+            }
+        }
+    }
+
+    private void desindexarCita(String citaId, ClaveTurno turnoConservado) {
+        HuellaCita huella = huellasPorId.remove(citaId);
+        if (huella == null) {
+            return;
+        }
+        ClaveAgenda clave = huella.claveAgenda(citaId);
+        quitarDeIndice(agendaPorMedico, huella.medicoId(), clave);
+        quitarDeIndice(historialPorPaciente, huella.pacienteId(), clave);
+        quitarDeIndice(citasPorDia, huella.fecha(), clave);
+        citasPorEstado.get(huella.estado()).remove(citaId);
+        contadoresPorMedico.get(huella.medicoId()).restar(huella);
+
+        if (!huella.ocupaHorario()) {
+            return;
+        }
+        // El turno solo se libera si no queda otra cita activa en él; si queda, pasa a ser la dueña
+        String otraActiva = citaActivaEnHorario(huella.medicoId(), huella.fecha(), huella.hora(), null);
+        ClaveTurno claveTurno = huella.claveTurno();
+        if (!claveTurno.equals(turnoConservado) && reservas.remove(claveTurno, citaId) && otraActiva != null) {
+            reservas.putIfAbsent(claveTurno, otraActiva);
+        }
+        int turno = HorarioAtencion.indiceTurno(huella.hora());
+        if (turno >= 0 && otraActiva == null) {
+            ocupacion.liberar(huella.medicoId(), huella.fecha(), turno);
+        }
+    }
+
+    /**
+     * Revisa las citas de un médico en un horario exacto (normalmente una o ninguna)
+     */
+    private String citaActivaEnHorario(String medicoId, LocalDate fecha, LocalTime hora,
+                                       String citaIdExcluida) {
+        NavigableMap<ClaveAgenda, Cita> agenda = agendaPorMedico.get(medicoId);
+        if (agenda == null) {
+            return null;
+        }
+        ClaveAgenda inicio = ClaveAgenda.inicioDe(fecha, hora);
+        for (ClaveAgenda clave : agenda.tailMap(inicio, true).keySet()) {
+            if (clave.momento() != inicio.momento()) {
+                break;
+            }
+            if (!clave.citaId().equals(citaIdExcluida) && huellasPorId.get(clave.citaId()).ocupaHorario()) {
+                return clave.citaId();
+            }
+        }
+        return null;
+    }
+
+    private static <K> void agregarEnIndice(Map<K, NavigableMap<ClaveAgenda, Cita>> indice,
+                                            K grupo, ClaveAgenda clave, Cita cita) {
+        indice.computeIfAbsent(grupo, k -> new TreeMap<>()).put(clave, cita);
+    }
+
+    private static <K> void quitarDeIndice(Map<K, NavigableMap<ClaveAgenda, Cita>> indice,
+                                           K grupo, ClaveAgenda clave) {
+        NavigableMap<ClaveAgenda, Cita> citas = indice.get(grupo);
+        if (citas != null) {
+            citas.remove(clave);
+            if (citas.isEmpty()) {
+                indice.remove(grupo);
+            }
+        }
+    }
+
+    /**
+     * Une copias de citas del heap, ya ordenadas, con citas frías en cualquier orden
+     */
+    private static List<Cita> unir(Collection<Cita> calientes, List<Cita> frias) {
+        List<Cita> todas = copias(calientes, calientes.size() + frias.size());
+        if (!frias.isEmpty()) {
+            // Las frías ya son instancias nuevas
+            todas.addAll(frias);
+            todas.sort(ORDEN_AGENDA);
+        }
+        return todas;
+    }
+
+    private static List<Cita> copias(Collection<Cita> citas, int capacidad) {
+        List<Cita> copias = new ArrayList<>(capacidad);
+        for (Cita cita : citas) {
+            copias.add(cita.copiar());
+        }
+        return copias;
+    }
+
+    private NavigableMap<ClaveAgenda, Cita> agendaDe(Medico medico) {
+        NavigableMap<ClaveAgenda, Cita> agenda = agendaPorMedico.get(medico.getId());
+        return agenda != null ? agenda : Collections.emptyNavigableMap();
+    }
+
+    private NavigableMap<ClaveAgenda, Cita> historialDe(Paciente paciente) {
+        NavigableMap<ClaveAgenda, Cita> historial = historialPorPaciente.get(paciente.getId());
+        return historial != null ? historial : Collections.emptyNavigableMap();
     }
 
     // ==================== MÉTODOS DE VALIDACIÓN ====================
@@ -119,100 +1173,638 @@ public class Hospital {
      * Valida las credenciales de un usuario
      */
     public Person validarUsuario(String usuario, String contrasenia) {
-        for (Person person : listPersonas) {
-            UserAccount cuenta = person.getUserAccount();
-            if (cuenta != null && cuenta.getUsuario().equals(usuario) &&
-                    cuenta.getContrasenia().equals(contrasenia)) {
-                usuarioActivo = person;
-                return person;
-            }
+        if (usuario == null) {
+            return null;
+        }
+        UserAccount cuenta = leer(() -> cuentasPorUsuario.get(normalizar(usuario)));
+        // El índice no distingue mayúsculas, pero el inicio de sesión sí
+        if (cuenta != null && cuenta.getPerson() != null &&
+                cuenta.getUsuario().equals(usuario) &&
+                cuenta.getContrasenia().equals(contrasenia)) {
+            usuarioActivo = cuenta.getPerson();
+            return usuarioActivo;
         }
         return null;
     }
 
+    /**
+     * Indica si el nombre de usuario ya está en uso, sin distinguir mayúsculas
+     */
+    public boolean existeUsuario(String usuario) {
+        return usuario != null && leer(() -> cuentasPorUsuario.containsKey(normalizar(usuario)));
+    }
+
+    /**
+     * Sugiere un usuario libre a partir de una base: la base misma, o la base con
+     * el primer sufijo numérico libre. Conserva la base tal como llega, sin los
+     * espacios de los extremos. La sugerencia no se reserva; el alta la valida de nuevo.
+     */
+    public String sugerirUsuario(String base) {
+        String usuario = base.trim();
+        return leer(() -> {
+            String candidato = usuario;
+            for (int sufijo = 1; existeUsuario(candidato); sufijo++) {
+                candidato = usuario + sufijo;
+            }
+            return candidato;
+        });
+    }
+
+    /**
+     * Indica si otra persona del mismo tipo ya tiene el documento
+     *
+     * @param idExcluido ID de la persona que se está editando, o null en un alta
+     */
+    public boolean existeDocumento(TipoSecuencia tipo, String documento, String idExcluido) {
+        if (documento == null) {
+            return false;
+        }
+        String duenio = leer(() -> personaPorDocumento.get(tipo).get(normalizar(documento)));
+        return duenio != null && !duenio.equals(idExcluido);
+    }
+
     // ==================== MÉTODOS DE CONSULTA ESPECÍFICOS ====================
 
     /**
      * Obtiene todos los médicos disponibles por especialidad
      */
     public List<Medico> getMedicosPorEspecialidad(Especialidad especialidad) {
-        return listPersonas.stream()
-                .filter(person -> person instanceof Medico)
-                .map(person -> (Medico) person)
-                .filter(medico -> medico.getEspecialidad() == especialidad)
-                .filter(Medico::isDisponible)
-                .collect(Collectors.toList());
+        return leer(() -> new ArrayList<>(medicosDisponibles.get(especialidad).values()));
     }
 
     /**
-     * Obtiene todas las citas de un médico específico
+     * Obtiene todas las citas de un médico específico, ordenadas por fecha y hora
      */
     public List<Cita> getCitasPorMedico(Medico medico) {
-        return listCitas.stream()
-                .filter(cita -> cita.getMedico() != null &&
-                        cita.getMedico().getId().equals(medico.getId()))
-                .collect(Collectors.toList());
+        return leer(() -> unir(agendaDe(medico).values(),
+                frias.deMedico(medico.getId(), Long.MIN_VALUE, Long.MAX_VALUE)));
+    }
+
+    /**
+     * Obtiene las citas de un médico en una fecha, ordenadas por hora
+     */
+    public List<Cita> getCitasPorMedicoEnFecha(Medico medico, LocalDate fecha) {
+        ClaveAgenda desde = ClaveAgenda.inicioDe(fecha);
+        ClaveAgenda hasta = ClaveAgenda.inicioDe(fecha.plusDays(1));
+        return leer(() -> unir(agendaDe(medico).subMap(desde, true, hasta, false).values(),
+                frias.deMedico(medico.getId(), desde.momento(), hasta.momento())));
     }
 
     /**
-     * Obtiene todas las citas de un paciente específico
+     * Obtiene las citas de un médico entre dos fechas (inclusive), ordenadas por fecha y hora
+     */
+    public List<Cita> getCitasPorMedicoEntre(Medico medico, LocalDate desde, LocalDate hasta) {
+        ClaveAgenda inicio = ClaveAgenda.inicioDe(desde);
+        ClaveAgenda fin = ClaveAgenda.inicioDe(hasta.plusDays(1));
+        return leer(() -> unir(agendaDe(medico).subMap(inicio, true, fin, false).values(),
+                frias.deMedico(medico.getId(), inicio.momento(), fin.momento())));
+    }
+
+    /**
+     * Obtiene las citas de un médico desde una fecha (inclusive), ordenadas por fecha y hora
+     */
+    public List<Cita> getCitasPorMedicoDesde(Medico medico, LocalDate desde) {
+        ClaveAgenda inicio = ClaveAgenda.inicioDe(desde);
+        return leer(() -> unir(agendaDe(medico).tailMap(inicio, true).values(),
+                frias.deMedico(medico.getId(), inicio.momento(), Long.MAX_VALUE)));
+    }
+
+    /**
+     * Cuenta las citas de un médico sin recorrer su agenda
+     */
+    public long contarCitasPorMedico(Medico medico) {
+        ContadoresMedico contadores = contadoresPorMedico.get(medico.getId());
+        return contadores != null ? contadores.getTotal() : 0;
+    }
+
+    /**
+     * Cuenta las citas de un médico en una fecha; los días recientes sin recorrer
+     * su agenda
+     */
+    public long contarCitasPorMedicoEnFecha(Medico medico, LocalDate fecha) {
+        ContadoresMedico contadores = contadoresPorMedico.get(medico.getId());
+        if (contadores == null) {
+            return 0;
+        }
+        long delDia = contadores.getDelDia(fecha);
+        if (delDia >= 0) {
+            return delDia;
+        }
+        ClaveAgenda desde = ClaveAgenda.inicioDe(fecha);
+        ClaveAgenda hasta = ClaveAgenda.inicioDe(fecha.plusDays(1));
+        return leer(() -> agendaDe(medico).subMap(desde, true, hasta, false).size()
+                + frias.contarDeMedico(medico.getId(), desde.momento(), hasta.momento()));
+    }
+
+    /**
+     * Cuenta las citas programadas (pendientes) de un médico
+     */
+    public long contarCitasPendientesPorMedico(Medico medico) {
+        ContadoresMedico contadores = contadoresPorMedico.get(medico.getId());
+        return contadores != null ? contadores.getPendientes() : 0;
+    }
+
+    /**
+     * Obtiene las citas que están en un estado, en orden de registro
+     */
+    public List<Cita> getCitasPorEstado(EstadoCita estado) {
+        return leer(() -> {
+            Collection<Cita> delEstado = citasPorEstado.get(estado).values();
+            return copias(delEstado, delEstado.size());
+        });
+    }
+
+    public int contarCitasPorEstado(EstadoCita estado) {
+        return leer(() -> citasPorEstado.get(estado).size() + (int) frias.contarPorEstado(estado));
+    }
+
+    // ==================== REPORTES ====================
+    // Recorren las columnas de las citas; una fecha nula deja el rango abierto por ese lado
+
+    /**
+     * Cuenta las citas de cada estado entre dos fechas (inclusive)
+     */
+    public Map<EstadoCita, Long> contarCitasPorEstadoEntre(LocalDate desde, LocalDate hasta) {
+        long[] conteos = leer(() -> columnas.contarPorEstado(desde, hasta));
+        Map<EstadoCita, Long> porEstado = new EnumMap<>(EstadoCita.class);
+        for (EstadoCita estado : EstadoCita.values()) {
+            porEstado.put(estado, conteos[estado.ordinal()]);
+        }
+        return porEstado;
+    }
+
+    /**
+     * Suma los precios de las citas en un estado entre dos fechas (inclusive)
+     */
+    public double sumarPreciosEntre(LocalDate desde, LocalDate hasta, EstadoCita estado) {
+        return leer(() -> columnas.sumarPrecios(desde, hasta, estado));
+    }
+
+    /**
+     * Suma los precios de las citas en un estado entre dos fechas (inclusive), por especialidad
+     */
+    public Map<Especialidad, Double> sumarPreciosPorEspecialidadEntre(LocalDate desde, LocalDate hasta,
+                                                                     EstadoCita estado) {
+        double[] sumas = leer(() -> columnas.sumarPreciosPorEspecialidad(desde, hasta, estado));
+        Map<Especialidad, Double> porEspecialidad = new EnumMap<>(Especialidad.class);
+        for (Especialidad especialidad : Especialidad.values()) {
+            porEspecialidad.put(especialidad, sumas[especialidad.ordinal()]);
+        }
+        return porEspecialidad;
+    }
+
+    /**
+     * Cuenta las citas de cada médico entre dos fechas (inclusive), por ID del médico
+     */
+    public Map<String, Long> contarCitasPorMedicoEntre(LocalDate desde, LocalDate hasta) {
+        return leer(() -> columnas.contarPorMedico(desde, hasta));
+    }
+
+    /**
+     * Cuenta las citas no canceladas que empiezan en cada hora del día (24 valores)
+     */
+    public long[] contarCitasPorHoraEntre(LocalDate desde, LocalDate hasta) {
+        return leer(() -> columnas.contarPorHora(desde, hasta));
+    }
+
+    /**
+     * Cuenta los pacientes distintos con citas atendidas entre dos fechas (inclusive)
+     */
+    public int contarPacientesAtendidosEntre(LocalDate desde, LocalDate hasta) {
+        return leer(() -> columnas.contarPacientesAtendidos(desde, hasta));
+    }
+
+    /**
+     * Obtiene todas las citas de un paciente específico, ordenadas por fecha y hora
      */
     public List<Cita> getCitasPorPaciente(Paciente paciente) {
-        return listCitas.stream()
-                .filter(cita -> cita.getPaciente() != null &&
-                        cita.getPaciente().getId().equals(paciente.getId()))
-                .collect(Collectors.toList());
+        return leer(() -> unir(historialDe(paciente).values(),
+                frias.dePaciente(paciente.getId(), Long.MIN_VALUE, Long.MAX_VALUE)));
+    }
+
+    /**
+     * Obtiene las citas de un paciente entre dos fechas (inclusive), ordenadas por fecha y hora
+     */
+    public List<Cita> getCitasPorPacienteEntre(Paciente paciente, LocalDate desde, LocalDate hasta) {
+        ClaveAgenda inicio = ClaveAgenda.inicioDe(desde);
+        ClaveAgenda fin = ClaveAgenda.inicioDe(hasta.plusDays(1));
+        return leer(() -> unir(historialDe(paciente).subMap(inicio, true, fin, false).values(),
+                frias.dePaciente(paciente.getId(), inicio.momento(), fin.momento())));
+    }
+
+    /**
+     * Obtiene las citas de una fecha, ordenadas por hora
+     */
+    public List<Cita> getCitasPorFecha(LocalDate fecha) {
+        return leer(() -> {
+            NavigableMap<ClaveAgenda, Cita> dia = citasPorDia.get(fecha);
+            return unir(dia != null ? dia.values() : List.of(),
+                    frias.entreDias(fecha.toEpochDay(), fecha.toEpochDay()));
+        });
+    }
+
+    /**
+     * Obtiene las citas entre dos fechas (inclusive), ordenadas por fecha y hora
+     */
+    public List<Cita> getCitasEntreFechas(LocalDate desde, LocalDate hasta) {
+        return leer(() -> {
+            List<Cita> citas = new ArrayList<>();
+            for (NavigableMap<ClaveAgenda, Cita> dia : citasPorDia.subMap(desde, true, hasta, true).values()) {
+                citas.addAll(dia.values());
+            }
+            return unir(citas, frias.entreDias(desde.toEpochDay(), hasta.toEpochDay()));
+        });
+    }
+
+    /**
+     * Primera fecha con citas desde una fecha (inclusive), o null si no hay más.
+     * Junto con copiarCitasDelDia permite recorrer muchas citas día por día, sin
+     * tener el candado tomado durante todo el recorrido.
+     */
+    public LocalDate siguienteFechaConCitas(LocalDate desde) {
+        return leer(() -> {
+            LocalDate caliente = citasPorDia.ceilingKey(desde);
+            LocalDate fria = frias.siguienteDia(desde.toEpochDay());
+            if (caliente == null || (fria != null && fria.isBefore(caliente))) {
+                return fria;
+            }
+            return caliente;
+        });
+    }
+
+    /**
+     * Fechas en las que un médico tiene citas entre dos fechas (inclusive), en orden;
+     * una fecha nula deja el rango abierto por ese lado. Junto con copiarCitasDelDia
+     * permite recorrer la agenda de un médico día por día sin pasar por los días en
+     * que no tiene citas.
+     */
+    public List<LocalDate> fechasConCitas(Medico medico, LocalDate desde, LocalDate hasta) {
+        long inicio = desde != null ? Cita.claveTiempo(desde, null) : Long.MIN_VALUE;
+        long fin = hasta != null ? Cita.claveTiempo(hasta.plusDays(1), null) : Long.MAX_VALUE;
+        return leer(() -> {
+            NavigableSet<LocalDate> fechas = new TreeSet<>();
+            // De la agenda solo se lee la primera clave de cada día
+            NavigableMap<ClaveAgenda, Cita> agenda = agendaDe(medico);
+            ClaveAgenda clave = agenda.ceilingKey(new ClaveAgenda(inicio, ""));
+            while (clave != null && clave.momento() < fin) {
+                LocalDate fecha = Cita.fechaDe(clave.momento());
+                fechas.add(fecha);
+                clave = agenda.ceilingKey(ClaveAgenda.inicioDe(fecha.plusDays(1)));
+            }
+            for (long dia : frias.diasDeMedico(medico.getId(), inicio, fin)) {
+                fechas.add(LocalDate.ofEpochDay(dia));
+            }
+            return new ArrayList<>(fechas);
+        });
+    }
+
+    /**
+     * Obtiene copias de las citas de una fecha, ordenadas por hora; con un médico,
+     * solo las suyas. Las copias se toman con el candado, así que cada una es
+     * consistente aunque la cita registrada cambie mientras se usan.
+     */
+    public List<Cita> copiarCitasDelDia(LocalDate fecha, Medico medico) {
+        return leer(() -> {
+            Collection<Cita> calientes;
+            if (medico != null) {
+                calientes = agendaDe(medico).subMap(ClaveAgenda.inicioDe(fecha), true,
+                        ClaveAgenda.inicioDe(fecha.plusDays(1)), false).values();
+            } else {
+                NavigableMap<ClaveAgenda, Cita> dia = citasPorDia.get(fecha);
+                calientes = dia != null ? dia.values() : List.of();
+            }
+            // La cadena del día es corta; la del médico puede abarcar todo su historial
+            List<Cita> frias = this.frias.entreDias(fecha.toEpochDay(), fecha.toEpochDay());
+            if (medico != null) {
+                frias.removeIf(cita -> !cita.getMedico().getId().equals(medico.getId()));
+            }
+            List<Cita> copias = new ArrayList<>(calientes.size() + frias.size());
+            for (Cita cita : calientes) {
+                copias.add(cita.copiar());
+            }
+            // Las frías ya son instancias nuevas
+            copias.addAll(frias);
+            if (!frias.isEmpty()) {
+                copias.sort(ORDEN_AGENDA);
+            }
+            return copias;
+        });
     }
 
     /**
      * Obtiene todos los médicos del sistema
      */
     public List<Medico> getTodosMedicos() {
-        return listPersonas.stream()
-                .filter(person -> person instanceof Medico)
-                .map(person -> (Medico) person)
-                .collect(Collectors.toList());
+        return leer(() -> new ArrayList<>(medicos.values()));
     }
 
     /**
      * Obtiene todos los pacientes del sistema
      */
     public List<Paciente> getTodosPacientes() {
-        return listPersonas.stream()
-                .filter(person -> person instanceof Paciente)
-                .map(person -> (Paciente) person)
-                .collect(Collectors.toList());
+        return leer(() -> new ArrayList<>(pacientes.values()));
+    }
+
+    /**
+     * Obtiene todos los administradores del sistema
+     */
+    public List<Admin> getTodosAdmins() {
+        return leer(() -> new ArrayList<>(admins.values()));
+    }
+
+    public int contarMedicos() {
+        return leer(() -> medicos.size());
+    }
+
+    public int contarPacientes() {
+        return leer(() -> pacientes.size());
     }
 
     /**
      * Verifica si un médico está disponible en una fecha y hora específicas
      */
-    public boolean verificarDisponibilidadMedico(Medico medico, java.time.LocalDate fecha, java.time.LocalTime hora) {
-        return listCitas.stream()
-                .filter(cita -> cita.getMedico().getId().equals(medico.getId()))
-                .filter(cita -> cita.getFecha().equals(fecha))
-                .filter(cita -> cita.getHora().equals(hora))
-                .filter(cita -> cita.getEstado() != EstadoCita.CANCELADA)
-                .findAny()
-                .isEmpty();
+    public boolean verificarDisponibilidadMedico(Medico medico, LocalDate fecha, LocalTime hora) {
+        return verificarDisponibilidadMedico(medico, fecha, hora, null);
+    }
+
+    /**
+     * Verifica la disponibilidad ignorando una cita (la que se está actualizando)
+     */
+    public boolean verificarDisponibilidadMedico(Medico medico, LocalDate fecha, LocalTime hora,
+                                                 String citaIdExcluida) {
+        // Un turno reservado por un agendamiento en curso tampoco está disponible
+        String duenio = reservas.get(ClaveTurno.de(medico.getId(), fecha, hora));
+        if (duenio != null && !duenio.equals(citaIdExcluida)) {
+            return false;
+        }
+        int turno = HorarioAtencion.indiceTurno(hora);
+        return leer(() -> {
+            if (turno >= 0 && !ocupacion.estaOcupado(medico.getId(), fecha, turno)) {
+                return true;
+            }
+            if (turno >= 0 && citaIdExcluida == null) {
+                return false;
+            }
+            return citaActivaEnHorario(medico.getId(), fecha, hora, citaIdExcluida) == null;
+        });
+    }
+
+    /**
+     * Reserva un turno para una cita de forma atómica y sin candado global.
+     * Devuelve false si otra cita ya lo tiene; la misma cita puede volver a reservarlo.
+     */
+    public boolean reservarTurno(Medico medico, LocalDate fecha, LocalTime hora, String citaId) {
+        String duenio = reservas.putIfAbsent(ClaveTurno.de(medico.getId(), fecha, hora), citaId);
+        return duenio == null || duenio.equals(citaId);
+    }
+
+    /**
+     * Libera un turno reservado con reservarTurno cuyo agendamiento no llegó a completarse
+     */
+    public void liberarTurno(Medico medico, LocalDate fecha, LocalTime hora, String citaId) {
+        ClaveTurno clave = ClaveTurno.de(medico.getId(), fecha, hora);
+        escribir(() -> {
+            // Si la cita ya quedó registrada en ese turno, la reserva le pertenece
+            HuellaCita huella = huellasPorId.get(citaId);
+            if (huella == null || !huella.ocupaHorario() || !huella.claveTurno().equals(clave)) {
+                reservas.remove(clave, citaId);
+            }
+        });
+    }
+
+    /**
+     * Busca los primeros turnos libres de los médicos disponibles de una especialidad
+     * a partir de un momento, en orden de fecha y hora.
+     *
+     * Cada médico aporta su secuencia ordenada de turnos libres, y las secuencias se
+     * mezclan con una cola de prioridad: solo se revisan los turnos que se devuelven
+     * y uno más por médico. La búsqueda llega hasta DIAS_BUSQUEDA_TURNOS días después
+     * del momento indicado. Los turnos no se reservan.
+     */
+    public List<TurnoLibre> buscarTurnosLibres(Especialidad especialidad, LocalDateTime desde, int cantidad) {
+        if (cantidad <= 0) {
+            return List.of();
+        }
+        long primerDia = desde.toLocalDate().toEpochDay();
+        long ultimoDia = primerDia + DIAS_BUSQUEDA_TURNOS - 1;
+        int primerTurno = 0;
+        while (primerTurno < HorarioAtencion.TURNOS_POR_DIA
+                && HorarioAtencion.horaDeTurno(primerTurno).isBefore(desde.toLocalTime())) {
+            primerTurno++;
+        }
+        int turnoInicial = primerTurno;
+        return leer(() -> {
+            PriorityQueue<CursorTurnosLibres> cola = new PriorityQueue<>();
+            for (Medico medico : medicosDisponibles.get(especialidad).values()) {
+                CursorTurnosLibres cursor = new CursorTurnosLibres(medico, ocupacion, reservas,
+                        primerDia, turnoInicial, ultimoDia);
+                if (cursor.hayTurno()) {
+                    cola.add(cursor);
+                }
+            }
+            List<TurnoLibre> turnos = new ArrayList<>(cantidad);
+            while (turnos.size() < cantidad && !cola.isEmpty()) {
+                CursorTurnosLibres cursor = cola.poll();
+                turnos.add(cursor.actual());
+                cursor.avanzar();
+                if (cursor.hayTurno()) {
+                    cola.add(cursor);
+                }
+            }
+            return turnos;
+        });
+    }
+
+    /**
+     * Obtiene los turnos libres de un médico en varios días seguidos, como mapas
+     * de bits: el bit i del día d indica que el turno i de HorarioAtencion está
+     * libre. Un turno reservado por un agendamiento en curso no cuenta como libre.
+     */
+    public int[] getTurnosLibres(Medico medico, LocalDate desde, int dias) {
+        int todos = (1 << HorarioAtencion.TURNOS_POR_DIA) - 1;
+        return leer(() -> {
+            int[] libres = new int[dias];
+            for (int d = 0; d < dias; d++) {
+                LocalDate fecha = desde.plusDays(d);
+                int bits = ~ocupacion.bitsDe(medico.getId(), fecha) & todos;
+                for (int resto = bits; resto != 0; resto &= resto - 1) {
+                    int turno = Integer.numberOfTrailingZeros(resto);
+                    if (reservas.containsKey(ClaveTurno.de(medico.getId(), fecha, HorarioAtencion.horaDeTurno(turno)))) {
+                        bits &= ~(1 << turno);
+                    }
+                }
+                libres[d] = bits;
+            }
+            return libres;
+        });
     }
 
     // ==================== GETTERS Y SETTERS ====================
 
-    public ArrayList<Person> getListPersonas() {
-        return listPersonas;
+    /**
+     * Obtiene una copia de solo lectura de las personas registradas
+     */
+    public List<Person> getListPersonas() {
+        return leer(() -> List.copyOf(personasPorId.values()));
+    }
+
+    public void setListPersonas(List<Person> personas) {
+        escribirRegistrado(() -> {
+            aplicarListaPersonas(personas);
+            long posicion = bitacora.registrar(CodificadorRegistros.marca(TipoRegistro.PERSONAS_REEMPLAZADAS));
+            for (Person person : personasPorId.values()) {
+                posicion = bitacora.registrar(CodificadorRegistros.persona(TipoRegistro.PERSONA_AGREGADA, person));
+            }
+            return posicion;
+        });
+    }
+
+    private void aplicarListaPersonas(List<Person> personas) {
+        personasPorId.clear();
+        medicos.clear();
+        pacientes.clear();
+        admins.clear();
+        for (Map<String, Medico> disponibles : medicosDisponibles.values()) {
+            disponibles.clear();
+        }
+        cuentasPorUsuario.clear();
+        usuarioPorPersona.clear();
+        for (Map<String, String> documentos : personaPorDocumento.values()) {
+            documentos.clear();
+        }
+        documentoPorPersona.clear();
+        for (Person person : personas) {
+            validarUnicidad(person);
+            personasPorId.put(person.getId(), person);
+            indexarPersona(person);
+        }
+    }
+
+    /**
+     * Obtiene una lista de solo lectura con copias de las citas registradas
+     */
+    public List<Cita> getListCitas() {
+        return leer(() -> Collections.unmodifiableList(copias(citasPorId.values(), citasPorId.size())));
+    }
+
+    public void setListCitas(List<Cita> citas) {
+        List<Cita> copias = copias(citas, citas.size());
+        escribirRegistrado(() -> {
+            aplicarListaCitas(copias);
+            long posicion = bitacora.registrar(CodificadorRegistros.marca(TipoRegistro.CITAS_REEMPLAZADAS));
+            for (Cita cita : copias) {
+                posicion = bitacora.registrar(CodificadorRegistros.cita(TipoRegistro.CITA_AGREGADA, cita));
+            }
+            return posicion;
+        });
+    }
+
+    private void aplicarListaCitas(List<Cita> citas) {
+        citasPorId.clear();
+        huellasPorId.clear();
+        agendaPorMedico.clear();
+        historialPorPaciente.clear();
+        citasPorDia.clear();
+        for (Map<String, Cita> delEstado : citasPorEstado.values()) {
+            delEstado.clear();
+        }
+        columnas.limpiar();
+        contadoresPorMedico.clear();
+        ocupacion.limpiar();
+        reservas.clear();
+        secuenciaPorId.clear();
+        frias.limpiar();
+        instantanea = InstantaneaCitas.VACIA;
+        for (Cita cita : citas) {
+            ubicar(cita);
+        }
+    }
+
+    // ==================== REPRODUCCIÓN DE LA BITÁCORA ====================
+
+    /**
+     * Aplica un registro de la bitácora sin volver a registrarlo
+     *
+     * @param retiradas personas eliminadas durante la reproducción; las citas
+     *                  registradas antes de la eliminación todavía las referencian
+     */
+    private void reproducir(byte[] contenido, Map<String, Person> retiradas) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(contenido));
+        switch (CodificadorRegistros.leerTipo(entrada)) {
+            case PERSONA_AGREGADA -> aplicarAgregarPersona(CodificadorRegistros.leerPersona(entrada));
+            case PERSONA_ACTUALIZADA -> aplicarActualizarPersona(CodificadorRegistros.leerPersona(entrada));
+            case PERSONA_ELIMINADA -> {
+                String personaId = CodificadorRegistros.leerId(entrada);
+                Person registrada = personasPorId.get(personaId);
+                if (aplicarEliminarPersona(personaId)) {
+                    retiradas.put(personaId, registrada);
+                }
+            }
+            case PERSONAS_REEMPLAZADAS -> aplicarListaPersonas(List.of());
+            case CITA_AGREGADA -> aplicarAddCita(CodificadorRegistros.leerCita(entrada,
+                    id -> personaParaReproducir(id, retiradas)));
+            case CITA_ACTUALIZADA -> aplicarUpdateCita(CodificadorRegistros.leerCita(entrada,
+                    id -> personaParaReproducir(id, retiradas)));
+            case CITA_ELIMINADA -> aplicarDeleteCita(CodificadorRegistros.leerId(entrada));
+            case CITAS_REEMPLAZADAS -> aplicarListaCitas(List.of());
+        }
+    }
+
+    /**
+     * Registra las personas y las citas de una instantánea. Las citas activas o
+     * recientes se decodifican del archivo mapeado una por una; las que van al
+     * nivel frío se quedan en el archivo y solo se leen sus campos fijos y sus IDs.
+     *
+     * @param retiradas recibe las personas eliminadas que todavía referencian citas
+     */
+    private void cargarInstantanea(RegistrosMapeados registros, Map<String, Person> retiradas) throws IOException {
+        for (int i = 0; i < registros.getCantidadPersonas(); i++) {
+            Person person = registros.persona(i);
+            if (registros.esRetirada(i)) {
+                retiradas.put(person.getId(), person);
+            } else {
+                aplicarAgregarPersona(person);
+            }
+        }
+        Function<String, Person> personas = id -> personaParaReproducir(id, retiradas);
+        LocalDate limite = limiteFrias();
+        for (int i = 0; i < registros.getCantidadCitas(); i++) {
+            long claveTiempo = registros.claveTiempo(i);
+            if (vaAlNivelFrio(claveTiempo, limite)) {
+                archivarDeInstantanea(registros, i, claveTiempo, personas);
+            } else {
+                aplicarAddCita(registros.cita(i, personas));
+            }
+        }
     }
 
-    public void setListPersonas(ArrayList<Person> listPersonas) {
-        this.listPersonas = listPersonas;
+    /**
+     * Como aplicarAddCita para una cita fría, dejándola en la instantánea mapeada
+     */
+    private void archivarDeInstantanea(RegistrosMapeados registros, int indice, long claveTiempo,
+                                       Function<String, Person> personas) throws IOException {
+        String citaId = registros.idCita(indice);
+        if (citasPorId.containsKey(citaId) || frias.contiene(citaId)) {
+            throw new IllegalArgumentException("Ya existe una cita con ID: " + citaId);
+        }
+        Paciente paciente = registros.pacienteDeCita(indice, personas);
+        Medico medico = registros.medicoDeCita(indice, personas);
+        frias.agregar(citaId, paciente, medico, claveTiempo, registros, indice);
+        columnas.escribir(citaId, claveTiempo, registros.precioCita(indice), medico.getId(), paciente.getId());
+        contadoresDe(medico.getId()).sumar(new HuellaCita(medico.getId(), paciente.getId(), claveTiempo));
+        avanzarSecuencia(TipoSecuencia.CITA, citaId);
     }
 
-    public ArrayList<Cita> getListCitas() {
-        return listCitas;
+    private Person personaParaReproducir(String personaId, Map<String, Person> retiradas) {
+        Person person = personasPorId.get(personaId);
+        return person != null ? person : retiradas.get(personaId);
     }
 
-    public void setListCitas(ArrayList<Cita> listCitas) {
-        this.listCitas = listCitas;
+    /**
+     * Cuenta las citas registradas sin copiar la lista
+     */
+    public int contarCitas() {
+        return leer(() -> citasPorId.size() + frias.getCantidad());
     }
 
     public Person getUsuarioActivo() {
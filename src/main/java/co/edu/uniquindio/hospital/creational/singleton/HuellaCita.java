@@ -0,0 +1,48 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+import co.edu.uniquindio.hospital.EstadoCita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Valores con los que una cita quedó registrada en los índices del Hospital.
+ *
+ * Una actualización reemplaza la cita registrada por una copia con los valores
+ * nuevos, que ya no sirve para saber de dónde retirar la anterior; la huella sí. La fecha,
+ * la hora y el estado se guardan en la clave de tiempo empaquetada de la cita.
+ */
+record HuellaCita(String medicoId, String pacienteId, long claveTiempo) {
+
+    static HuellaCita de(Cita cita) {
+        return new HuellaCita(cita.getMedico().getId(), cita.getPaciente().getId(), cita.getClaveTiempo());
+    }
+
+    LocalDate fecha() {
+        return Cita.fechaDe(claveTiempo);
+    }
+
+    LocalTime hora() {
+        return Cita.horaDe(claveTiempo);
+    }
+
+    EstadoCita estado() {
+        return Cita.estadoDe(claveTiempo);
+    }
+
+    /**
+     * Indica si la cita bloquea el horario del médico
+     */
+    boolean ocupaHorario() {
+        return estado() != EstadoCita.CANCELADA;
+    }
+
+    ClaveAgenda claveAgenda(String citaId) {
+        return new ClaveAgenda(Cita.momentoDe(claveTiempo), citaId);
+    }
+
+    ClaveTurno claveTurno() {
+        return new ClaveTurno(medicoId, Cita.momentoDe(claveTiempo));
+    }
+}
@@ -0,0 +1,314 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.Cita;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Versión del conjunto de citas, en orden de registro.
+ *
+ * Internamente es un trie de 32 ramas indexado por la secuencia de registro
+ * de cada cita. Publicar una versión nueva solo copia el camino desde la raíz
+ * hasta la hoja modificada; el resto de nodos se comparte con la versión
+ * anterior. Los lectores reciben una versión completa y consistente sin tomar
+ * ningún candado, y la lista no cambia después de publicada.
+ *
+ * Las hojas son las citas registradas en el Hospital y las comparten todas las
+ * versiones que las contienen. Por eso get y el recorrido entregan una copia de
+ * cada cita: modificarla no afecta a la cita registrada ni a otros lectores.
+ */
+public final class InstantaneaCitas extends AbstractList<Cita> {
+
+    private static final int BITS = 5;
+    private static final int ANCHO = 1 << BITS;
+    private static final int MASCARA = ANCHO - 1;
+
+    static final InstantaneaCitas VACIA = new InstantaneaCitas(0, null, 0);
+
+    private final long version;
+    private final Nodo raiz;
+    private final int nivel;
+
+    private InstantaneaCitas(long version, Nodo raiz, int nivel) {
+        this.version = version;
+        this.raiz = raiz;
+        this.nivel = nivel;
+    }
+
+    /**
+     * Número de versión; crece con cada cambio publicado
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Devuelve una versión nueva con la cita asignada a la secuencia indicada
+     */
+    InstantaneaCitas con(long secuencia, Cita cita) {
+        Nodo nodo = raiz != null ? raiz : Nodo.VACIO;
+        int nivelRaiz = raiz != null ? nivel : 0;
+        while ((secuencia >>> (nivelRaiz + BITS)) != 0) {
+            Object[] hijos = new Object[ANCHO];
+            hijos[0] = nodo;
+            nodo = new Nodo(hijos, nodo.cantidad);
+            nivelRaiz += BITS;
+        }
+        return new InstantaneaCitas(version + 1, asignar(nodo, nivelRaiz, secuencia, cita), nivelRaiz);
+    }
+
+    /**
+     * Devuelve una versión nueva con varias citas asignadas a la vez. Cada nodo
+     * afectado se copia una sola vez, no una vez por cita.
+     *
+     * @param secuencias secuencias de registro en orden creciente, una por cita
+     */
+    InstantaneaCitas conVarias(long[] secuencias, Cita[] citas) {
+        if (secuencias.length == 0) {
+            return this;
+        }
+        Nodo nodo = raiz != null ? raiz : Nodo.VACIO;
+        int nivelRaiz = raiz != null ? nivel : 0;
+        long mayor = secuencias[secuencias.length - 1];
+        while ((mayor >>> (nivelRaiz + BITS)) != 0) {
+            Object[] hijos = new Object[ANCHO];
+            hijos[0] = nodo;
+            nodo = new Nodo(hijos, nodo.cantidad);
+            nivelRaiz += BITS;
+        }
+        return new InstantaneaCitas(version + 1,
+                asignarVarias(nodo, nivelRaiz, secuencias, citas, 0, secuencias.length), nivelRaiz);
+    }
+
+    /**
+     * Devuelve una versión nueva sin la cita de la secuencia indicada
+     */
+    InstantaneaCitas sin(long secuencia) {
+        if (raiz == null || (secuencia >>> (nivel + BITS)) != 0) {
+            return this;
+        }
+        Nodo nueva = asignar(raiz, nivel, secuencia, null);
+        return new InstantaneaCitas(version + 1, nueva.cantidad == 0 ? null : nueva, nivel);
+    }
+
+    /**
+     * Construye de una vez la versión con todas las citas, nivel por nivel y sin
+     * copiar caminos. Se usa al cargar los datos del disco, donde insertar una por
+     * una generaría una copia de camino descartada por cada cita.
+     *
+     * @param secuencias secuencias de registro en orden creciente, una por cita
+     */
+    static InstantaneaCitas construir(long[] secuencias, Cita[] citas) {
+        if (citas.length == 0) {
+            return VACIA;
+        }
+        Object[] actuales = citas;
+        long[] claves = secuencias;
+        int cantidad = citas.length;
+        int nivel = 0;
+        while (true) {
+            Nodo[] padres = new Nodo[cantidad];
+            long[] clavesPadres = new long[cantidad];
+            int padresCreados = 0;
+            int i = 0;
+            while (i < cantidad) {
+                long clavePadre = claves[i] >>> BITS;
+                Object[] hijos = new Object[ANCHO];
+                int total = 0;
+                while (i < cantidad && (claves[i] >>> BITS) == clavePadre) {
+                    hijos[(int) (claves[i] & MASCARA)] = actuales[i];
+                    total += nivel == 0 ? 1 : ((Nodo) actuales[i]).cantidad;
+                    i++;
+                }
+                padres[padresCreados] = new Nodo(hijos, total);
+                clavesPadres[padresCreados] = clavePadre;
+                padresCreados++;
+            }
+            if (padresCreados == 1 && clavesPadres[0] == 0) {
+                return new InstantaneaCitas(1, padres[0], nivel);
+            }
+            actuales = padres;
+            claves = clavesPadres;
+            cantidad = padresCreados;
+            nivel += BITS;
+        }
+    }
+
+    private static Nodo asignar(Nodo nodo, int nivel, long secuencia, Cita cita) {
+        int indice = (int) ((secuencia >>> nivel) & MASCARA);
+        Object[] hijos = nodo.hijos.clone();
+        int cantidad = nodo.cantidad;
+        if (nivel == 0) {
+            cantidad += (cita != null ? 1 : 0) - (hijos[indice] != null ? 1 : 0);
+            hijos[indice] = cita;
+        } else {
+            Nodo hijo = hijos[indice] != null ? (Nodo) hijos[indice] : Nodo.VACIO;
+            if (cita == null && hijo.cantidad == 0) {
+                return nodo;
+            }
+            Nodo nuevoHijo = asignar(hijo, nivel - BITS, secuencia, cita);
+            cantidad += nuevoHijo.cantidad - hijo.cantidad;
+            hijos[indice] = nuevoHijo.cantidad == 0 ? null : nuevoHijo;
+        }
+        return new Nodo(hijos, cantidad);
+    }
+
+    /**
+     * Asigna las citas de [desde, hasta), cuyas secuencias caen todas bajo este nodo
+     */
+    private static Nodo asignarVarias(Nodo nodo, int nivel, long[] secuencias, Cita[] citas,
+                                      int desde, int hasta) {
+        Object[] hijos = nodo.hijos.clone();
+        int cantidad = nodo.cantidad;
+        int i = desde;
+        while (i < hasta) {
+            int indice = (int) ((secuencias[i] >>> nivel) & MASCARA);
+            int fin = i + 1;
+            while (fin < hasta && (int) ((secuencias[fin] >>> nivel) & MASCARA) == indice) {
+                fin++;
+            }
+            if (nivel == 0) {
+                // Una secuencia repetida se queda con la última cita
+                Cita cita = citas[fin - 1];
+                cantidad += (cita != null ? 1 : 0) - (hijos[indice] != null ? 1 : 0);
+                hijos[indice] = cita;
+            } else {
+                Nodo hijo = hijos[indice] != null ? (Nodo) hijos[indice] : Nodo.VACIO;
+                Nodo nuevoHijo = asignarVarias(hijo, nivel - BITS, secuencias, citas, i, fin);
+                cantidad += nuevoHijo.cantidad - hijo.cantidad;
+                hijos[indice] = nuevoHijo.cantidad == 0 ? null : nuevoHijo;
+            }
+            i = fin;
+        }
+        return new Nodo(hijos, cantidad);
+    }
+
+    @Override
+    public int size() {
+        return raiz != null ? raiz.cantidad : 0;
+    }
+
+    @Override
+    public Cita get(int posicion) {
+        if (posicion < 0 || posicion >= size()) {
+            throw new IndexOutOfBoundsException("Posición: " + posicion + ", tamaño: " + size());
+        }
+        Nodo nodo = raiz;
+        for (int n = nivel; n > 0; n -= BITS) {
+            for (Object hijo : nodo.hijos) {
+                if (hijo == null) {
+                    continue;
+                }
+                Nodo subarbol = (Nodo) hijo;
+                if (posicion < subarbol.cantidad) {
+                    nodo = subarbol;
+                    break;
+                }
+                posicion -= subarbol.cantidad;
+            }
+        }
+        for (Object hijo : nodo.hijos) {
+            if (hijo != null && posicion-- == 0) {
+                return ((Cita) hijo).copiar();
+            }
+        }
+        throw new IllegalStateException("Conteos del trie inconsistentes");
+    }
+
+    @Override
+    public Iterator<Cita> iterator() {
+        return new Recorrido(true);
+    }
+
+    /**
+     * Las citas registradas, sin copiarlas; solo para el Hospital, que no las modifica
+     */
+    Stream<Cita> registradas() {
+        return StreamSupport.stream(Spliterators.spliterator(new Recorrido(false), size(),
+                Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL), false);
+    }
+
+    private static final class Nodo {
+        static final Nodo VACIO = new Nodo(new Object[ANCHO], 0);
+
+        final Object[] hijos;
+        final int cantidad;
+
+        Nodo(Object[] hijos, int cantidad) {
+            this.hijos = hijos;
+            this.cantidad = cantidad;
+        }
+    }
+
+    /**
+     * Recorrido en profundidad que no copia la versión; copia cada cita si se le pide
+     */
+    private final class Recorrido implements Iterator<Cita> {
+        private final Deque<Object[]> nodos = new ArrayDeque<>();
+        private final Deque<Integer> posiciones = new ArrayDeque<>();
+        private final Deque<Integer> niveles = new ArrayDeque<>();
+        private final boolean copiar;
+        private Cita siguiente;
+
+        Recorrido(boolean copiar) {
+            this.copiar = copiar;
+            if (raiz != null) {
+                apilar(raiz.hijos, nivel);
+            }
+            avanzar();
+        }
+
+        private void apilar(Object[] hijos, int nivelNodo) {
+            nodos.push(hijos);
+            posiciones.push(0);
+            niveles.push(nivelNodo);
+        }
+
+        private void avanzar() {
+            siguiente = null;
+            while (!nodos.isEmpty()) {
+                Object[] hijos = nodos.peek();
+                int posicion = posiciones.pop();
+                int nivelNodo = niveles.peek();
+                if (posicion == ANCHO) {
+                    nodos.pop();
+                    niveles.pop();
+                    continue;
+                }
+                posiciones.push(posicion + 1);
+                Object hijo = hijos[posicion];
+                if (hijo == null) {
+                    continue;
+                }
+                if (nivelNodo == 0) {
+                    siguiente = (Cita) hijo;
+                    return;
+                }
+                apilar(((Nodo) hijo).hijos, nivelNodo - BITS);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return siguiente != null;
+        }
+
+        @Override
+        public Cita next() {
+            if (siguiente == null) {
+                throw new NoSuchElementException();
+            }
+            Cita actual = siguiente;
+            avanzar();
+            return copiar ? actual.copiar() : actual;
+        }
+    }
+}
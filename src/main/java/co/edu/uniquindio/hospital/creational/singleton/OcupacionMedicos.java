@@ -0,0 +1,59 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mapas de bits de ocupación: por cada médico y día, un entero cuyo bit i
+ * indica que el turno i de {@link co.edu.uniquindio.hospital.HorarioAtencion} tiene una cita no cancelada.
+ * Las horas fuera de la rejilla no se registran aquí.
+ */
+final class OcupacionMedicos {
+
+    private final Map<String, Map<LocalDate, Integer>> ocupacion = new HashMap<>();
+
+    boolean estaOcupado(String medicoId, LocalDate fecha, int turno) {
+        return (bitsDe(medicoId, fecha) & (1 << turno)) != 0;
+    }
+
+    /**
+     * Obtiene los turnos ocupados de un día (bit i = turno i)
+     */
+    int bitsDe(String medicoId, LocalDate fecha) {
+        Map<LocalDate, Integer> dias = ocupacion.get(medicoId);
+        if (dias == null) {
+            return 0;
+        }
+        return dias.getOrDefault(fecha, 0);
+    }
+
+    void ocupar(String medicoId, LocalDate fecha, int turno) {
+        ocupacion.computeIfAbsent(medicoId, k -> new HashMap<>())
+                .merge(fecha, 1 << turno, (actual, bit) -> actual | bit);
+    }
+
+    void liberar(String medicoId, LocalDate fecha, int turno) {
+        Map<LocalDate, Integer> dias = ocupacion.get(medicoId);
+        if (dias == null) {
+            return;
+        }
+        Integer bits = dias.get(fecha);
+        if (bits == null) {
+            return;
+        }
+        int restantes = bits & ~(1 << turno);
+        if (restantes == 0) {
+            dias.remove(fecha);
+            if (dias.isEmpty()) {
+                ocupacion.remove(medicoId);
+            }
+        } else {
+            dias.put(fecha, restantes);
+        }
+    }
+
+    void limpiar() {
+        ocupacion.clear();
+    }
+}
@@ -0,0 +1,350 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Archivo de personas y citas con registros de tamaño fijo, leído con MappedByteBuffer.
+ *
+ * Abrirlo solo lee el encabezado y mapea el archivo; cada registro se decodifica
+ * cuando se pide, así que un archivo con millones de citas se abre casi al
+ * instante. Formato:
+ *
+ *   encabezado (64 bytes) | personas (48 bytes c/u) | citas (44 bytes c/u) | diccionario | cierre
+ *
+ * Las citas guardan la fecha como día epoch, la hora como segundo del día, el estado
+ * y la especialidad como un byte, y los textos como posiciones en el diccionario
+ * ([longitud][UTF-8]), donde los textos repetidos se guardan una sola vez. Los bytes
+ * de los enums son ordinales traducidos por nombre con las tablas del encabezado, así
+ * que reordenar las constantes no invalida los archivos. Cada sección mapeada debe
+ * medir menos de 2 GB (unos 48 millones de citas); EscritorRegistros no escribe
+ * archivos más grandes. La versión 1 guardaba la hora como minuto del día en
+ * registros de 40 bytes y se sigue pudiendo leer.
+ *
+ * Se puede leer desde varios hilos a la vez: el Hospital deja las citas frías
+ * de la instantánea en el archivo y las decodifica al consultarlas.
+ */
+final class RegistrosMapeados {
+
+    static final int MAGICO = 0x48524547; // "HREG"
+    static final int MAGICO_FIN = 0x46494E21; // "FIN!"
+    static final short VERSION = 2;
+    static final int TAMANIO_ENCABEZADO = 64;
+
+    static final int NULO = -1;
+    static final int SIN_CUENTA = -2;
+    static final int FECHA_NULA = Integer.MIN_VALUE;
+
+    static final byte MEDICO = 1;
+    static final byte PACIENTE = 2;
+    static final byte ADMIN = 3;
+
+    // Registro de persona
+    static final int TAMANIO_PERSONA = 48;
+    static final int P_TIPO = 0;
+    static final int P_RETIRADA = 1;
+    static final int P_TIPO_USUARIO = 2;
+    static final int P_ESPECIALIDAD = 3;
+    static final int P_DISPONIBLE = 4;
+    static final int P_ID = 8;
+    static final int P_DOCUMENTO = 12;
+    static final int P_NOMBRE = 16;
+    static final int P_CORREO = 20;
+    static final int P_TELEFONO = 24;
+    static final int P_USUARIO = 28;
+    static final int P_CONTRASENIA = 32;
+    static final int P_FECHA_NACIMIENTO = 36;
+    static final int P_TEXTO_1 = 40; // licencia, dirección o cargo
+    static final int P_TEXTO_2 = 44; // género
+
+    // Registro de cita
+    static final int TAMANIO_CITA = 44;
+    static final int C_ID = 0;
+    static final int C_PACIENTE = 4;
+    static final int C_MEDICO = 8;
+    static final int C_FECHA = 12;
+    static final int C_HORA = 16;
+    static final int C_ESTADO = 20;
+    static final int C_ESPECIALIDAD = 21;
+    static final int C_PRECIO = 24;
+    static final int C_MOTIVO = 32;
+    static final int C_OBSERVACIONES = 36;
+    static final int C_DIAGNOSTICO = 40;
+
+    /**
+     * Posiciones de los campos de una cita según la versión del archivo
+     */
+    private record FormatoCita(int tamanio, int hora, boolean horaEnMinutos, int estado, int especialidad,
+                               int precio, int motivo, int observaciones, int diagnostico) {
+        static final FormatoCita VERSION_1 = new FormatoCita(40, 16, true, 18, 19, 20, 28, 32, 36);
+        static final FormatoCita ACTUAL = new FormatoCita(TAMANIO_CITA, C_HORA, false, C_ESTADO, C_ESPECIALIDAD,
+                C_PRECIO, C_MOTIVO, C_OBSERVACIONES, C_DIAGNOSTICO);
+    }
+
+    private final MappedByteBuffer registros;
+    private final MappedByteBuffer diccionario;
+    private final long segmento;
+    private final int cantidadPersonas;
+    private final int cantidadCitas;
+    private final int inicioCitas;
+    private final FormatoCita formato;
+    private final EstadoCita[] estados;
+    private final Especialidad[] especialidades;
+    private final TipoUsuario[] tiposUsuario;
+
+    // Los textos que se repiten (motivos, IDs de personas...) se decodifican una sola vez
+    private final Map<Integer, String> compartidos = new ConcurrentHashMap<>();
+
+    private RegistrosMapeados(MappedByteBuffer registros, MappedByteBuffer diccionario, long segmento,
+                              int cantidadPersonas, int cantidadCitas, int inicioCitas, FormatoCita formato,
+                              int tablaEstados, int tablaEspecialidades, int tablaTiposUsuario) throws IOException {
+        this.registros = registros;
+        this.diccionario = diccionario;
+        this.segmento = segmento;
+        this.cantidadPersonas = cantidadPersonas;
+        this.cantidadCitas = cantidadCitas;
+        this.inicioCitas = inicioCitas;
+        this.formato = formato;
+        this.estados = tabla(EstadoCita.class, tablaEstados);
+        this.especialidades = tabla(Especialidad.class, tablaEspecialidades);
+        this.tiposUsuario = tabla(TipoUsuario.class, tablaTiposUsuario);
+    }
+
+    /**
+     * Mapea el archivo y valida su encabezado y su cierre, sin leer los registros
+     *
+     * @throws IOException si el archivo está incompleto o no tiene este formato
+     */
+    static RegistrosMapeados abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio < TAMANIO_ENCABEZADO + Integer.BYTES) {
+                throw new IOException("Archivo de registros incompleto: " + archivo.getFileName());
+            }
+            MappedByteBuffer encabezado = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANIO_ENCABEZADO);
+            short version = encabezado.getShort(4);
+            if (encabezado.getInt(0) != MAGICO || (version != VERSION && version != 1)) {
+                throw new IOException("Formato de registros desconocido: " + archivo.getFileName());
+            }
+            FormatoCita formato = version == VERSION ? FormatoCita.ACTUAL : FormatoCita.VERSION_1;
+            long segmento = encabezado.getLong(8);
+            int cantidadPersonas = encabezado.getInt(16);
+            int cantidadCitas = encabezado.getInt(20);
+            long inicioCitas = encabezado.getLong(24);
+            long inicioDiccionario = encabezado.getLong(32);
+            long tamanioDiccionario = encabezado.getLong(40);
+
+            long finDiccionario = inicioDiccionario + tamanioDiccionario;
+            if (inicioCitas != TAMANIO_ENCABEZADO + (long) cantidadPersonas * TAMANIO_PERSONA
+                    || inicioDiccionario != inicioCitas + (long) cantidadCitas * formato.tamanio()
+                    || finDiccionario + Integer.BYTES != tamanio) {
+                throw new IOException("Archivo de registros incompleto: " + archivo.getFileName());
+            }
+            if (inicioDiccionario > Integer.MAX_VALUE || tamanioDiccionario > Integer.MAX_VALUE) {
+                throw new IOException("Archivo de registros demasiado grande: " + archivo.getFileName());
+            }
+            MappedByteBuffer cierre = canal.map(FileChannel.MapMode.READ_ONLY, finDiccionario, Integer.BYTES);
+            if (cierre.getInt(0) != MAGICO_FIN) {
+                throw new IOException("Archivo de registros incompleto: " + archivo.getFileName());
+            }
+
+            // El mapeo sigue siendo válido después de cerrar el canal
+            MappedByteBuffer registros = canal.map(FileChannel.MapMode.READ_ONLY, 0, inicioDiccionario);
+            MappedByteBuffer diccionario = canal.map(FileChannel.MapMode.READ_ONLY, inicioDiccionario, tamanioDiccionario);
+            return new RegistrosMapeados(registros, diccionario, segmento, cantidadPersonas, cantidadCitas,
+                    (int) inicioCitas, formato, encabezado.getInt(48), encabezado.getInt(52), encabezado.getInt(56));
+        }
+    }
+
+    long getSegmento() {
+        return segmento;
+    }
+
+    int getCantidadPersonas() {
+        return cantidadPersonas;
+    }
+
+    int getCantidadCitas() {
+        return cantidadCitas;
+    }
+
+    /**
+     * Indica si la persona fue eliminada y solo se guarda porque la referencian citas
+     */
+    boolean esRetirada(int indice) {
+        return registros.get(basePersona(indice) + P_RETIRADA) != 0;
+    }
+
+    /**
+     * Decodifica la persona de la posición indicada
+     */
+    Person persona(int indice) throws IOException {
+        int base = basePersona(indice);
+        String id = texto(registros.getInt(base + P_ID), false);
+        String documento = texto(registros.getInt(base + P_DOCUMENTO), false);
+        String nombre = texto(registros.getInt(base + P_NOMBRE), false);
+        String correo = texto(registros.getInt(base + P_CORREO), false);
+        String telefono = texto(registros.getInt(base + P_TELEFONO), false);
+
+        UserAccount cuenta = null;
+        int usuario = registros.getInt(base + P_USUARIO);
+        if (usuario != SIN_CUENTA) {
+            cuenta = new UserAccount(texto(usuario, false), texto(registros.getInt(base + P_CONTRASENIA), false),
+                    null, valor(tiposUsuario, registros.get(base + P_TIPO_USUARIO)));
+        }
+
+        int fechaNacimiento = registros.getInt(base + P_FECHA_NACIMIENTO);
+        String texto1 = texto(registros.getInt(base + P_TEXTO_1), true);
+        Person person = switch (registros.get(base + P_TIPO)) {
+            case MEDICO -> new Medico(id, documento, nombre, correo, telefono, cuenta,
+                    valor(especialidades, registros.get(base + P_ESPECIALIDAD)), texto1,
+                    registros.get(base + P_DISPONIBLE) != 0);
+            case PACIENTE -> new Paciente(id, documento, nombre, correo, telefono, cuenta,
+                    fechaNacimiento != FECHA_NULA ? LocalDate.ofEpochDay(fechaNacimiento) : null,
+                    texto1, texto(registros.getInt(base + P_TEXTO_2), true));
+            case ADMIN -> new Admin(id, documento, nombre, correo, telefono, cuenta, texto1);
+            default -> throw new IOException("Tipo de persona desconocido en el registro " + indice);
+        };
+        if (cuenta != null) {
+            cuenta.setPerson(person);
+        }
+        return person;
+    }
+
+    /**
+     * Decodifica la cita de la posición indicada, resolviendo su paciente y su médico por ID
+     *
+     * @throws IOException si alguno de los dos no existe
+     */
+    Cita cita(int indice, Function<String, Person> personas) throws IOException {
+        int base = baseCita(indice);
+        long claveTiempo = claveTiempo(indice);
+        return Cita.builder(idCita(indice), pacienteDeCita(indice, personas), medicoDeCita(indice, personas),
+                        Cita.fechaDe(claveTiempo), Cita.horaDe(claveTiempo))
+                .especialidad(Cita.especialidadDe(claveTiempo))
+                .precio(precioCita(indice))
+                .motivo(texto(registros.getInt(base + formato.motivo()), true))
+                .estado(Cita.estadoDe(claveTiempo))
+                .observaciones(texto(registros.getInt(base + formato.observaciones()), true))
+                .diagnostico(texto(registros.getInt(base + formato.diagnostico()), true))
+                .build();
+    }
+
+    String idCita(int indice) throws IOException {
+        return texto(registros.getInt(baseCita(indice) + C_ID), false);
+    }
+
+    /**
+     * Fecha, hora, estado y especialidad de la cita empaquetados como en
+     * Cita.getClaveTiempo, leídos sin decodificar el resto del registro
+     */
+    long claveTiempo(int indice) throws IOException {
+        int base = baseCita(indice);
+        int hora = formato.horaEnMinutos() ? registros.getShort(base + formato.hora()) * 60
+                : registros.getInt(base + formato.hora());
+        return Cita.claveTiempo(LocalDate.ofEpochDay(registros.getInt(base + C_FECHA)),
+                LocalTime.ofSecondOfDay(hora), valor(estados, registros.get(base + formato.estado())),
+                valor(especialidades, registros.get(base + formato.especialidad())));
+    }
+
+    double precioCita(int indice) {
+        return registros.getDouble(baseCita(indice) + formato.precio());
+    }
+
+    /**
+     * @throws IOException si el paciente de la cita no existe
+     */
+    Paciente pacienteDeCita(int indice, Function<String, Person> personas) throws IOException {
+        String pacienteId = texto(registros.getInt(baseCita(indice) + C_PACIENTE), true);
+        if (!(personas.apply(pacienteId) instanceof Paciente paciente)) {
+            throw new IOException("La cita " + idCita(indice) + " referencia un paciente desconocido: " + pacienteId);
+        }
+        return paciente;
+    }
+
+    /**
+     * @throws IOException si el médico de la cita no existe
+     */
+    Medico medicoDeCita(int indice, Function<String, Person> personas) throws IOException {
+        String medicoId = texto(registros.getInt(baseCita(indice) + C_MEDICO), true);
+        if (!(personas.apply(medicoId) instanceof Medico medico)) {
+            throw new IOException("La cita " + idCita(indice) + " referencia un médico desconocido: " + medicoId);
+        }
+        return medico;
+    }
+
+    private int basePersona(int indice) {
+        if (indice < 0 || indice >= cantidadPersonas) {
+            throw new IndexOutOfBoundsException("Persona: " + indice + ", cantidad: " + cantidadPersonas);
+        }
+        return TAMANIO_ENCABEZADO + indice * TAMANIO_PERSONA;
+    }
+
+    private int baseCita(int indice) {
+        if (indice < 0 || indice >= cantidadCitas) {
+            throw new IndexOutOfBoundsException("Cita: " + indice + ", cantidad: " + cantidadCitas);
+        }
+        return inicioCitas + indice * formato.tamanio();
+    }
+
+    private String texto(int posicion, boolean compartido) throws IOException {
+        if (posicion < 0) {
+            return null;
+        }
+        if (compartido) {
+            String existente = compartidos.get(posicion);
+            if (existente != null) {
+                return existente;
+            }
+        }
+        if (posicion > diccionario.limit() - Integer.BYTES) {
+            throw new IOException("Posición de texto fuera del diccionario: " + posicion);
+        }
+        int longitud = diccionario.getInt(posicion);
+        if (longitud < 0 || longitud > diccionario.limit() - posicion - Integer.BYTES) {
+            throw new IOException("Texto dañado en la posición " + posicion);
+        }
+        byte[] bytes = new byte[longitud];
+        diccionario.get(posicion + Integer.BYTES, bytes);
+        String texto = longitud == 0 ? "" : new String(bytes, StandardCharsets.UTF_8);
+        if (compartido) {
+            compartidos.put(posicion, texto);
+        }
+        return texto;
+    }
+
+    private <E extends Enum<E>> E[] tabla(Class<E> tipo, int posicion) throws IOException {
+        String[] nombres = texto(posicion, false).split(",");
+        @SuppressWarnings("unchecked")
+        E[] valores = (E[]) java.lang.reflect.Array.newInstance(tipo, nombres.length);
+        for (int i = 0; i < nombres.length; i++) {
+            try {
+                valores[i] = Enum.valueOf(tipo, nombres[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Valor desconocido de " + tipo.getSimpleName() + ": " + nombres[i]);
+            }
+        }
+        return valores;
+    }
+
+    private static <E> E valor(E[] tabla, byte ordinal) throws IOException {
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= tabla.length) {
+            throw new IOException("Ordinal fuera de la tabla: " + ordinal);
+        }
+        return tabla[ordinal];
+    }
+}
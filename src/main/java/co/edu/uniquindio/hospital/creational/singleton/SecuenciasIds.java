@@ -0,0 +1,164 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Secuencias de IDs monótonas por tipo de entidad.
+ *
+ * Cada número se entrega con un getAndAdd atómico, sin candados. Los números
+ * se conceden por bloques: antes de entregar un número fuera del bloque
+ * vigente se guarda en disco el nuevo límite, y al reiniciar cada secuencia
+ * continúa desde el último límite guardado. Los números de un bloque sin usar
+ * se pierden al reiniciar; la secuencia admite huecos pero nunca repite. Si el
+ * límite no se puede guardar, no se entregan números fuera del bloque vigente.
+ */
+final class SecuenciasIds {
+
+    private static final long TAMANIO_BLOQUE = 1000;
+
+    private final Path archivo;
+    private final Map<TipoSecuencia, Secuencia> secuencias = new EnumMap<>(TipoSecuencia.class);
+
+    /**
+     * @throws UncheckedIOException si el archivo existe pero no se puede leer o tiene un
+     *                              límite inválido; empezar de nuevo repetiría IDs ya entregados
+     */
+    SecuenciasIds(Path archivo) {
+        this.archivo = archivo;
+        Properties guardadas = cargar();
+        for (TipoSecuencia tipo : TipoSecuencia.values()) {
+            String valor = guardadas.getProperty(tipo.name(), "1").trim();
+            long limite;
+            try {
+                limite = Long.parseLong(valor);
+            } catch (NumberFormatException e) {
+                limite = 0;
+            }
+            if (limite < 1) {
+                throw new UncheckedIOException(new IOException(
+                        "Límite inválido para la secuencia " + tipo + " en " + archivo + ": " + valor));
+            }
+            secuencias.put(tipo, new Secuencia(limite));
+        }
+    }
+
+    /**
+     * Entrega el siguiente número de la secuencia
+     */
+    long siguiente(TipoSecuencia tipo) {
+        return reservar(tipo, 1);
+    }
+
+    /**
+     * Reserva un bloque de números consecutivos y devuelve el primero
+     *
+     * @throws UncheckedIOException si hace falta un bloque nuevo y su límite no se pudo
+     *                              guardar; los números pedidos se descartan
+     */
+    long reservar(TipoSecuencia tipo, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser positiva");
+        }
+        Secuencia secuencia = secuencias.get(tipo);
+        long primero = secuencia.siguiente.getAndAdd(cantidad);
+        long fin = primero + cantidad;
+        if (fin > secuencia.limite) {
+            try {
+                extender(secuencia, fin);
+            } catch (IOException e) {
+                // Tras reiniciar se volverían a entregar
+                throw new UncheckedIOException("No se pudo guardar el límite de la secuencia " + tipo
+                        + "; no se entregan IDs nuevos", e);
+            }
+        }
+        return primero;
+    }
+
+    /**
+     * Consulta el número que entregará la próxima llamada, sin consumirlo
+     */
+    long verSiguiente(TipoSecuencia tipo) {
+        return secuencias.get(tipo).siguiente.get();
+    }
+
+    /**
+     * Garantiza que la secuencia no vuelva a entregar números menores o iguales al indicado
+     */
+    void avanzarMasAllaDe(TipoSecuencia tipo, long numero) {
+        Secuencia secuencia = secuencias.get(tipo);
+        long actual = secuencia.siguiente.get();
+        while (actual <= numero && !secuencia.siguiente.compareAndSet(actual, numero + 1)) {
+            actual = secuencia.siguiente.get();
+        }
+        if (numero + 1 > secuencia.limite) {
+            try {
+                extender(secuencia, numero + 1);
+            } catch (IOException e) {
+                // El número ya está en uso y no se entrega; la próxima reserva vuelve a intentar guardar
+                System.err.println("⚠ No se pudo guardar el límite de la secuencia " + tipo + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Solo se entra aquí al agotar un bloque. El nuevo límite se guarda antes de
+     * publicarlo, para que ningún hilo entregue números que no estén en disco.
+     */
+    private synchronized void extender(Secuencia secuencia, long necesario) throws IOException {
+        if (necesario <= secuencia.limite) {
+            return;
+        }
+        long limite = necesario + TAMANIO_BLOQUE;
+        guardar(secuencia, limite);
+        secuencia.limite = limite;
+    }
+
+    private Properties cargar() {
+        Properties propiedades = new Properties();
+        if (Files.exists(archivo)) {
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                propiedades.load(entrada);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new UncheckedIOException(new IOException(
+                        "No se pudieron leer las secuencias de IDs de " + archivo, e));
+            }
+        }
+        return propiedades;
+    }
+
+    private void guardar(Secuencia cambiada, long limite) throws IOException {
+        Properties propiedades = new Properties();
+        for (Map.Entry<TipoSecuencia, Secuencia> entrada : secuencias.entrySet()) {
+            Secuencia secuencia = entrada.getValue();
+            propiedades.setProperty(entrada.getKey().name(),
+                    Long.toString(secuencia == cambiada ? limite : secuencia.limite));
+        }
+        Files.createDirectories(archivo.toAbsolutePath().getParent());
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (OutputStream salida = Files.newOutputStream(temporal)) {
+            propiedades.store(salida, "Limites de las secuencias de IDs");
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class Secuencia {
+        final AtomicLong siguiente;
+        volatile long limite;
+
+        Secuencia(long limite) {
+            this.siguiente = new AtomicLong(limite);
+            this.limite = limite;
+        }
+    }
+}
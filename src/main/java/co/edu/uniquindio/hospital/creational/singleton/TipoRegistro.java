@@ -0,0 +1,38 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+/**
+ * Tipos de registro de la bitácora. El código se guarda en disco, así que
+ * los existentes no se pueden cambiar; los nuevos tipos toman códigos nuevos.
+ */
+enum TipoRegistro {
+    PERSONA_AGREGADA(1),
+    PERSONA_ACTUALIZADA(2),
+    PERSONA_ELIMINADA(3),
+    // Vacía las personas; lo siguen los PERSONA_AGREGADA de la lista nueva
+    PERSONAS_REEMPLAZADAS(4),
+    CITA_AGREGADA(5),
+    CITA_ACTUALIZADA(6),
+    CITA_ELIMINADA(7),
+    // Vacía las citas; lo siguen los CITA_AGREGADA de la lista nueva
+    CITAS_REEMPLAZADAS(8);
+    // 9 y 10 los usaban las instantáneas con marcos; no se deben reutilizar
+
+    private final byte codigo;
+
+    TipoRegistro(int codigo) {
+        this.codigo = (byte) codigo;
+    }
+
+    byte getCodigo() {
+        return codigo;
+    }
+
+    static TipoRegistro deCodigo(byte codigo) {
+        for (TipoRegistro tipo : values()) {
+            if (tipo.codigo == codigo) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Tipo de registro desconocido: " + codigo);
+    }
+}
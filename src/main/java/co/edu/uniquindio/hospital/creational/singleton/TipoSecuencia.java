@@ -0,0 +1,41 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+/**
+ * Tipos de entidad con secuencia de IDs propia y el formato de sus IDs
+ */
+public enum TipoSecuencia {
+    CITA("CIT", 4),
+    MEDICO("MED", 3),
+    PACIENTE("PAC", 3),
+    ADMIN("ADM", 3);
+
+    private final String prefijo;
+    private final int digitos;
+
+    TipoSecuencia(String prefijo, int digitos) {
+        this.prefijo = prefijo;
+        this.digitos = digitos;
+    }
+
+    public String formatear(long numero) {
+        return prefijo + String.format("%0" + digitos + "d", numero);
+    }
+
+    /**
+     * Extrae el número de un ID con este formato, o -1 si no lo tiene
+     */
+    long numeroDe(String id) {
+        if (id == null || !id.startsWith(prefijo) || id.length() == prefijo.length()) {
+            return -1;
+        }
+        long numero = 0;
+        for (int i = prefijo.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || numero > Long.MAX_VALUE / 10 - 9) {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+}
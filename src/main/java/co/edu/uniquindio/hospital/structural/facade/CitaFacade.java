@@ -2,10 +2,20 @@ package co.edu.uniquindio.hospital.structural.facade;
 
 import co.edu.uniquindio.hospital.*;
 import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -45,9 +55,9 @@ public class CitaFacade {
         // Validar datos obligatorios
         validarDatosObligatorios(paciente, medico, fecha, hora);
 
-        // Verificar disponibilidad del médico
-        if (!verificarDisponibilidadMedico(medico, fecha, hora)) {
-            throw new CitaException("El médico no está disponible en ese horario");
+        // Verificar que el ID no esté en uso
+        if (hospital.buscarCitaPorId(id) != null) {
+            throw new CitaException("Ya existe una cita con ID: " + id);
         }
 
         // Verificar que la fecha no sea pasada
@@ -60,21 +70,148 @@ public class CitaFacade {
             throw new CitaException("El médico no está disponible para atender citas");
         }
 
-        // Crear la cita usando el patrón Builder
-        Cita nuevaCita = Cita.builder(id, paciente, medico, fecha, hora)
-                .especialidad(especialidad != null ? especialidad : medico.getEspecialidad())
-                .precio(precio)
-                .motivo(motivo)
-                .estado(EstadoCita.PROGRAMADA)
-                .build();
+        // Reservar el turno de forma atómica: si dos solicitudes compiten, solo una lo obtiene
+        if (!hospital.reservarTurno(medico, fecha, hora, id)) {
+            throw new CitaException("El médico no está disponible en ese horario");
+        }
 
-        // Agregar al sistema
-        hospital.addCita(nuevaCita);
+        Cita nuevaCita;
+        boolean agregada = false;
+        try {
+            // Crear la cita usando el patrón Builder
+            nuevaCita = Cita.builder(id, paciente, medico, fecha, hora)
+                    .especialidad(especialidad != null ? especialidad : medico.getEspecialidad())
+                    .precio(precio)
+                    .motivo(motivo)
+                    .estado(EstadoCita.PROGRAMADA)
+                    .build();
+
+            // Agregar al sistema
+            hospital.addCita(nuevaCita);
+            agregada = true;
+        } catch (IllegalArgumentException e) {
+            throw new CitaException(e.getMessage(), e);
+        } finally {
+            // Cualquier falla antes de registrar la cita deja el turno libre de nuevo
+            if (!agregada) {
+                hospital.liberarTurno(medico, fecha, hora, id);
+            }
+        }
 
         System.out.println("✅ [FACADE] Cita creada exitosamente: " + id);
         return nuevaCita;
     }
 
+    /**
+     * Crea un lote de citas con las mismas reglas de crearCita, sin detenerse en
+     * la primera que falle.
+     *
+     * Primero se valida cada solicitud por separado. Luego las válidas se ordenan
+     * por médico, fecha y hora y se recorren una sola vez: dos solicitudes seguidas
+     * con el mismo turno chocan entre sí (gana la que venía antes en la lista), y
+     * la reserva atómica de cada turno detecta los choques con las citas ya
+     * registradas. Al final todas se guardan con una sola escritura en el Hospital.
+     * Si esa escritura falla, cada cita que no quedó registrada se rechaza con la
+     * causa y su turno se libera.
+     *
+     * @return un resultado por solicitud, en el mismo orden
+     */
+    public List<ResultadoCita> crearCitas(List<SolicitudCita> solicitudes) {
+        int cantidad = solicitudes.size();
+        Cita[] citas = new Cita[cantidad];
+        String[] errores = new String[cantidad];
+
+        // Los IDs que faltan se reservan de una vez
+        int sinId = 0;
+        for (SolicitudCita solicitud : solicitudes) {
+            if (solicitud.id() == null || solicitud.id().isBlank()) {
+                sinId++;
+            }
+        }
+        Iterator<String> idsNuevos = (sinId > 0 ? hospital.reservarIds(TipoSecuencia.CITA, sinId)
+                : List.<String>of()).iterator();
+
+        Set<String> idsDelLote = new HashSet<>();
+        for (int i = 0; i < cantidad; i++) {
+            SolicitudCita solicitud = solicitudes.get(i);
+            String id = solicitud.id() == null || solicitud.id().isBlank() ? idsNuevos.next() : solicitud.id();
+            try {
+                if (!idsDelLote.add(id)) {
+                    throw new CitaException("El ID está repetido en el lote: " + id);
+                }
+                citas[i] = construirCita(id, solicitud);
+            } catch (CitaException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+
+        // Una sola pasada en orden de médico, fecha y hora; a igual turno, en orden de la lista
+        Integer[] orden = new Integer[cantidad];
+        int validas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (citas[i] != null) {
+                orden[validas++] = i;
+            }
+        }
+        Arrays.sort(orden, 0, validas, Comparator
+                .comparing((Integer i) -> citas[i].getMedico().getId())
+                .thenComparingLong(i -> Cita.momentoDe(citas[i].getClaveTiempo()))
+                .thenComparingInt(i -> i));
+
+        List<Cita> reservadas = new ArrayList<>(validas);
+        List<Integer> posiciones = new ArrayList<>(validas);
+        Cita anterior = null;
+        for (int k = 0; k < validas; k++) {
+            int i = orden[k];
+            Cita cita = citas[i];
+            if (anterior != null && mismoTurno(anterior, cita)) {
+                errores[i] = "El turno ya está pedido por la cita " + anterior.getId() + " del mismo lote";
+                citas[i] = null;
+                continue;
+            }
+            if (!hospital.reservarTurno(cita.getMedico(), cita.getFecha(), cita.getHora(), cita.getId())) {
+                errores[i] = "El médico no está disponible en ese horario";
+                citas[i] = null;
+                continue;
+            }
+            anterior = cita;
+            reservadas.add(cita);
+            posiciones.add(i);
+        }
+
+        List<String> rechazos;
+        try {
+            rechazos = hospital.agregarCitas(reservadas);
+        } catch (RuntimeException e) {
+            // Si la bitácora falló después de aplicar el lote, las citas ya están registradas
+            String causa = "No se pudo guardar el lote: " + e.getMessage();
+            rechazos = new ArrayList<>(reservadas.size());
+            for (Cita cita : reservadas) {
+                rechazos.add(quedoRegistrada(cita) ? null : causa);
+            }
+        }
+        // liberarTurno conserva el turno si la cita quedó registrada
+        for (int j = 0; j < reservadas.size(); j++) {
+            if (rechazos.get(j) != null) {
+                Cita cita = reservadas.get(j);
+                hospital.liberarTurno(cita.getMedico(), cita.getFecha(), cita.getHora(), cita.getId());
+                errores[posiciones.get(j)] = rechazos.get(j);
+                citas[posiciones.get(j)] = null;
+            }
+        }
+
+        List<ResultadoCita> resultados = new ArrayList<>(cantidad);
+        int creadas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            resultados.add(new ResultadoCita(solicitudes.get(i), citas[i], errores[i]));
+            if (citas[i] != null) {
+                creadas++;
+            }
+        }
+        System.out.println("✅ [FACADE] Lote de citas: " + creadas + " creadas de " + cantidad);
+        return resultados;
+    }
+
     /**
      * Actualiza una cita existente
      */
@@ -82,31 +219,46 @@ public class CitaFacade {
                                Especialidad especialidad, LocalDate fecha,
                                LocalTime hora, double precio, String motivo) throws CitaException {
 
-        if (cita == null) {
-            throw new CitaException("La cita no puede ser nula");
-        }
+        Cita actual = citaRegistrada(cita);
+        String id = actual.getId();
 
         // Validar datos obligatorios
         validarDatosObligatorios(paciente, medico, fecha, hora);
 
-        // Verificar disponibilidad (excluyendo la cita actual)
-        if (!verificarDisponibilidadParaActualizacion(cita.getId(), medico, fecha, hora)) {
+        // Una cita activa reserva su nuevo turno de forma atómica; una cancelada solo se valida
+        boolean cancelada = actual.getEstado() == EstadoCita.CANCELADA;
+        if (!cancelada) {
+            if (!hospital.reservarTurno(medico, fecha, hora, id)) {
+                throw new CitaException("El médico ya tiene otra cita en ese horario");
+            }
+        } else if (!verificarDisponibilidadParaActualizacion(id, medico, fecha, hora)) {
             throw new CitaException("El médico ya tiene otra cita en ese horario");
         }
 
-        // Actualizar datos
-        cita.setPaciente(paciente);
-        cita.setMedico(medico);
-        cita.setEspecialidad(especialidad);
-        cita.setFecha(fecha);
-        cita.setHora(hora);
-        cita.setPrecio(precio);
-        cita.setMotivo(motivo);
-
-        hospital.updateCita(cita);
+        Cita actualizada = null;
+        try {
+            actualizada = modificar(id, registrada -> {
+                // La reserva de arriba depende del estado; si cambió entretanto, no vale
+                if ((registrada.getEstado() == EstadoCita.CANCELADA) != cancelada) {
+                    throw new CitaException("La cita cambió de estado mientras se actualizaba: " + id);
+                }
+                registrada.setPaciente(paciente);
+                registrada.setMedico(medico);
+                registrada.setEspecialidad(especialidad);
+                registrada.setFecha(fecha);
+                registrada.setHora(hora);
+                registrada.setPrecio(precio);
+                registrada.setMotivo(motivo);
+            });
+        } finally {
+            // Si la cita no quedó en el turno nuevo, la reserva no debe bloquearlo
+            if (actualizada == null && !cancelada) {
+                hospital.liberarTurno(medico, fecha, hora, id);
+            }
+        }
 
-        System.out.println("✅ [FACADE] Cita actualizada: " + cita.getId());
-        return cita;
+        System.out.println("✅ [FACADE] Cita actualizada: " + id);
+        return actualizada;
     }
 
     /**
@@ -130,118 +282,143 @@ public class CitaFacade {
      * Marca una cita como atendida
      */
     public Cita atenderCita(Cita cita) throws CitaException {
-        validarCitaParaCambioEstado(cita);
-
-        if (cita.getEstado() == EstadoCita.ATENDIDA) {
-            throw new CitaException("La cita ya fue atendida");
-        }
+        Cita atendida = modificar(idDe(cita), registrada -> {
+            if (registrada.getEstado() == EstadoCita.ATENDIDA) {
+                throw new CitaException("La cita ya fue atendida");
+            }
 
-        if (cita.getEstado() == EstadoCita.CANCELADA) {
-            throw new CitaException("No se puede atender una cita cancelada");
-        }
+            if (registrada.getEstado() == EstadoCita.CANCELADA) {
+                throw new CitaException("No se puede atender una cita cancelada");
+            }
 
-        cita.setEstado(EstadoCita.ATENDIDA);
-        hospital.updateCita(cita);
+            registrada.setEstado(EstadoCita.ATENDIDA);
+        });
 
-        System.out.println("✅ [FACADE] Cita atendida: " + cita.getId());
-        return cita;
+        System.out.println("✅ [FACADE] Cita atendida: " + atendida.getId());
+        return atendida;
     }
 
     /**
      * Cancela una cita programada
      */
     public Cita cancelarCita(Cita cita) throws CitaException {
-        validarCitaParaCambioEstado(cita);
+        Cita cancelada = modificar(idDe(cita), registrada -> {
+            if (registrada.getEstado() == EstadoCita.CANCELADA) {
+                throw new CitaException("La cita ya está cancelada");
+            }
 
-        if (cita.getEstado() == EstadoCita.CANCELADA) {
-            throw new CitaException("La cita ya está cancelada");
-        }
+            if (registrada.getEstado() == EstadoCita.ATENDIDA) {
+                throw new CitaException("No se puede cancelar una cita ya atendida");
+            }
 
-        if (cita.getEstado() == EstadoCita.ATENDIDA) {
-            throw new CitaException("No se puede cancelar una cita ya atendida");
-        }
+            registrada.setEstado(EstadoCita.CANCELADA);
+        });
 
-        cita.setEstado(EstadoCita.CANCELADA);
-        hospital.updateCita(cita);
-
-        System.out.println("✅ [FACADE] Cita cancelada: " + cita.getId());
-        return cita;
+        System.out.println("✅ [FACADE] Cita cancelada: " + cancelada.getId());
+        return cancelada;
     }
 
     /**
-     * Agrega diagnóstico y observaciones a una cita
+     * Cancela todas las citas programadas de un médico entre dos fechas (inclusive),
+     * por ejemplo cuando se reporta enfermo
+     *
+     * @return las citas canceladas
      */
-    public Cita agregarDiagnostico(Cita cita, String diagnostico,
-                                   String observaciones) throws CitaException {
-        if (cita == null) {
-            throw new CitaException("La cita no puede ser nula");
-        }
+    public List<Cita> cancelarCitasDeMedico(Medico medico, LocalDate desde, LocalDate hasta) throws CitaException {
+        return cambiarEstado(programadasDeMedico(medico, desde, hasta), EstadoCita.CANCELADA);
+    }
 
-        cita.setDiagnostico(diagnostico);
-        cita.setObservaciones(observaciones);
+    /**
+     * Marca como atendidas todas las citas programadas de un médico en una fecha
+     * (cierre del día)
+     *
+     * @return las citas atendidas
+     */
+    public List<Cita> atenderCitasDeMedico(Medico medico, LocalDate fecha) throws CitaException {
+        return cambiarEstado(programadasDeMedico(medico, fecha, fecha), EstadoCita.ATENDIDA);
+    }
 
-        // Si se agrega diagnóstico, marcar como atendida
-        if (cita.getEstado() == EstadoCita.PROGRAMADA) {
-            cita.setEstado(EstadoCita.ATENDIDA);
-        }
+    /**
+     * Cancela varias citas en un solo lote, con las reglas de cancelarCita. Si
+     * alguna no se puede cancelar no se cancela ninguna.
+     */
+    public List<Cita> cancelarCitas(List<Cita> citas) throws CitaException {
+        return cambiarEstado(citasRegistradas(citas), EstadoCita.CANCELADA);
+    }
 
-        hospital.updateCita(cita);
+    /**
+     * Marca varias citas como atendidas en un solo lote, con las reglas de
+     * atenderCita. Si alguna no se puede atender no se atiende ninguna.
+     */
+    public List<Cita> atenderCitas(List<Cita> citas) throws CitaException {
+        return cambiarEstado(citasRegistradas(citas), EstadoCita.ATENDIDA);
+    }
 
-        System.out.println("✅ [FACADE] Diagnóstico agregado a cita: " + cita.getId());
-        return cita;
+    /**
+     * Agrega diagnóstico y observaciones a una cita
+     */
+    public Cita agregarDiagnostico(Cita cita, String diagnostico,
+                                   String observaciones) throws CitaException {
+        Cita diagnosticada = modificar(idDe(cita), registrada -> {
+            registrada.setDiagnostico(diagnostico);
+            registrada.setObservaciones(observaciones);
+
+            // Si se agrega diagnóstico, marcar como atendida
+            if (registrada.getEstado() == EstadoCita.PROGRAMADA) {
+                registrada.setEstado(EstadoCita.ATENDIDA);
+            }
+        });
+
+        System.out.println("✅ [FACADE] Diagnóstico agregado a cita: " + diagnosticada.getId());
+        return diagnosticada;
     }
 
     // ==================== CONSULTAS ====================
 
     /**
-     * Obtiene todas las citas del sistema
+     * Obtiene las citas activas del sistema como una versión consistente que no
+     * cambia. No toma candados ni copia la lista; los cambios posteriores no la
+     * afectan, y cada cita se entrega como copia al leerla.
+     * Las citas cerradas y viejas del nivel frío no están aquí; se consultan por
+     * paciente, médico o fecha.
      */
     public List<Cita> obtenerTodasLasCitas() {
-        return hospital.getListCitas();
+        return hospital.getInstantaneaCitas();
     }
 
     /**
      * Obtiene las citas de un médico específico
      */
     public List<Cita> obtenerCitasPorMedico(Medico medico) {
-        return hospital.getListCitas().stream()
-                .filter(c -> c.getMedico() != null)
-                .filter(c -> c.getMedico().getId().equals(medico.getId()))
-                .sorted((c1, c2) -> {
-                    int fechaComp = c1.getFecha().compareTo(c2.getFecha());
-                    return fechaComp != 0 ? fechaComp : c1.getHora().compareTo(c2.getHora());
-                })
-                .collect(Collectors.toList());
+        return hospital.getCitasPorMedico(medico);
     }
 
     /**
      * Obtiene las citas de un paciente específico
      */
     public List<Cita> obtenerCitasPorPaciente(Paciente paciente) {
-        return hospital.getListCitas().stream()
-                .filter(c -> c.getPaciente() != null)
-                .filter(c -> c.getPaciente().getId().equals(paciente.getId()))
-                .sorted((c1, c2) -> c1.getFecha().compareTo(c2.getFecha()))
-                .collect(Collectors.toList());
+        return hospital.getCitasPorPaciente(paciente);
     }
 
     /**
      * Obtiene las citas de una fecha específica
      */
     public List<Cita> obtenerCitasPorFecha(LocalDate fecha) {
-        return hospital.getListCitas().stream()
-                .filter(c -> c.getFecha().equals(fecha))
-                .sorted((c1, c2) -> c1.getHora().compareTo(c2.getHora()))
-                .collect(Collectors.toList());
+        return hospital.getCitasPorFecha(fecha);
     }
 
     /**
-     * Obtiene las citas por estado
+     * Obtiene las citas entre dos fechas (inclusive), ordenadas por fecha y hora
+     */
+    public List<Cita> obtenerCitasEntreFechas(LocalDate desde, LocalDate hasta) {
+        return hospital.getCitasEntreFechas(desde, hasta);
+    }
+
+    /**
+     * Obtiene las citas activas por estado (sin las del nivel frío)
      */
     public List<Cita> obtenerCitasPorEstado(EstadoCita estado) {
-        return hospital.getListCitas().stream()
-                .filter(c -> c.getEstado() == estado)
-                .collect(Collectors.toList());
+        return hospital.getCitasPorEstado(estado);
     }
 
     /**
@@ -255,13 +432,23 @@ public class CitaFacade {
      * Obtiene las próximas citas (futuras) de un médico
      */
     public List<Cita> obtenerProximasCitasMedico(Medico medico) {
-        LocalDate hoy = LocalDate.now();
-        return obtenerCitasPorMedico(medico).stream()
-                .filter(c -> !c.getFecha().isBefore(hoy))
+        return hospital.getCitasPorMedicoDesde(medico, LocalDate.now()).stream()
                 .filter(c -> c.getEstado() == EstadoCita.PROGRAMADA)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Obtiene los primeros turnos libres de los médicos disponibles de una
+     * especialidad a partir de un momento (ahora si es null), en orden de fecha y
+     * hora. Los turnos no quedan reservados; se agendan con crearCita.
+     */
+    public List<TurnoLibre> buscarTurnosLibres(Especialidad especialidad, LocalDateTime desde, int cantidad) {
+        if (especialidad == null) {
+            return List.of();
+        }
+        return hospital.buscarTurnosLibres(especialidad, desde != null ? desde : LocalDateTime.now(), cantidad);
+    }
+
     /**
      * Busca una cita por su ID
      */
@@ -275,30 +462,162 @@ public class CitaFacade {
      * Cuenta el total de citas de un médico
      */
     public long contarCitasMedico(Medico medico) {
-        return obtenerCitasPorMedico(medico).size();
+        return hospital.contarCitasPorMedico(medico);
     }
 
     /**
      * Cuenta las citas de hoy de un médico
      */
     public long contarCitasHoyMedico(Medico medico) {
-        LocalDate hoy = LocalDate.now();
-        return obtenerCitasPorMedico(medico).stream()
-                .filter(c -> c.getFecha().equals(hoy))
-                .count();
+        return hospital.contarCitasPorMedicoEnFecha(medico, LocalDate.now());
     }
 
     /**
      * Cuenta las citas pendientes de un médico
      */
     public long contarCitasPendientesMedico(Medico medico) {
-        return obtenerCitasPorMedico(medico).stream()
-                .filter(c -> c.getEstado() == EstadoCita.PROGRAMADA)
-                .count();
+        return hospital.contarCitasPendientesPorMedico(medico);
+    }
+
+    /**
+     * Cuenta las citas que están en un estado
+     */
+    public long contarCitasPorEstado(EstadoCita estado) {
+        return hospital.contarCitasPorEstado(estado);
+    }
+
+    /**
+     * Suma los ingresos de las citas atendidas entre dos fechas (inclusive)
+     */
+    public double calcularIngresos(LocalDate desde, LocalDate hasta) {
+        return hospital.sumarPreciosEntre(desde, hasta, EstadoCita.ATENDIDA);
+    }
+
+    /**
+     * Suma los ingresos de las citas atendidas entre dos fechas (inclusive), por especialidad
+     */
+    public Map<Especialidad, Double> calcularIngresosPorEspecialidad(LocalDate desde, LocalDate hasta) {
+        return hospital.sumarPreciosPorEspecialidadEntre(desde, hasta, EstadoCita.ATENDIDA);
+    }
+
+    /**
+     * Cuenta las citas de cada estado entre dos fechas (inclusive)
+     */
+    public Map<EstadoCita, Long> contarCitasPorEstado(LocalDate desde, LocalDate hasta) {
+        return hospital.contarCitasPorEstadoEntre(desde, hasta);
     }
 
     // ==================== VALIDACIONES PRIVADAS ====================
 
+    /**
+     * Valida una solicitud de un lote y construye su cita, sin reservar el turno
+     */
+    private Cita construirCita(String id, SolicitudCita solicitud) throws CitaException {
+        validarDatosObligatorios(solicitud.paciente(), solicitud.medico(), solicitud.fecha(), solicitud.hora());
+        if (hospital.buscarCitaPorId(id) != null) {
+            throw new CitaException("Ya existe una cita con ID: " + id);
+        }
+        if (solicitud.fecha().isBefore(LocalDate.now())) {
+            throw new CitaException("No se pueden programar citas en fechas pasadas");
+        }
+        if (!solicitud.medico().isDisponible()) {
+            throw new CitaException("El médico no está disponible para atender citas");
+        }
+        try {
+            return Cita.builder(id, solicitud.paciente(), solicitud.medico(), solicitud.fecha(), solicitud.hora())
+                    .especialidad(solicitud.especialidad() != null
+                            ? solicitud.especialidad() : solicitud.medico().getEspecialidad())
+                    .precio(solicitud.precio())
+                    .motivo(solicitud.motivo())
+                    .estado(EstadoCita.PROGRAMADA)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new CitaException(e.getMessage(), e);
+        }
+    }
+
+    private List<String> programadasDeMedico(Medico medico, LocalDate desde, LocalDate hasta) throws CitaException {
+        if (medico == null) {
+            throw new CitaException("El médico es obligatorio");
+        }
+        if (desde == null || hasta == null) {
+            throw new CitaException("Las fechas son obligatorias");
+        }
+        List<String> programadas = new ArrayList<>();
+        for (Cita cita : hospital.getCitasPorMedicoEntre(medico, desde, hasta)) {
+            if (cita.getEstado() == EstadoCita.PROGRAMADA) {
+                programadas.add(cita.getId());
+            }
+        }
+        return programadas;
+    }
+
+    /**
+     * Obtiene los IDs de varias citas registradas, sin repetir
+     */
+    private List<String> citasRegistradas(List<Cita> citas) throws CitaException {
+        if (citas == null) {
+            throw new CitaException("La lista de citas no puede ser nula");
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (Cita cita : citas) {
+            ids.add(citaRegistrada(cita).getId());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Valida la transición de todas las citas y las cambia en un solo lote, con
+     * el candado del Hospital tomado
+     */
+    private List<Cita> cambiarEstado(List<String> citaIds, EstadoCita nuevo) throws CitaException {
+        List<Cita> cambiadas = hospital.modificarCitas(citaIds, registrada -> {
+            validarTransicion(registrada, nuevo);
+            registrada.setEstado(nuevo);
+        });
+
+        System.out.println("✅ [FACADE] Citas " + (nuevo == EstadoCita.CANCELADA ? "canceladas" : "atendidas")
+                + ": " + cambiadas.size());
+        return cambiadas;
+    }
+
+    /**
+     * Las mismas reglas de atenderCita y cancelarCita
+     */
+    private static void validarTransicion(Cita cita, EstadoCita nuevo) throws CitaException {
+        if (nuevo == EstadoCita.ATENDIDA) {
+            if (cita.getEstado() == EstadoCita.ATENDIDA) {
+                throw new CitaException("La cita ya fue atendida: " + cita.getId());
+            }
+            if (cita.getEstado() == EstadoCita.CANCELADA) {
+                throw new CitaException("No se puede atender una cita cancelada: " + cita.getId());
+            }
+        } else if (nuevo == EstadoCita.CANCELADA) {
+            if (cita.getEstado() == EstadoCita.CANCELADA) {
+                throw new CitaException("La cita ya está cancelada: " + cita.getId());
+            }
+            if (cita.getEstado() == EstadoCita.ATENDIDA) {
+                throw new CitaException("No se puede cancelar una cita ya atendida: " + cita.getId());
+            }
+        }
+    }
+
+    /**
+     * Indica si el Hospital tiene registrada esta misma cita, y no otra con su ID
+     */
+    private boolean quedoRegistrada(Cita cita) {
+        Cita registrada = hospital.buscarCitaPorId(cita.getId());
+        return registrada != null
+                && registrada.getClaveTiempo() == cita.getClaveTiempo()
+                && registrada.getMedico().getId().equals(cita.getMedico().getId())
+                && registrada.getPaciente().getId().equals(cita.getPaciente().getId());
+    }
+
+    private static boolean mismoTurno(Cita una, Cita otra) {
+        return una.getMedico().getId().equals(otra.getMedico().getId())
+                && Cita.momentoDe(una.getClaveTiempo()) == Cita.momentoDe(otra.getClaveTiempo());
+    }
+
     private void validarDatosObligatorios(Paciente paciente, Medico medico,
                                           LocalDate fecha, LocalTime hora) throws CitaException {
         if (paciente == null) {
@@ -315,23 +634,45 @@ public class CitaFacade {
         }
     }
 
-    private void validarCitaParaCambioEstado(Cita cita) throws CitaException {
+    /**
+     * Aplica un cambio a la cita registrada con el candado del Hospital tomado, de
+     * modo que sus validaciones ven el estado actual de la cita
+     */
+    private Cita modificar(String citaId, Hospital.CambioCita<CitaException> cambio) throws CitaException {
+        Cita modificada = hospital.modificarCita(citaId, cambio);
+        if (modificada == null) {
+            throw new CitaException("No se encontró la cita con ID: " + citaId);
+        }
+        return modificada;
+    }
+
+    private static String idDe(Cita cita) throws CitaException {
         if (cita == null) {
             throw new CitaException("La cita no puede ser nula");
         }
+        return cita.getId();
+    }
+
+    /**
+     * Obtiene una copia de la cita registrada en el Hospital. Las pantallas de
+     * listado pueden tener una versión vieja de la cita.
+     */
+    private Cita citaRegistrada(Cita cita) throws CitaException {
+        if (cita == null) {
+            throw new CitaException("La cita no puede ser nula");
+        }
+        Cita registrada = hospital.buscarCitaPorId(cita.getId());
+        if (registrada == null) {
+            throw new CitaException("No se encontró la cita con ID: " + cita.getId());
+        }
+        return registrada;
     }
 
     /**
      * Verifica si el médico está disponible en la fecha y hora indicadas
      */
     public boolean verificarDisponibilidadMedico(Medico medico, LocalDate fecha, LocalTime hora) {
-        return hospital.getListCitas().stream()
-                .filter(c -> c.getMedico().getId().equals(medico.getId()))
-                .filter(c -> c.getFecha().equals(fecha))
-                .filter(c -> c.getHora().equals(hora))
-                .filter(c -> c.getEstado() != EstadoCita.CANCELADA)
-                .findAny()
-                .isEmpty();
+        return hospital.verificarDisponibilidadMedico(medico, fecha, hora);
     }
 
     /**
@@ -339,14 +680,7 @@ public class CitaFacade {
      */
     private boolean verificarDisponibilidadParaActualizacion(String citaIdExcluir,
                                                              Medico medico, LocalDate fecha, LocalTime hora) {
-        return hospital.getListCitas().stream()
-                .filter(c -> !c.getId().equals(citaIdExcluir))
-                .filter(c -> c.getMedico().getId().equals(medico.getId()))
-                .filter(c -> c.getFecha().equals(fecha))
-                .filter(c -> c.getHora().equals(hora))
-                .filter(c -> c.getEstado() != EstadoCita.CANCELADA)
-                .findAny()
-                .isEmpty();
+        return hospital.verificarDisponibilidadMedico(medico, fecha, hora, citaIdExcluir);
     }
 
     // ==================== UTILIDADES ====================
@@ -355,8 +689,14 @@ public class CitaFacade {
      * Genera un ID único para una nueva cita
      */
     public String generarIdCita() {
-        int count = hospital.getListCitas().size();
-        return String.format("CIT%04d", count + 1);
+        return hospital.generarId(TipoSecuencia.CITA);
+    }
+
+    /**
+     * Muestra el ID que tendrá la próxima cita, sin consumirlo
+     */
+    public String verSiguienteIdCita() {
+        return hospital.verSiguienteId(TipoSecuencia.CITA);
     }
 
     /**
@@ -0,0 +1,217 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Exporta citas a CSV, con su paciente, su médico y su estado, para facturación
+ * y reportes. Incluye las citas archivadas en el nivel frío.
+ *
+ * Las citas se recorren día por día (la agenda de un médico, solo por los días
+ * en que tiene citas): el Hospital entrega copias de las de cada día con el
+ * candado de lectura y lo suelta antes de escribirlas, así que el agendamiento
+ * sigue mientras se exporta y la memoria no crece con el número de filas. Las
+ * filas se codifican directamente en un buffer que se vacía al canal del
+ * archivo. El archivo se escribe aparte y se mueve a su lugar al terminar, para
+ * que nadie lea una exportación a medias; si la exportación falla, se borra.
+ *
+ * Formato: UTF-8, separado por comas, con encabezado y el mismo entrecomillado
+ * que lee ImportadorCsv. Filas en orden de fecha y hora.
+ */
+public class ExportadorCsv {
+
+    private static final String ENCABEZADO = "id,pacienteId,pacienteDocumento,pacienteNombre,medicoId,"
+            + "medicoNombre,especialidad,fecha,hora,precio,estado,motivo,observaciones,diagnostico\n";
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    private final Hospital hospital;
+
+    // ==================== CONSTRUCTOR ====================
+
+    public ExportadorCsv() {
+        this.hospital = Hospital.getInstance();
+    }
+
+    // ==================== EXPORTACIONES ====================
+
+    /**
+     * Exporta las citas entre dos fechas (inclusive); una fecha nula deja el rango
+     * abierto por ese lado
+     *
+     * @return cuántas citas se exportaron
+     */
+    public long exportarCitas(Path archivo, LocalDate desde, LocalDate hasta) throws IOException {
+        return exportar(archivo, desde, hasta, null);
+    }
+
+    /**
+     * Exporta la agenda de un médico entre dos fechas (inclusive); una fecha nula
+     * deja el rango abierto por ese lado
+     *
+     * @return cuántas citas se exportaron
+     */
+    public long exportarAgenda(Path archivo, Medico medico, LocalDate desde, LocalDate hasta) throws IOException {
+        if (medico == null) {
+            throw new IllegalArgumentException("El médico es obligatorio");
+        }
+        return exportar(archivo, desde, hasta, medico);
+    }
+
+    private long exportar(Path archivo, LocalDate desde, LocalDate hasta, Medico medico) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        long filas = 0;
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                SalidaCanal salida = new SalidaCanal(canal);
+                salida.escribir(ENCABEZADO);
+
+                StringBuilder fila = new StringBuilder(256);
+                if (medico != null) {
+                    for (LocalDate fecha : hospital.fechasConCitas(medico, desde, hasta)) {
+                        filas += escribirDia(salida, fila, fecha, medico);
+                    }
+                } else {
+                    LocalDate fecha = hospital.siguienteFechaConCitas(desde != null ? desde : LocalDate.MIN);
+                    while (fecha != null && (hasta == null || !fecha.isAfter(hasta))) {
+                        filas += escribirDia(salida, fila, fecha, null);
+                        fecha = hospital.siguienteFechaConCitas(fecha.plusDays(1));
+                    }
+                }
+                salida.terminar();
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        System.out.println("✅ [FACADE] Exportación (" + archivo.getFileName() + "): " + filas + " citas");
+        return filas;
+    }
+
+    private long escribirDia(SalidaCanal salida, StringBuilder fila, LocalDate fecha, Medico medico)
+            throws IOException {
+        long filas = 0;
+        for (Cita cita : hospital.copiarCitasDelDia(fecha, medico)) {
+            fila.setLength(0);
+            formatear(fila, cita);
+            salida.escribir(fila);
+            filas++;
+        }
+        return filas;
+    }
+
+    // ==================== FORMATO ====================
+
+    private static void formatear(StringBuilder fila, Cita cita) {
+        Paciente paciente = cita.getPaciente();
+        Medico medico = cita.getMedico();
+        campo(fila, cita.getId()).append(',');
+        campo(fila, paciente.getId()).append(',');
+        campo(fila, paciente.getDocumento()).append(',');
+        campo(fila, paciente.getNombre()).append(',');
+        campo(fila, medico.getId()).append(',');
+        campo(fila, medico.getNombre()).append(',');
+        campo(fila, cita.getEspecialidad() != null ? cita.getEspecialidad().name() : null).append(',');
+        fila.append(cita.getFecha()).append(',');
+        fila.append(cita.getHora()).append(',');
+        fila.append(cita.getPrecio()).append(',');
+        campo(fila, cita.getEstado() != null ? cita.getEstado().name() : null).append(',');
+        campo(fila, cita.getMotivo()).append(',');
+        campo(fila, cita.getObservaciones()).append(',');
+        campo(fila, cita.getDiagnostico()).append('\n');
+    }
+
+    /**
+     * Agrega un texto, entre comillas si tiene comas, comillas o saltos de línea;
+     * null queda vacío
+     */
+    private static StringBuilder campo(StringBuilder fila, String texto) {
+        if (texto == null) {
+            return fila;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < texto.length() && !comillas; i++) {
+            char c = texto.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            return fila.append(texto);
+        }
+        fila.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                fila.append('"');
+            }
+            fila.append(c);
+        }
+        return fila.append('"');
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Codifica texto en UTF-8 sobre un buffer fijo y lo vacía al canal cuando se llena
+     */
+    private static final class SalidaCanal {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        SalidaCanal(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        /**
+         * Escribe un texto completo; no debe cortar un par sustituto entre dos llamadas
+         */
+        void escribir(CharSequence texto) throws IOException {
+            CharBuffer caracteres = CharBuffer.wrap(texto);
+            while (true) {
+                CoderResult resultado = codificador.encode(caracteres, buffer, false);
+                if (resultado.isUnderflow()) {
+                    return;
+                }
+                if (resultado.isOverflow()) {
+                    vaciar();
+                } else {
+                    resultado.throwException();
+                }
+            }
+        }
+
+        void terminar() throws IOException {
+            codificador.encode(CharBuffer.allocate(0), buffer, true);
+            while (codificador.flush(buffer).isOverflow()) {
+                vaciar();
+            }
+            vaciar();
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
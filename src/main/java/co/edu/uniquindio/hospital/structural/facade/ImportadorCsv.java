@@ -0,0 +1,524 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Importa pacientes, médicos y citas desde archivos CSV sin cargar el archivo en memoria.
+ *
+ * El archivo se lee por lotes de filas. Cada lote se convierte y se valida en un
+ * hilo del importador, en paralelo con la lectura y con los demás lotes, y luego
+ * se confirma en el Hospital en el orden del archivo, con un solo candado de
+ * escritura y una sola espera a disco por lote. Solo hay unos pocos lotes en
+ * vuelo a la vez, así que la memoria no crece con el tamaño del archivo.
+ *
+ * Formato: UTF-8, separado por comas; los campos con comas, comillas o saltos de
+ * línea van entre comillas dobles, y una comilla dentro de ellos se escribe "".
+ * La primera fila es el encabezado y se ignora. Las fechas van como AAAA-MM-DD y
+ * las horas como HH:MM. Un ID vacío se toma de la secuencia; los de cada lote se
+ * reservan de una vez.
+ *
+ * Columnas:
+ * - Pacientes: id, documento, nombre, correo, telefono, fechaNacimiento, direccion, genero
+ * - Médicos: id, documento, nombre, correo, telefono, especialidad, licencia,
+ *   disponible (vacío = sí), usuario (vacío = se sugiere uno), contrasenia (vacío = 1234)
+ * - Citas: id, pacienteId, medicoId, especialidad (vacío = la del médico), fecha,
+ *   hora, precio, motivo
+ *
+ * Las filas se validan con las mismas reglas de las pantallas de registro y de
+ * CitaFacade.crearCita: las citas quedan programadas, no pueden ser en fechas
+ * pasadas y el médico debe estar disponible y libre en ese turno. Una fila
+ * inválida se rechaza y se informa con su número de línea; las demás se importan.
+ */
+public class ImportadorCsv {
+
+    private static final int FILAS_POR_LOTE = 1000;
+    private static final String CONTRASENIA_INICIAL = "1234";
+    private static final Pattern FORMATO_CORREO =
+            Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    private final Hospital hospital;
+    private final int hilos;
+
+    // ==================== CONSTRUCTOR ====================
+
+    public ImportadorCsv() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param hilos cuántos lotes se convierten a la vez
+     */
+    public ImportadorCsv(int hilos) {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo");
+        }
+        this.hospital = Hospital.getInstance();
+        this.hilos = hilos;
+    }
+
+    // ==================== IMPORTACIONES ====================
+
+    public ResultadoImportacion importarPacientes(Path archivo) throws IOException {
+        return importar(archivo, "pacientes", 8, TipoSecuencia.PACIENTE, this::convertirPaciente,
+                this::confirmarPersonas);
+    }
+
+    public ResultadoImportacion importarMedicos(Path archivo) throws IOException {
+        return importar(archivo, "médicos", 10, TipoSecuencia.MEDICO, this::convertirMedico,
+                this::confirmarMedicos);
+    }
+
+    public ResultadoImportacion importarCitas(Path archivo) throws IOException {
+        return importar(archivo, "citas", 8, TipoSecuencia.CITA, this::convertirCita, this::confirmarCitas);
+    }
+
+    /**
+     * Lee el archivo por lotes, los convierte en paralelo y los confirma en orden
+     */
+    private <T> ResultadoImportacion importar(Path archivo, String tipo, int columnas, TipoSecuencia secuencia,
+                                              Conversor<T> conversor, Confirmacion<T> confirmacion)
+            throws IOException {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "importacion-csv");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        Deque<Future<List<Convertida<T>>>> pendientes = new ArrayDeque<>();
+        try (LectorCsv lector = new LectorCsv(archivo)) {
+            // La primera fila es el encabezado
+            lector.siguiente();
+            List<Fila> lote = new ArrayList<>(FILAS_POR_LOTE);
+            for (Fila fila = lector.siguiente(); fila != null; fila = lector.siguiente()) {
+                lote.add(fila);
+                if (lote.size() == FILAS_POR_LOTE) {
+                    List<Fila> filas = lote;
+                    pendientes.add(ejecutor.submit(() -> convertir(filas, columnas, secuencia, conversor)));
+                    lote = new ArrayList<>(FILAS_POR_LOTE);
+                    // La lectura no se adelanta más de dos lotes por hilo a las confirmaciones
+                    if (pendientes.size() >= hilos * 2) {
+                        confirmar(pendientes.poll(), confirmacion, resultado);
+                    }
+                }
+            }
+            if (!lote.isEmpty()) {
+                List<Fila> filas = lote;
+                pendientes.add(ejecutor.submit(() -> convertir(filas, columnas, secuencia, conversor)));
+            }
+            while (!pendientes.isEmpty()) {
+                confirmar(pendientes.poll(), confirmacion, resultado);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        System.out.println("✅ [FACADE] Importación de " + tipo + " (" + archivo.getFileName() + "): " + resultado);
+        return resultado;
+    }
+
+    private <T> List<Convertida<T>> convertir(List<Fila> filas, int columnas, TipoSecuencia secuencia,
+                                              Conversor<T> conversor) {
+        // Se separan primero para reservar de una vez los IDs de las filas que no lo traen
+        String[][] separadas = new String[filas.size()][];
+        String[] errores = new String[filas.size()];
+        int sinId = 0;
+        for (int i = 0; i < filas.size(); i++) {
+            try {
+                String[] campos = separar(filas.get(i).texto());
+                if (campos.length != columnas) {
+                    throw new IllegalArgumentException(
+                            "Se esperaban " + columnas + " columnas y hay " + campos.length);
+                }
+                separadas[i] = campos;
+                if (campos[0].isBlank()) {
+                    sinId++;
+                }
+            } catch (IllegalArgumentException e) {
+                errores[i] = e.getMessage();
+            }
+        }
+        Iterator<String> ids = (sinId > 0 ? hospital.reservarIds(secuencia, sinId) : List.<String>of()).iterator();
+
+        List<Convertida<T>> convertidas = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            long linea = filas.get(i).linea();
+            if (errores[i] != null) {
+                convertidas.add(new Convertida<>(linea, null, errores[i]));
+                continue;
+            }
+            String[] campos = separadas[i];
+            // El ID se toma antes de validar la fila, para que cada fila sin ID consuma el suyo
+            String id = campos[0].isBlank() ? ids.next() : campos[0].trim();
+            try {
+                convertidas.add(new Convertida<>(linea, conversor.convertir(id, campos), null));
+            } catch (IllegalArgumentException e) {
+                convertidas.add(new Convertida<>(linea, null, e.getMessage()));
+            }
+        }
+        return convertidas;
+    }
+
+    private static <T> void confirmar(Future<List<Convertida<T>>> pendiente, Confirmacion<T> confirmacion,
+                                      ResultadoImportacion resultado) throws IOException {
+        List<Convertida<T>> lote;
+        try {
+            lote = pendiente.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("La importación fue interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Falló la conversión de un lote", e.getCause());
+        }
+
+        String[] errores = new String[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            errores[i] = lote.get(i).error();
+        }
+        confirmacion.confirmar(lote, errores);
+
+        int importadas = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores[i] == null) {
+                importadas++;
+            } else {
+                resultado.registrarError(lote.get(i).linea(), errores[i]);
+            }
+        }
+        resultado.contarLeidas(lote.size());
+        resultado.contarImportadas(importadas);
+    }
+
+    // ==================== CONVERSIÓN (EN PARALELO) ====================
+
+    private Paciente convertirPaciente(String id, String[] campos) {
+        return new Paciente(
+                id,
+                obligatorio(campos[1], "el documento"),
+                obligatorio(campos[2], "el nombre"),
+                obligatorio(campos[3], "el correo"),
+                obligatorio(campos[4], "el teléfono"),
+                null,
+                fecha(obligatorio(campos[5], "la fecha de nacimiento")),
+                obligatorio(campos[6], "la dirección"),
+                obligatorio(campos[7], "el género")
+        );
+    }
+
+    private Medico convertirMedico(String id, String[] campos) {
+        String correo = obligatorio(campos[3], "el correo");
+        if (!FORMATO_CORREO.matcher(correo).matches()) {
+            throw new IllegalArgumentException("El formato del correo no es válido: " + correo);
+        }
+        String documento = obligatorio(campos[1], "el documento");
+        String nombre = obligatorio(campos[2], "el nombre");
+        String telefono = obligatorio(campos[4], "el teléfono");
+        Especialidad especialidad = especialidad(obligatorio(campos[5], "la especialidad"));
+        String licencia = obligatorio(campos[6], "la licencia médica");
+        boolean disponible = campos[7].isBlank() || siONo(campos[7]);
+        // Un usuario vacío se sugiere al confirmar, cuando se conocen los del lote
+        String usuario = campos[8].isBlank() ? null : campos[8].trim();
+        String contrasenia = campos[9].isEmpty() ? CONTRASENIA_INICIAL : campos[9];
+
+        UserAccount cuenta = new UserAccount(usuario, contrasenia, null, TipoUsuario.MEDICO);
+        Medico medico = new Medico(id, documento, nombre,
+                correo, telefono, cuenta, especialidad, licencia, disponible);
+        cuenta.setPerson(medico);
+        return medico;
+    }
+
+    private Cita convertirCita(String id, String[] campos) {
+        if (!(hospital.buscarPersonaPorId(obligatorio(campos[1], "el paciente")) instanceof Paciente paciente)) {
+            throw new IllegalArgumentException("No existe el paciente: " + campos[1].trim());
+        }
+        if (!(hospital.buscarPersonaPorId(obligatorio(campos[2], "el médico")) instanceof Medico medico)) {
+            throw new IllegalArgumentException("No existe el médico: " + campos[2].trim());
+        }
+        LocalDate fecha = fecha(obligatorio(campos[4], "la fecha"));
+        LocalTime hora = hora(obligatorio(campos[5], "la hora"));
+
+        // Las mismas reglas de CitaFacade.crearCita; el turno se reserva al confirmar
+        if (fecha.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("No se pueden programar citas en fechas pasadas");
+        }
+        if (!medico.isDisponible()) {
+            throw new IllegalArgumentException("El médico no está disponible para atender citas");
+        }
+        if (hospital.buscarCitaPorId(id) != null) {
+            throw new IllegalArgumentException("Ya existe una cita con ID: " + id);
+        }
+
+        return Cita.builder(id, paciente, medico, fecha, hora)
+                .especialidad(campos[3].isBlank() ? medico.getEspecialidad() : especialidad(campos[3]))
+                .precio(campos[6].isBlank() ? 0 : numero(campos[6]))
+                .motivo(campos[7].isBlank() ? null : campos[7].trim())
+                .estado(EstadoCita.PROGRAMADA)
+                .build();
+    }
+
+    // ==================== CONFIRMACIÓN (EN ORDEN) ====================
+
+    private <P extends Person> void confirmarPersonas(List<Convertida<P>> lote, String[] errores) {
+        List<P> personas = new ArrayList<>(lote.size());
+        List<Integer> posiciones = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (errores[i] == null) {
+                personas.add(lote.get(i).valor());
+                posiciones.add(i);
+            }
+        }
+        List<String> rechazos = hospital.agregarPersonas(personas);
+        for (int j = 0; j < rechazos.size(); j++) {
+            errores[posiciones.get(j)] = rechazos.get(j);
+        }
+    }
+
+    private void confirmarMedicos(List<Convertida<Medico>> lote, String[] errores) {
+        // Las sugerencias no se reservan, así que dos médicos del lote podrían recibir la misma
+        Set<String> usuariosDelLote = new HashSet<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Medico medico = lote.get(i).valor();
+            if (errores[i] != null || medico.getUserAccount().getUsuario() != null) {
+                continue;
+            }
+            String base = medico.getNombre().toLowerCase(Locale.ROOT).split(" ")[0];
+            String usuario = hospital.sugerirUsuario(base);
+            for (int sufijo = 1; !usuariosDelLote.add(usuario) || hospital.existeUsuario(usuario); sufijo++) {
+                usuario = base + sufijo;
+            }
+            medico.getUserAccount().setUsuario(usuario);
+        }
+        confirmarPersonas(lote, errores);
+    }
+
+    private void confirmarCitas(List<Convertida<Cita>> lote, String[] errores) {
+        // Se reserva cada turno como en CitaFacade.crearCita; las filas anteriores del
+        // mismo archivo ya tienen los suyos
+        List<Cita> citas = new ArrayList<>(lote.size());
+        List<Integer> posiciones = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Cita cita = lote.get(i).valor();
+            if (errores[i] != null) {
+                continue;
+            }
+            if (!hospital.reservarTurno(cita.getMedico(), cita.getFecha(), cita.getHora(), cita.getId())) {
+                errores[i] = "El médico no está disponible en ese horario";
+                continue;
+            }
+            citas.add(cita);
+            posiciones.add(i);
+        }
+        List<String> rechazos = null;
+        try {
+            rechazos = hospital.agregarCitas(citas);
+        } finally {
+            // Si agregarCitas falla se liberan todos; liberarTurno conserva los de las citas que sí quedaron
+            for (int j = 0; j < citas.size(); j++) {
+                if (rechazos == null || rechazos.get(j) != null) {
+                    Cita cita = citas.get(j);
+                    hospital.liberarTurno(cita.getMedico(), cita.getFecha(), cita.getHora(), cita.getId());
+                }
+            }
+        }
+        for (int j = 0; j < rechazos.size(); j++) {
+            if (rechazos.get(j) != null) {
+                errores[posiciones.get(j)] = rechazos.get(j);
+            }
+        }
+    }
+
+    // ==================== CAMPOS ====================
+
+    private static String obligatorio(String campo, String nombre) {
+        if (campo.isBlank()) {
+            throw new IllegalArgumentException("Falta " + nombre);
+        }
+        return campo.trim();
+    }
+
+    private static LocalDate fecha(String texto) {
+        try {
+            return LocalDate.parse(texto);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida: " + texto);
+        }
+    }
+
+    private static LocalTime hora(String texto) {
+        try {
+            return LocalTime.parse(texto);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Hora inválida: " + texto);
+        }
+    }
+
+    private static double numero(String texto) {
+        try {
+            return Double.parseDouble(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + texto.trim());
+        }
+    }
+
+    /**
+     * Acepta el nombre de la constante o el que se muestra, sin distinguir mayúsculas
+     */
+    private static Especialidad especialidad(String texto) {
+        String buscado = texto.trim();
+        for (Especialidad especialidad : Especialidad.values()) {
+            if (especialidad.name().equalsIgnoreCase(buscado) || especialidad.toString().equalsIgnoreCase(buscado)) {
+                return especialidad;
+            }
+        }
+        throw new IllegalArgumentException("Especialidad desconocida: " + buscado);
+    }
+
+    private static boolean siONo(String texto) {
+        return switch (texto.trim().toLowerCase(Locale.ROOT)) {
+            case "si", "sí", "true", "1" -> true;
+            case "no", "false", "0" -> false;
+            default -> throw new IllegalArgumentException("Se esperaba sí o no: " + texto.trim());
+        };
+    }
+
+    /**
+     * Separa una fila en sus campos, quitando las comillas
+     */
+    private static String[] separar(String texto) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    campo.append(c);
+                } else if (i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Hay comillas sin cerrar");
+        }
+        campos.add(campo.toString());
+        return campos.toArray(new String[0]);
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Fila sin separar
+     *
+     * @param linea línea del archivo donde empieza
+     */
+    private record Fila(long linea, String texto) { }
+
+    /**
+     * Resultado de convertir una fila: el valor, o el motivo por el que se rechazó
+     */
+    private record Convertida<T>(long linea, T valor, String error) { }
+
+    /**
+     * Lee el archivo fila por fila. Una fila con comillas abiertas continúa en la
+     * línea siguiente; las líneas en blanco se saltan.
+     */
+    private static final class LectorCsv implements Closeable {
+        private final BufferedReader lector;
+        private long linea;
+
+        LectorCsv(Path archivo) throws IOException {
+            lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+        }
+
+        Fila siguiente() throws IOException {
+            String texto;
+            do {
+                texto = lector.readLine();
+                linea++;
+                if (texto == null) {
+                    return null;
+                }
+            } while (texto.isBlank());
+
+            long inicio = linea;
+            // Al final del archivo, una fila con comillas sin cerrar se devuelve igual y se rechaza al separarla
+            String continuacion;
+            while (comillasAbiertas(texto) && (continuacion = lector.readLine()) != null) {
+                linea++;
+                texto = texto + "\n" + continuacion;
+            }
+            return new Fila(inicio, texto);
+        }
+
+        private static boolean comillasAbiertas(String texto) {
+            int comillas = 0;
+            for (int i = texto.indexOf('"'); i >= 0; i = texto.indexOf('"', i + 1)) {
+                comillas++;
+            }
+            return comillas % 2 != 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lector.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversor<T> {
+        /**
+         * @param id el de la fila o, si viene vacío, uno reservado de la secuencia
+         * @throws IllegalArgumentException si la fila no es válida
+         */
+        T convertir(String id, String[] campos);
+    }
+
+    @FunctionalInterface
+    private interface Confirmacion<T> {
+        /**
+         * Confirma en el Hospital los valores del lote sin error
+         *
+         * @param errores el error de cada fila; se completa con los rechazos de la confirmación
+         */
+        void confirmar(List<Convertida<T>> lote, String[] errores);
+    }
+}
@@ -0,0 +1,45 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.Cita;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de PlanificadorCitas: las citas propuestas, todavía sin guardar, y
+ * las solicitudes que no cupieron en su ventana
+ */
+public class PlanCitas {
+
+    private final List<Cita> citas;
+    private final List<SolicitudAgendamiento> sinAsignar;
+
+    PlanCitas(List<Cita> citas, List<SolicitudAgendamiento> sinAsignar) {
+        this.citas = Collections.unmodifiableList(citas);
+        this.sinAsignar = Collections.unmodifiableList(sinAsignar);
+    }
+
+    /**
+     * Citas propuestas, en el orden de sus solicitudes
+     */
+    public List<Cita> getCitas() {
+        return citas;
+    }
+
+    public List<SolicitudAgendamiento> getSinAsignar() {
+        return sinAsignar;
+    }
+
+    /**
+     * Las citas del plan como solicitudes para CitaFacade.crearCitas
+     */
+    public List<SolicitudCita> getSolicitudes() {
+        List<SolicitudCita> solicitudes = new ArrayList<>(citas.size());
+        for (Cita cita : citas) {
+            solicitudes.add(new SolicitudCita(cita.getId(), cita.getPaciente(), cita.getMedico(),
+                    cita.getEspecialidad(), cita.getFecha(), cita.getHora(), cita.getPrecio(), cita.getMotivo()));
+        }
+        return solicitudes;
+    }
+}
@@ -0,0 +1,299 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Planifica de una vez un lote de solicitudes de cita (por ejemplo, las recogidas
+ * durante la noche): a cada una le asigna un médico disponible de su especialidad
+ * y un turno libre dentro de su ventana preferida.
+ *
+ * Cada especialidad se planifica por separado, en paralelo en un ForkJoinPool.
+ * Dentro de una especialidad las solicitudes se atienden en orden de fin de
+ * ventana y cada una toma el turno libre más temprano de su ventana; como los
+ * turnos son instantes y las ventanas intervalos, ese orden atiende el mayor
+ * número posible de solicitudes. Entre los médicos libres en ese turno se elige
+ * el de menos citas pendientes, contando las ya asignadas en el lote, para
+ * repartir la carga.
+ *
+ * El plan no se guarda: sus citas se confirman con CitaFacade.crearCitas
+ * (PlanCitas.getSolicitudes), que vuelve a validar y a reservar cada turno.
+ */
+public class PlanificadorCitas {
+
+    // Hasta cuántos días después de hoy se planifica
+    private static final int MAXIMO_DIAS = 366;
+    private static final int TURNOS = HorarioAtencion.TURNOS_POR_DIA;
+
+    private final Hospital hospital;
+    private final ForkJoinPool pool;
+
+    // ==================== CONSTRUCTOR ====================
+
+    public PlanificadorCitas() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public PlanificadorCitas(ForkJoinPool pool) {
+        this.hospital = Hospital.getInstance();
+        this.pool = pool;
+    }
+
+    // ==================== PLANIFICACIÓN ====================
+
+    /**
+     * Asigna médico y turno a las solicitudes que quepan en su ventana. Las que
+     * no tienen paciente, especialidad o una ventana válida quedan sin asignar.
+     */
+    public PlanCitas planificar(List<SolicitudAgendamiento> solicitudes) {
+        int cantidad = solicitudes.size();
+        Asignaciones asignaciones = new Asignaciones(cantidad);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        Map<Especialidad, List<Integer>> porEspecialidad = new EnumMap<>(Especialidad.class);
+        for (int i = 0; i < cantidad; i++) {
+            SolicitudAgendamiento solicitud = solicitudes.get(i);
+            if (esValida(solicitud, ahora)) {
+                porEspecialidad.computeIfAbsent(solicitud.especialidad(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<PlanificacionEspecialidad> tareas = new ArrayList<>();
+        for (Map.Entry<Especialidad, List<Integer>> grupo : porEspecialidad.entrySet()) {
+            tareas.add(new PlanificacionEspecialidad(hospital, grupo.getKey(), grupo.getValue(), solicitudes,
+                    asignaciones, ahora));
+        }
+        pool.submit(() -> ForkJoinTask.invokeAll(tareas)).join();
+
+        // Los IDs se reservan de una vez y se asignan en el orden de las solicitudes
+        int asignadas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (asignaciones.medicos[i] != null) {
+                asignadas++;
+            }
+        }
+        Iterator<String> ids = (asignadas > 0 ? hospital.reservarIds(TipoSecuencia.CITA, asignadas)
+                : List.<String>of()).iterator();
+        List<Cita> citas = new ArrayList<>(asignadas);
+        List<SolicitudAgendamiento> sinAsignar = new ArrayList<>(cantidad - asignadas);
+        for (int i = 0; i < cantidad; i++) {
+            SolicitudAgendamiento solicitud = solicitudes.get(i);
+            Medico medico = asignaciones.medicos[i];
+            if (medico == null) {
+                sinAsignar.add(solicitud);
+                continue;
+            }
+            citas.add(Cita.builder(ids.next(), solicitud.paciente(), medico, asignaciones.fechas[i],
+                            HorarioAtencion.horaDeTurno(asignaciones.turnos[i]))
+                    .especialidad(solicitud.especialidad())
+                    .precio(solicitud.precio())
+                    .motivo(solicitud.motivo())
+                    .estado(EstadoCita.PROGRAMADA)
+                    .build());
+        }
+
+        System.out.println("✅ [FACADE] Plan de citas: " + asignadas + " asignadas de " + cantidad);
+        return new PlanCitas(citas, sinAsignar);
+    }
+
+    private static boolean esValida(SolicitudAgendamiento solicitud, LocalDateTime ahora) {
+        return solicitud != null && solicitud.paciente() != null && solicitud.especialidad() != null
+                && solicitud.desde() != null && solicitud.hasta() != null
+                && solicitud.desde().isBefore(solicitud.hasta()) && solicitud.hasta().isAfter(ahora)
+                && solicitud.precio() >= 0;
+    }
+
+    /**
+     * Médico, fecha y turno de cada solicitud; cada tarea escribe solo las posiciones
+     * de su especialidad
+     */
+    private static final class Asignaciones {
+        final Medico[] medicos;
+        final LocalDate[] fechas;
+        final int[] turnos;
+
+        Asignaciones(int cantidad) {
+            medicos = new Medico[cantidad];
+            fechas = new LocalDate[cantidad];
+            turnos = new int[cantidad];
+        }
+    }
+
+    // ==================== PLANIFICACIÓN DE UNA ESPECIALIDAD ====================
+
+    /**
+     * Planifica las solicitudes de una especialidad sobre una rejilla de turnos que
+     * cubre sus ventanas. La rejilla numera los turnos de forma continua
+     * (día * TURNOS + turno) y guarda, por turno, un mapa de bits de los médicos
+     * libres y cuántos son.
+     */
+    @SuppressWarnings("serial")
+    private static final class PlanificacionEspecialidad extends RecursiveAction {
+        private final Hospital hospital;
+        private final Especialidad especialidad;
+        private final List<Integer> indices;
+        private final List<SolicitudAgendamiento> solicitudes;
+        private final Asignaciones asignaciones;
+        private final LocalDateTime ahora;
+
+        PlanificacionEspecialidad(Hospital hospital, Especialidad especialidad, List<Integer> indices,
+                                  List<SolicitudAgendamiento> solicitudes, Asignaciones asignaciones,
+                                  LocalDateTime ahora) {
+            this.hospital = hospital;
+            this.especialidad = especialidad;
+            this.indices = indices;
+            this.solicitudes = solicitudes;
+            this.asignaciones = asignaciones;
+            this.ahora = ahora;
+        }
+
+        @Override
+        protected void compute() {
+            List<Medico> medicos = hospital.getMedicosPorEspecialidad(especialidad);
+            if (medicos.isEmpty()) {
+                return;
+            }
+
+            // Días cubiertos por las ventanas, desde hoy y hasta MAXIMO_DIAS
+            long hoy = ahora.toLocalDate().toEpochDay();
+            long primerDia = Long.MAX_VALUE;
+            long ultimoDia = Long.MIN_VALUE;
+            for (int i : indices) {
+                SolicitudAgendamiento solicitud = solicitudes.get(i);
+                primerDia = Math.min(primerDia, solicitud.desde().toLocalDate().toEpochDay());
+                ultimoDia = Math.max(ultimoDia, solicitud.hasta().toLocalDate().toEpochDay());
+            }
+            primerDia = Math.max(primerDia, hoy);
+            ultimoDia = Math.min(ultimoDia, hoy + MAXIMO_DIAS - 1);
+            if (ultimoDia < primerDia) {
+                return;
+            }
+            int dias = (int) (ultimoDia - primerDia + 1);
+            int total = dias * TURNOS;
+            int palabras = (medicos.size() + 63) >>> 6;
+            LocalDate inicio = LocalDate.ofEpochDay(primerDia);
+
+            // Los turnos que ya empezaron no se ofrecen
+            int primerTurnoUtil = turnoDesde(ahora, primerDia, total);
+            long[] libres = new long[total * palabras];
+            int[] disponibles = new int[total];
+            long[] carga = new long[medicos.size()];
+            for (int k = 0; k < medicos.size(); k++) {
+                Medico medico = medicos.get(k);
+                carga[k] = hospital.contarCitasPendientesPorMedico(medico);
+                int[] bits = hospital.getTurnosLibres(medico, inicio, dias);
+                for (int d = 0; d < dias; d++) {
+                    for (int resto = bits[d]; resto != 0; resto &= resto - 1) {
+                        int t = d * TURNOS + Integer.numberOfTrailingZeros(resto);
+                        if (t >= primerTurnoUtil) {
+                            libres[t * palabras + (k >>> 6)] |= 1L << k;
+                            disponibles[t]++;
+                        }
+                    }
+                }
+            }
+
+            // siguiente[t] apunta hacia el primer turno con algún médico libre desde t
+            int[] siguiente = new int[total + 1];
+            for (int t = 0; t < total; t++) {
+                siguiente[t] = disponibles[t] > 0 ? t : t + 1;
+            }
+            siguiente[total] = total;
+
+            // Ventanas como rangos [desde, hasta) de la rejilla, atendidas por fin de ventana
+            int cantidad = indices.size();
+            int[] desde = new int[cantidad];
+            int[] hasta = new int[cantidad];
+            Integer[] orden = new Integer[cantidad];
+            for (int j = 0; j < cantidad; j++) {
+                SolicitudAgendamiento solicitud = solicitudes.get(indices.get(j));
+                desde[j] = turnoDesde(solicitud.desde(), primerDia, total);
+                hasta[j] = turnoDesde(solicitud.hasta(), primerDia, total);
+                orden[j] = j;
+            }
+            Arrays.sort(orden, Comparator.comparingInt((Integer j) -> hasta[j]).thenComparingInt(j -> desde[j]));
+
+            for (int j : orden) {
+                if (desde[j] >= hasta[j]) {
+                    continue;
+                }
+                int t = buscar(siguiente, desde[j]);
+                if (t >= hasta[j]) {
+                    continue;
+                }
+                int k = menosCargado(libres, t * palabras, palabras, carga);
+                libres[t * palabras + (k >>> 6)] &= ~(1L << k);
+                if (--disponibles[t] == 0) {
+                    siguiente[t] = t + 1;
+                }
+                carga[k]++;
+
+                int i = indices.get(j);
+                asignaciones.medicos[i] = medicos.get(k);
+                asignaciones.fechas[i] = LocalDate.ofEpochDay(primerDia + t / TURNOS);
+                asignaciones.turnos[i] = t % TURNOS;
+            }
+        }
+    }
+
+    /**
+     * Primer turno de la rejilla que empieza en el momento indicado o después,
+     * acotado a [0, total]
+     */
+    private static int turnoDesde(LocalDateTime momento, long primerDia, int total) {
+        long dia = momento.toLocalDate().toEpochDay() - primerDia;
+        if (dia < 0) {
+            return 0;
+        }
+        LocalTime hora = momento.toLocalTime();
+        int turno = 0;
+        while (turno < TURNOS && HorarioAtencion.horaDeTurno(turno).isBefore(hora)) {
+            turno++;
+        }
+        // Si el día ya no tiene turnos, el resultado es el primero del día siguiente
+        return (int) Math.min(dia * TURNOS + turno, total);
+    }
+
+    /**
+     * Primer turno con algún médico libre desde t, acortando el camino recorrido
+     */
+    private static int buscar(int[] siguiente, int t) {
+        while (siguiente[t] != t) {
+            siguiente[t] = siguiente[siguiente[t]];
+            t = siguiente[t];
+        }
+        return t;
+    }
+
+    /**
+     * Médico libre con menos carga en el turno cuyo mapa empieza en base; a igual
+     * carga, el primero
+     */
+    private static int menosCargado(long[] libres, int base, int palabras, long[] carga) {
+        int elegido = -1;
+        for (int w = 0; w < palabras; w++) {
+            for (long resto = libres[base + w]; resto != 0; resto &= resto - 1) {
+                int k = (w << 6) + Long.numberOfTrailingZeros(resto);
+                if (elegido < 0 || carga[k] < carga[elegido]) {
+                    elegido = k;
+                }
+            }
+        }
+        return elegido;
+    }
+}
@@ -0,0 +1,14 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.Cita;
+
+/**
+ * Resultado de una solicitud de un lote: la cita creada, o el motivo por el que
+ * no se creó (el mismo mensaje que daría la CitaException de crearCita)
+ */
+public record ResultadoCita(SolicitudCita solicitud, Cita cita, String error) {
+
+    public boolean isExitosa() {
+        return cita != null;
+    }
+}
@@ -0,0 +1,77 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de una importación CSV: cuántas filas se leyeron, cuántas se
+ * importaron y por qué se rechazó cada una de las demás.
+ *
+ * Para que un archivo muy malo no llene la memoria, solo se guardan los
+ * primeros MAXIMO_ERRORES errores; el resto se cuenta.
+ */
+public class ResultadoImportacion {
+
+    public static final int MAXIMO_ERRORES = 1000;
+
+    /**
+     * Error de una fila
+     *
+     * @param linea línea del archivo donde empieza la fila (la primera es la 1)
+     */
+    public record ErrorFila(long linea, String mensaje) {
+        @Override
+        public String toString() {
+            return "Línea " + linea + ": " + mensaje;
+        }
+    }
+
+    private long leidas;
+    private long importadas;
+    private long rechazadas;
+    private final List<ErrorFila> errores = new ArrayList<>();
+
+    // Solo lo crea ImportadorCsv
+    ResultadoImportacion() {
+    }
+
+    void contarLeidas(int cantidad) {
+        leidas += cantidad;
+    }
+
+    void contarImportadas(int cantidad) {
+        importadas += cantidad;
+    }
+
+    void registrarError(long linea, String mensaje) {
+        rechazadas++;
+        if (errores.size() < MAXIMO_ERRORES) {
+            errores.add(new ErrorFila(linea, mensaje));
+        }
+    }
+
+    public long getLeidas() {
+        return leidas;
+    }
+
+    public long getImportadas() {
+        return importadas;
+    }
+
+    public long getRechazadas() {
+        return rechazadas;
+    }
+
+    /**
+     * Obtiene los errores guardados, en el orden de las filas
+     */
+    public List<ErrorFila> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+
+    @Override
+    public String toString() {
+        return "Leídas: " + leidas + ", importadas: " + importadas + ", rechazadas: " + rechazadas;
+    }
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.Especialidad;
+import co.edu.uniquindio.hospital.Paciente;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pedido de cita sin médico ni turno, para que PlanificadorCitas le asigne uno
+ *
+ * @param desde inicio de la ventana preferida (inclusive)
+ * @param hasta fin de la ventana preferida (exclusivo): el turno debe empezar antes
+ */
+public record SolicitudAgendamiento(Paciente paciente, Especialidad especialidad,
+                                    LocalDateTime desde, LocalDateTime hasta,
+                                    double precio, String motivo) {
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.Especialidad;
+import co.edu.uniquindio.hospital.Medico;
+import co.edu.uniquindio.hospital.Paciente;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Datos de una cita por crear en un lote (ver CitaFacade.crearCitas). Son los
+ * mismos parámetros de crearCita; un ID nulo o vacío se toma de la secuencia y
+ * una especialidad nula se toma del médico.
+ */
+public record SolicitudCita(String id, Paciente paciente, Medico medico, Especialidad especialidad,
+                            LocalDate fecha, LocalTime hora, double precio, String motivo) {
+}
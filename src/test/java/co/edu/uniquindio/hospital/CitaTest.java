@@ -0,0 +1,125 @@
+package co.edu.uniquindio.hospital;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ida y vuelta de la clave de tiempo: cada campo empaquetado se recupera igual,
+ * también en los extremos de su rango y sin tocar los demás campos
+ */
+class CitaTest {
+
+    private static final LocalDate PRIMER_DIA = LocalDate.ofEpochDay(Integer.MIN_VALUE);
+    private static final LocalDate ULTIMO_DIA = LocalDate.ofEpochDay(Integer.MAX_VALUE);
+    private static final LocalTime ULTIMO_SEGUNDO = LocalTime.of(23, 59, 59);
+
+    private final Paciente paciente = new Paciente("PAC001", "222", "Luis Gómez", null, null, null,
+            null, null, null);
+    private final Medico medico = new Medico("MED001", "111", "Ana Ruiz", null, null, null,
+            Especialidad.values()[0], null, true);
+
+    @Test
+    void recuperaCadaCombinacionDeLosExtremos() {
+        for (LocalDate fecha : new LocalDate[]{null, PRIMER_DIA, LocalDate.ofEpochDay(-1), LocalDate.ofEpochDay(0),
+                LocalDate.of(2024, 2, 29), ULTIMO_DIA}) {
+            for (LocalTime hora : new LocalTime[]{null, LocalTime.MIDNIGHT, LocalTime.of(12, 30, 15), ULTIMO_SEGUNDO}) {
+                for (EstadoCita estado : conNulo(EstadoCita.values())) {
+                    for (Especialidad especialidad : conNulo(Especialidad.values())) {
+                        long clave = Cita.claveTiempo(fecha, hora, estado, especialidad);
+                        String caso = fecha + " " + hora + " " + estado + " " + especialidad;
+                        assertEquals(fecha, Cita.fechaDe(clave), caso);
+                        assertEquals(hora, Cita.horaDe(clave), caso);
+                        assertEquals(estado, Cita.estadoDe(clave), caso);
+                        assertEquals(especialidad, Cita.especialidadDe(clave), caso);
+                        assertEquals(Cita.claveTiempo(fecha, hora), Cita.momentoDe(clave), caso);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void laClaveDeLaCitaCoincideConLaEmpaquetada() {
+        EstadoCita ultimoEstado = EstadoCita.values()[EstadoCita.values().length - 1];
+        Especialidad ultimaEspecialidad = Especialidad.values()[Especialidad.values().length - 1];
+        Cita cita = Cita.builder("CIT001", paciente, medico, ULTIMO_DIA, ULTIMO_SEGUNDO)
+                .estado(ultimoEstado)
+                .especialidad(ultimaEspecialidad)
+                .build();
+
+        assertEquals(Cita.claveTiempo(ULTIMO_DIA, ULTIMO_SEGUNDO, ultimoEstado, ultimaEspecialidad),
+                cita.getClaveTiempo());
+        assertEquals(ULTIMO_DIA, cita.getFecha());
+        assertEquals(ULTIMO_SEGUNDO, cita.getHora());
+        assertEquals(ultimoEstado, cita.getEstado());
+        assertEquals(ultimaEspecialidad, cita.getEspecialidad());
+    }
+
+    @Test
+    void cadaSetterCambiaSoloSuCampo() {
+        Cita cita = Cita.builder("CIT001", paciente, medico, LocalDate.of(2024, 1, 31), LocalTime.of(8, 0))
+                .estado(EstadoCita.values()[0])
+                .especialidad(Especialidad.values()[0])
+                .build();
+
+        cita.setFecha(PRIMER_DIA);
+        cita.setHora(ULTIMO_SEGUNDO);
+        assertEquals(PRIMER_DIA, cita.getFecha());
+        assertEquals(ULTIMO_SEGUNDO, cita.getHora());
+        assertEquals(EstadoCita.values()[0], cita.getEstado());
+        assertEquals(Especialidad.values()[0], cita.getEspecialidad());
+
+        cita.setEstado(null);
+        cita.setEspecialidad(null);
+        assertNull(cita.getEstado());
+        assertNull(cita.getEspecialidad());
+        assertEquals(PRIMER_DIA, cita.getFecha());
+        assertEquals(ULTIMO_SEGUNDO, cita.getHora());
+
+        cita.setFecha(null);
+        cita.setHora(null);
+        assertNull(cita.getFecha());
+        assertNull(cita.getHora());
+        assertEquals(0, cita.getClaveTiempo());
+    }
+
+    @Test
+    void elMomentoOrdenaPorFechaYHora() {
+        long[] enOrden = {
+                Cita.claveTiempo(PRIMER_DIA, ULTIMO_SEGUNDO),
+                Cita.claveTiempo(LocalDate.ofEpochDay(-1), ULTIMO_SEGUNDO),
+                Cita.claveTiempo(LocalDate.ofEpochDay(0), null),
+                Cita.claveTiempo(LocalDate.ofEpochDay(0), LocalTime.MIDNIGHT),
+                Cita.claveTiempo(LocalDate.ofEpochDay(0), LocalTime.of(0, 0, 1)),
+                Cita.claveTiempo(LocalDate.ofEpochDay(0), ULTIMO_SEGUNDO),
+                Cita.claveTiempo(LocalDate.ofEpochDay(1), LocalTime.MIDNIGHT),
+                Cita.claveTiempo(ULTIMO_DIA, ULTIMO_SEGUNDO),
+        };
+        for (int i = 1; i < enOrden.length; i++) {
+            assertTrue(enOrden[i - 1] < enOrden[i], "posición " + i);
+        }
+    }
+
+    @Test
+    void rechazaFechasFueraDelRango() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Cita.claveTiempo(PRIMER_DIA.minusDays(1), LocalTime.MIDNIGHT));
+        assertThrows(IllegalArgumentException.class,
+                () -> Cita.claveTiempo(ULTIMO_DIA.plusDays(1), LocalTime.MIDNIGHT));
+    }
+
+    private static <E> E[] conNulo(E[] valores) {
+        E[] conNulo = Arrays.copyOf(valores, valores.length + 1);
+        System.arraycopy(valores, 0, conNulo, 1, valores.length);
+        conNulo[0] = null;
+        return conNulo;
+    }
+}
@@ -0,0 +1,77 @@
+package co.edu.uniquindio.hospital;
+
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Hospital real para las pruebas de comportamiento, sobre un directorio de datos
+ * temporal.
+ *
+ * El Hospital es un singleton que lee su directorio una sola vez por JVM, así
+ * que todas las pruebas comparten la misma instancia. Cada prueba crea sus
+ * propios médicos y pacientes con IDs nuevos; las que dependen de todos los
+ * médicos de una especialidad usan una que ninguna otra prueba use.
+ */
+public final class HospitalDePrueba {
+
+    private static Hospital hospital;
+
+    private HospitalDePrueba() {
+    }
+
+    /**
+     * El Hospital de las pruebas; la primera llamada lo crea en un directorio temporal
+     */
+    public static synchronized Hospital obtener() {
+        if (hospital == null) {
+            Path directorio;
+            try {
+                directorio = Files.createTempDirectory("hospital-pruebas");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            System.setProperty("hospital.datos", directorio.toString());
+            hospital = Hospital.getInstance();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> borrar(directorio), "borrar-datos-pruebas"));
+        }
+        return hospital;
+    }
+
+    // Lo que no se pueda borrar se queda en el directorio temporal del sistema
+    private static void borrar(Path directorio) {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            rutas.sorted(Comparator.reverseOrder()).forEach(ruta -> ruta.toFile().delete());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("⚠ No se pudo borrar " + directorio + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra un médico disponible nuevo, sin cuenta de usuario
+     */
+    public static Medico nuevoMedico(Especialidad especialidad) {
+        Hospital hospital = obtener();
+        String id = hospital.generarId(TipoSecuencia.MEDICO);
+        Medico medico = new Medico(id, "D-" + id, "Médico " + id, null, null, null, especialidad, "LIC-" + id, true);
+        hospital.agregarPersona(medico);
+        return medico;
+    }
+
+    /**
+     * Registra un paciente nuevo, sin cuenta de usuario
+     */
+    public static Paciente nuevoPaciente() {
+        Hospital hospital = obtener();
+        String id = hospital.generarId(TipoSecuencia.PACIENTE);
+        Paciente paciente = new Paciente(id, "D-" + id, "Paciente " + id, null, null, null, null, null, null);
+        hospital.agregarPersona(paciente);
+        return paciente;
+    }
+}
@@ -0,0 +1,188 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ida y vuelta de las instantáneas: lo escrito con EscritorRegistros se vuelve a
+ * leer igual desde RegistrosMapeados
+ */
+class ArchivoInstantaneasTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Medico medico = new Medico("MED001", "111", "Ana Ruiz", "ana@hospital.com", "300",
+            new UserAccount("ana", "clave", null, TipoUsuario.MEDICO), Especialidad.values()[0], "LIC-1", true);
+    private final Paciente paciente = new Paciente("PAC001", "222", "Luis Gómez", null, "310", null,
+            LocalDate.of(1990, 5, 17), "Calle 1", "M");
+    private final Admin admin = new Admin("ADM001", "333", "Administrador", "admin@hospital.com", "320",
+            new UserAccount("admin", "admin", null, TipoUsuario.ADMINISTRADOR), "General");
+
+    @Test
+    void conservaLasPersonas() throws IOException {
+        RegistrosMapeados registros = escribirYAbrir(1, List.of(medico, paciente, admin), List.of());
+
+        assertEquals(1, registros.getSegmento());
+        assertEquals(3, registros.getCantidadPersonas());
+        Medico leido = assertInstanceOf(Medico.class, registros.persona(0));
+        assertEquals("MED001", leido.getId());
+        assertEquals("Ana Ruiz", leido.getNombre());
+        assertEquals(medico.getEspecialidad(), leido.getEspecialidad());
+        assertEquals("LIC-1", leido.getLicenciaMedica());
+        assertTrue(leido.isDisponible());
+        assertEquals("ana", leido.getUserAccount().getUsuario());
+        assertEquals(TipoUsuario.MEDICO, leido.getUserAccount().getTipoUsuario());
+        assertEquals(leido, leido.getUserAccount().getPerson());
+
+        Paciente pacienteLeido = assertInstanceOf(Paciente.class, registros.persona(1));
+        assertNull(pacienteLeido.getCorreo());
+        assertNull(pacienteLeido.getUserAccount());
+        assertEquals(LocalDate.of(1990, 5, 17), pacienteLeido.getFechaNacimiento());
+        assertEquals("Calle 1", pacienteLeido.getDireccion());
+
+        Admin adminLeido = assertInstanceOf(Admin.class, registros.persona(2));
+        assertEquals("General", adminLeido.getCargo());
+        assertFalse(registros.esRetirada(2));
+    }
+
+    @Test
+    void conservaLasCitasConLaHoraAlSegundo() throws IOException {
+        Cita completa = Cita.builder("CIT001", paciente, medico, LocalDate.of(2024, 2, 29), LocalTime.of(23, 59, 59))
+                .especialidad(Especialidad.values()[Especialidad.values().length - 1])
+                .precio(125000.5)
+                .motivo("Control")
+                .estado(EstadoCita.ATENDIDA)
+                .observaciones("Sin novedad")
+                .diagnostico("Sano")
+                .build();
+        Cita minima = Cita.builder("CIT002", paciente, medico, LocalDate.of(1970, 1, 1), LocalTime.MIDNIGHT)
+                .build();
+
+        RegistrosMapeados registros = escribirYAbrir(4, List.of(medico, paciente), List.of(completa, minima));
+
+        assertEquals(2, registros.getCantidadCitas());
+        Map<String, Person> personas = Map.of(medico.getId(), medico, paciente.getId(), paciente);
+        for (int i = 0; i < 2; i++) {
+            Cita escrita = List.of(completa, minima).get(i);
+            Cita leida = registros.cita(i, personas::get);
+            assertIgual(escrita, leida);
+            // Los campos fijos se leen sin decodificar la cita
+            assertEquals(escrita.getClaveTiempo(), registros.claveTiempo(i));
+            assertEquals(escrita.getId(), registros.idCita(i));
+            assertEquals(escrita.getPrecio(), registros.precioCita(i));
+        }
+    }
+
+    @Test
+    void guardaComoRetiradasLasPersonasEliminadasQueReferencianCitas() throws IOException {
+        Cita cita = Cita.builder("CIT001", paciente, medico, LocalDate.of(2024, 1, 10), LocalTime.of(8, 0)).build();
+        EscritorRegistros escritor = new EscritorRegistros();
+        escritor.agregarPersona(medico, false);
+        new ArchivoInstantaneas(directorio).escribir(2, escritor, Set.of(medico.getId()), List.of(cita));
+
+        List<Person> activas = new ArrayList<>();
+        Map<String, Person> retiradas = new HashMap<>();
+        long segmento = new ArchivoInstantaneas(directorio).cargarUltima(registros -> {
+            for (int i = 0; i < registros.getCantidadPersonas(); i++) {
+                Person person = registros.persona(i);
+                if (registros.esRetirada(i)) {
+                    retiradas.put(person.getId(), person);
+                } else {
+                    activas.add(person);
+                }
+            }
+        }, () -> { });
+
+        assertEquals(2, segmento);
+        assertEquals(List.of("MED001"), activas.stream().map(Person::getId).toList());
+        assertEquals(Set.of("PAC001"), retiradas.keySet());
+    }
+
+    @Test
+    void usaLaAnteriorSiLaUltimaEstaIncompleta() throws IOException {
+        escribir(1, List.of(medico), List.of());
+        escribir(3, List.of(medico, paciente), List.of());
+        try (FileChannel canal = FileChannel.open(directorio.resolve("instantanea-000003.snap"),
+                StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 1);
+        }
+
+        int[] reinicios = {0};
+        List<Integer> personas = new ArrayList<>();
+        long segmento = new ArchivoInstantaneas(directorio).cargarUltima(
+                registros -> personas.add(registros.getCantidadPersonas()), () -> reinicios[0]++);
+
+        assertEquals(1, segmento);
+        assertEquals(List.of(1), personas);
+        assertEquals(1, reinicios[0]);
+    }
+
+    @Test
+    void noCargaSiNingunaInstantaneaSePuedeLeer() throws IOException {
+        escribir(1, List.of(medico), List.of());
+        try (FileChannel canal = FileChannel.open(directorio.resolve("instantanea-000001.snap"),
+                StandardOpenOption.WRITE)) {
+            canal.truncate(10);
+        }
+
+        assertThrows(IOException.class,
+                () -> new ArchivoInstantaneas(directorio).cargarUltima(registros -> { }, () -> { }));
+    }
+
+    @Test
+    void sinInstantaneasSeReproduceDesdeElPrincipio() throws IOException {
+        assertEquals(0, new ArchivoInstantaneas(directorio).cargarUltima(registros -> { }, () -> { }));
+    }
+
+    private void escribir(long segmento, List<Person> personas, List<Cita> citas) throws IOException {
+        EscritorRegistros escritor = new EscritorRegistros();
+        for (Person person : personas) {
+            escritor.agregarPersona(person, false);
+        }
+        Set<String> ids = new HashSet<>();
+        personas.forEach(person -> ids.add(person.getId()));
+        new ArchivoInstantaneas(directorio).escribir(segmento, escritor, ids, citas);
+    }
+
+    private RegistrosMapeados escribirYAbrir(long segmento, List<Person> personas, List<Cita> citas)
+            throws IOException {
+        escribir(segmento, personas, citas);
+        return RegistrosMapeados.abrir(directorio.resolve(String.format("instantanea-%06d.snap", segmento)));
+    }
+
+    private static void assertIgual(Cita esperada, Cita leida) {
+        assertEquals(esperada.getId(), leida.getId());
+        assertEquals(esperada.getPaciente(), leida.getPaciente());
+        assertEquals(esperada.getMedico(), leida.getMedico());
+        assertEquals(esperada.getFecha(), leida.getFecha());
+        assertEquals(esperada.getHora(), leida.getHora());
+        assertEquals(esperada.getEstado(), leida.getEstado());
+        assertEquals(esperada.getEspecialidad(), leida.getEspecialidad());
+        assertEquals(esperada.getPrecio(), leida.getPrecio());
+        assertEquals(esperada.getMotivo(), leida.getMotivo());
+        assertEquals(esperada.getObservaciones(), leida.getObservaciones());
+        assertEquals(esperada.getDiagnostico(), leida.getDiagnostico());
+    }
+}
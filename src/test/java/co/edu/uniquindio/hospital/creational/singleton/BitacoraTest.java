@@ -0,0 +1,136 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ida y vuelta de la bitácora: lo registrado se vuelve a leer igual al abrirla de nuevo
+ */
+class BitacoraTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void reproduceLoRegistradoEnOrden() throws IOException {
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(0, contenido -> { });
+        long posicion = 0;
+        for (String texto : List.of("uno", "dos", "tres")) {
+            posicion = bitacora.registrar(bytes(texto));
+        }
+        bitacora.esperarDurable(posicion);
+        bitacora.cerrar();
+
+        assertEquals(List.of("uno", "dos", "tres"), leer(0));
+    }
+
+    @Test
+    void rechazaUnRegistroVacio() throws IOException {
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(0, contenido -> { });
+        // Al leer cortaría la reproducción, así que ni siquiera se agrega
+        assertThrows(IllegalArgumentException.class, () -> bitacora.registrar(new byte[0]));
+        bitacora.cerrar();
+    }
+
+    @Test
+    void descartaUnRegistroIncompletoAlFinal() throws IOException {
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(0, contenido -> { });
+        bitacora.esperarDurable(bitacora.registrar(bytes("completo")));
+        bitacora.cerrar();
+
+        // Un marco que anuncia más bytes de los que hay, como al cortarse la luz a mitad de escritura
+        Path segmento = directorio.resolve("bitacora-000001.log");
+        long tamanio = Files.size(segmento);
+        Files.write(segmento, new byte[]{0, 0, 0, 50, 1, 2, 3, 4, 'x'}, StandardOpenOption.APPEND);
+
+        List<String> leidos = new ArrayList<>();
+        Bitacora reabierta = new Bitacora(directorio, 0);
+        reabierta.abrir(0, contenido -> leidos.add(texto(contenido)));
+        reabierta.esperarDurable(reabierta.registrar(bytes("después")));
+        reabierta.cerrar();
+        assertEquals(List.of("completo"), leidos);
+
+        // El resto dañado se truncó, así que el registro nuevo queda legible a continuación
+        assertEquals(List.of("completo", "después"), leer(0));
+        assertEquals(tamanio + Bitacora.TAMANIO_MARCO + bytes("después").length, Files.size(segmento));
+    }
+
+    @Test
+    void leeSoloLosSegmentosDesdeElIndicado() throws IOException {
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(0, contenido -> { });
+        bitacora.registrar(bytes("antes"));
+        long segmento = bitacora.rotar();
+        bitacora.esperarDurable(bitacora.registrar(bytes("después")));
+        bitacora.cerrar();
+
+        assertEquals(List.of("antes", "después"), leer(0));
+        assertEquals(List.of("después"), leer(segmento));
+    }
+
+    @Test
+    void noAbreSiFaltaUnSegmento() throws IOException {
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(0, contenido -> { });
+        bitacora.registrar(bytes("uno"));
+        long segundo = bitacora.rotar();
+        bitacora.registrar(bytes("dos"));
+        bitacora.rotar();
+        bitacora.cerrar();
+
+        Files.delete(directorio.resolve(String.format("bitacora-%06d.log", segundo)));
+        assertThrows(IOException.class, () -> leer(0));
+        assertThrows(IOException.class, () -> leer(segundo));
+    }
+
+    @Test
+    void noAbreSiUnRegistroCompletoNoSePuedeAplicar() throws IOException {
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(0, contenido -> { });
+        bitacora.registrar(bytes("uno"));
+        bitacora.esperarDurable(bitacora.registrar(bytes("dos")));
+        bitacora.cerrar();
+        Path segmento = directorio.resolve("bitacora-000001.log");
+        long tamanio = Files.size(segmento);
+
+        Bitacora reabierta = new Bitacora(directorio, 0);
+        assertThrows(IOException.class, () -> reabierta.abrir(0, contenido -> {
+            if (texto(contenido).equals("uno")) {
+                throw new IllegalStateException("no se puede aplicar");
+            }
+        }));
+        // El segmento queda intacto para revisarlo
+        assertEquals(tamanio, Files.size(segmento));
+        assertEquals(List.of("uno", "dos"), leer(0));
+    }
+
+    private List<String> leer(long desdeSegmento) throws IOException {
+        List<String> leidos = new ArrayList<>();
+        Bitacora bitacora = new Bitacora(directorio, 0);
+        bitacora.abrir(desdeSegmento, contenido -> leidos.add(texto(contenido)));
+        bitacora.cerrar();
+        return leidos;
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String texto(byte[] contenido) {
+        return new String(contenido, StandardCharsets.UTF_8);
+    }
+}
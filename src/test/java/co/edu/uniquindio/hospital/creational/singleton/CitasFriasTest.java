@@ -0,0 +1,220 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ida y vuelta del nivel frío: una cita archivada se vuelve a leer igual por su
+ * ID, por las cadenas de paciente, médico y día, y desde un corte
+ */
+class CitasFriasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2024, 3, 10);
+
+    @TempDir
+    Path directorio;
+
+    private final Medico medico = new Medico("MED001", "111", "Ana Ruiz", null, null, null,
+            Especialidad.values()[0], null, true);
+    private final Medico otroMedico = new Medico("MED002", "112", "Juan Díaz", null, null, null,
+            Especialidad.values()[0], null, true);
+    private final Paciente paciente = new Paciente("PAC001", "222", "Luis Gómez", null, null, null,
+            null, null, null);
+
+    private CitasFrias frias;
+
+    @AfterEach
+    void cerrar() {
+        if (frias != null) {
+            frias.cerrar();
+        }
+    }
+
+    @Test
+    void recuperaLaCitaArchivadaPorSuId() {
+        frias = new CitasFrias(directorio.resolve("citas-frias.dat"));
+        Cita cita = Cita.builder("CIT001", paciente, medico, DIA, LocalTime.of(9, 30, 15))
+                .precio(80000)
+                .motivo("Control")
+                .estado(EstadoCita.ATENDIDA)
+                .observaciones("Sin novedad")
+                .diagnostico("Sano")
+                .build();
+        frias.agregar(cita);
+
+        assertTrue(frias.contiene("CIT001"));
+        assertFalse(frias.contiene("CIT002"));
+        assertNull(frias.buscar("CIT002"));
+        assertEquals(1, frias.getCantidad());
+        assertEquals(1, frias.contarPorEstado(EstadoCita.ATENDIDA));
+
+        Cita leida = frias.buscar("CIT001");
+        assertIgual(cita, leida);
+        // Paciente y médico son las mismas instancias; la cita es nueva en cada lectura
+        assertSame(paciente, leida.getPaciente());
+        assertSame(medico, leida.getMedico());
+        assertNotSame(leida, frias.buscar("CIT001"));
+    }
+
+    @Test
+    void recorreLasCadenasDePacienteMedicoYDia() {
+        frias = new CitasFrias(directorio.resolve("citas-frias.dat"));
+        frias.agregar(cita("CIT001", medico, DIA, LocalTime.of(8, 0)));
+        frias.agregar(cita("CIT002", otroMedico, DIA, LocalTime.of(9, 0)));
+        frias.agregar(cita("CIT003", medico, DIA.plusDays(2), LocalTime.of(8, 0)));
+
+        assertEquals(Set.of("CIT001", "CIT002", "CIT003"),
+                ids(frias.dePaciente("PAC001", Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals(Set.of("CIT001", "CIT003"), ids(frias.deMedico("MED001", Long.MIN_VALUE, Long.MAX_VALUE)));
+        // El rango de momentos es [desde, hasta)
+        long inicio = Cita.claveTiempo(DIA, LocalTime.of(8, 0));
+        long fin = Cita.claveTiempo(DIA.plusDays(2), LocalTime.of(8, 0));
+        assertEquals(Set.of("CIT001"), ids(frias.deMedico("MED001", inicio, fin)));
+        assertEquals(1, frias.contarDeMedico("MED001", inicio, fin));
+        assertEquals(2, frias.contarDeMedico("MED001", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, frias.contarDeMedico("MED999", Long.MIN_VALUE, Long.MAX_VALUE));
+
+        assertEquals(Set.of("CIT001", "CIT002"), ids(frias.entreDias(DIA.toEpochDay(), DIA.toEpochDay())));
+        assertEquals(Set.of("CIT001", "CIT002", "CIT003"),
+                ids(frias.entreDias(DIA.toEpochDay(), DIA.plusDays(2).toEpochDay())));
+        assertEquals(DIA.plusDays(2), frias.siguienteDia(DIA.plusDays(1).toEpochDay()));
+        assertNull(frias.siguienteDia(DIA.plusDays(3).toEpochDay()));
+    }
+
+    @Test
+    void unaCitaQuitadaDesapareceDeTodasLasConsultas() {
+        frias = new CitasFrias(directorio.resolve("citas-frias.dat"));
+        Cita cita = cita("CIT001", medico, DIA, LocalTime.of(8, 0));
+        frias.agregar(cita);
+        frias.agregar(cita("CIT002", medico, DIA, LocalTime.of(9, 0)));
+
+        assertIgual(cita, frias.quitar("CIT001"));
+        assertNull(frias.quitar("CIT001"));
+        assertFalse(frias.contiene("CIT001"));
+        assertEquals(1, frias.getCantidad());
+        assertEquals(1, frias.contarPorEstado(EstadoCita.ATENDIDA));
+        assertEquals(Set.of("CIT002"), ids(frias.deMedico("MED001", Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertEquals(Set.of("CIT002"), ids(frias.entreDias(DIA.toEpochDay(), DIA.toEpochDay())));
+    }
+
+    @Test
+    void elCorteVeLasCitasVigentesAlTomarlo() {
+        frias = new CitasFrias(directorio.resolve("citas-frias.dat"));
+        frias.agregar(cita("CIT001", medico, DIA, LocalTime.of(8, 0)));
+        frias.agregar(cita("CIT002", medico, DIA, LocalTime.of(9, 0)));
+        frias.quitar("CIT002");
+        CitasFrias.Corte corte = frias.cortar();
+
+        // Lo que pasa después del corte no cambia lo que se lee de él
+        frias.quitar("CIT001");
+        frias.agregar(cita("CIT003", medico, DIA, LocalTime.of(10, 0)));
+        frias.limpiar();
+
+        assertEquals(List.of("CIT001"), leerTodo(corte, 1).stream().map(Cita::getId).toList());
+        assertEquals(0, frias.getCantidad());
+        assertFalse(frias.contiene("CIT003"));
+    }
+
+    @Test
+    void conservaMuchasCitasEntreRegionesYAlCrecerLaTabla() {
+        frias = new CitasFrias(directorio.resolve("citas-frias.dat"));
+        // Motivos largos para llenar más de una región de 64 MB
+        String motivo = "x".repeat(40_000);
+        int cantidad = 3_000;
+        for (int i = 0; i < cantidad; i++) {
+            frias.agregar(Cita.builder(String.format("CIT%05d", i), paciente, medico,
+                            DIA.plusDays(i % 30), LocalTime.of(8, 0).plusSeconds(i))
+                    .motivo(motivo + i)
+                    .estado(EstadoCita.CANCELADA)
+                    .build());
+        }
+
+        assertEquals(cantidad, frias.getCantidad());
+        for (int i = 0; i < cantidad; i += 97) {
+            Cita leida = frias.buscar(String.format("CIT%05d", i));
+            assertEquals(motivo + i, leida.getMotivo());
+            assertEquals(LocalTime.of(8, 0).plusSeconds(i), leida.getHora());
+        }
+        assertEquals(cantidad, leerTodo(frias.cortar(), 500).size());
+        assertEquals(cantidad, frias.contarDeMedico("MED001", Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void decodificaLasCitasQueSeQuedanEnLaInstantanea() throws IOException {
+        Cita cita = Cita.builder("CIT001", paciente, medico, DIA, LocalTime.of(7, 45, 30))
+                .motivo("Control")
+                .estado(EstadoCita.ATENDIDA)
+                .diagnostico("Sano")
+                .build();
+        EscritorRegistros escritor = new EscritorRegistros();
+        escritor.agregarPersona(medico, false);
+        escritor.agregarPersona(paciente, false);
+        Path instantanea = directorio.resolve("instantanea.snap");
+        escritor.escribir(instantanea, 1, List.of(cita));
+        RegistrosMapeados registros = RegistrosMapeados.abrir(instantanea);
+
+        frias = new CitasFrias(directorio.resolve("citas-frias.dat"));
+        Map<String, Person> personas = Map.of(medico.getId(), medico, paciente.getId(), paciente);
+        frias.agregar(registros.idCita(0), registros.pacienteDeCita(0, personas::get),
+                registros.medicoDeCita(0, personas::get), registros.claveTiempo(0), registros, 0);
+
+        assertTrue(frias.contiene("CIT001"));
+        assertEquals(1, frias.contarPorEstado(EstadoCita.ATENDIDA));
+        assertIgual(cita, frias.buscar("CIT001"));
+        assertEquals(Set.of("CIT001"), ids(frias.dePaciente("PAC001", Long.MIN_VALUE, Long.MAX_VALUE)));
+        assertIgual(cita, leerTodo(frias.cortar(), 10).get(0));
+        assertIgual(cita, frias.quitar("CIT001"));
+        assertFalse(frias.contiene("CIT001"));
+    }
+
+    private Cita cita(String id, Medico medico, LocalDate fecha, LocalTime hora) {
+        return Cita.builder(id, paciente, medico, fecha, hora).estado(EstadoCita.ATENDIDA).build();
+    }
+
+    private List<Cita> leerTodo(CitasFrias.Corte corte, int porLote) {
+        List<Cita> citas = new ArrayList<>();
+        long posicion = 0;
+        while (posicion >= 0) {
+            posicion = frias.leer(corte, posicion, citas, citas.size() + porLote);
+        }
+        return citas;
+    }
+
+    private static Set<String> ids(List<Cita> citas) {
+        Set<String> ids = new HashSet<>();
+        for (Cita cita : citas) {
+            assertTrue(ids.add(cita.getId()), "repetida: " + cita.getId());
+        }
+        return ids;
+    }
+
+    private static void assertIgual(Cita esperada, Cita leida) {
+        assertEquals(esperada.getId(), leida.getId());
+        assertEquals(esperada.getPaciente().getId(), leida.getPaciente().getId());
+        assertEquals(esperada.getMedico().getId(), leida.getMedico().getId());
+        assertEquals(esperada.getClaveTiempo(), leida.getClaveTiempo());
+        assertEquals(esperada.getPrecio(), leida.getPrecio());
+        assertEquals(esperada.getMotivo(), leida.getMotivo());
+        assertEquals(esperada.getObservaciones(), leida.getObservaciones());
+        assertEquals(esperada.getDiagnostico(), leida.getDiagnostico());
+    }
+}
@@ -0,0 +1,41 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comportamiento del Hospital sobre un directorio de datos temporal
+ */
+class HospitalTest {
+
+    private final Hospital hospital = HospitalDePrueba.obtener();
+
+    @Test
+    void sugiereElPrimerSufijoLibreConservandoLaBase() {
+        String base = "Ana" + hospital.verSiguienteId(TipoSecuencia.PACIENTE);
+        assertEquals(base, hospital.sugerirUsuario(" " + base + " "));
+
+        Paciente conBase = pacienteConUsuario(base);
+        Paciente conUno = pacienteConUsuario(base + "1");
+        pacienteConUsuario(base + "2");
+        // Las mayúsculas no cuentan para saber si está libre, pero se conservan
+        assertEquals(base + "3", hospital.sugerirUsuario(base));
+        assertEquals(base.toLowerCase() + "3", hospital.sugerirUsuario(base.toLowerCase()));
+
+        // Al eliminar una cuenta su sufijo vuelve a ser el primero libre
+        hospital.eliminarPersona(conUno);
+        assertEquals(base + "1", hospital.sugerirUsuario(base));
+        hospital.eliminarPersona(conBase);
+        assertEquals(base, hospital.sugerirUsuario(base));
+    }
+
+    private Paciente pacienteConUsuario(String usuario) {
+        String id = hospital.generarId(TipoSecuencia.PACIENTE);
+        Paciente paciente = new Paciente(id, "D-" + id, "Paciente " + id, null, null,
+                new UserAccount(usuario, "clave", null, TipoUsuario.PACIENTE), null, null, null);
+        hospital.agregarPersona(paciente);
+        return paciente;
+    }
+}
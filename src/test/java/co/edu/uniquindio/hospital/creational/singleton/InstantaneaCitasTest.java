@@ -0,0 +1,56 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import co.edu.uniquindio.hospital.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Una versión publicada no cambia, ni siquiera si un lector modifica lo que leyó de ella
+ */
+class InstantaneaCitasTest {
+
+    private final Medico medico = new Medico("MED001", "111", "Ana Ruiz", null, null, null,
+            Especialidad.values()[0], null, true);
+    private final Paciente paciente = new Paciente("PAC001", "222", "Luis Gómez", null, null, null,
+            null, null, null);
+
+    @Test
+    void lasVersionesAnterioresNoVenLosCambiosNuevos() {
+        InstantaneaCitas primera = InstantaneaCitas.VACIA.con(1, cita("CIT001", EstadoCita.PROGRAMADA));
+        InstantaneaCitas segunda = primera.con(2, cita("CIT002", EstadoCita.PROGRAMADA));
+        InstantaneaCitas tercera = segunda.con(1, cita("CIT001", EstadoCita.ATENDIDA));
+
+        assertEquals(List.of("CIT001"), primera.stream().map(Cita::getId).toList());
+        assertEquals(List.of("CIT001", "CIT002"), tercera.stream().map(Cita::getId).toList());
+        assertEquals(EstadoCita.PROGRAMADA, segunda.get(0).getEstado());
+        assertEquals(EstadoCita.ATENDIDA, tercera.get(0).getEstado());
+        assertEquals(primera.getVersion() + 2, tercera.getVersion());
+    }
+
+    @Test
+    void modificarUnaCitaLeidaNoCambiaLaVersion() {
+        Cita registrada = cita("CIT001", EstadoCita.PROGRAMADA);
+        InstantaneaCitas version = InstantaneaCitas.VACIA.con(1, registrada);
+
+        version.get(0).setEstado(EstadoCita.CANCELADA);
+        version.iterator().next().setDiagnostico("Otro");
+
+        assertEquals(EstadoCita.PROGRAMADA, version.get(0).getEstado());
+        assertEquals(registrada.getDiagnostico(), version.get(0).getDiagnostico());
+        assertEquals(EstadoCita.PROGRAMADA, registrada.getEstado());
+        // El Hospital sí recorre las citas registradas sin copiarlas
+        assertSame(registrada, version.registradas().findFirst().orElseThrow());
+    }
+
+    private Cita cita(String id, EstadoCita estado) {
+        return Cita.builder(id, paciente, medico, LocalDate.of(2024, 3, 10), LocalTime.of(8, 0))
+                .estado(estado)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package co.edu.uniquindio.hospital.creational.singleton;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las secuencias no repiten números entre reinicios, ni cuando el límite no se
+ * puede guardar
+ */
+class SecuenciasIdsTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void continuaDespuesDeLoEntregadoAlReiniciar() {
+        Path archivo = directorio.resolve("secuencias.properties");
+        SecuenciasIds secuencias = new SecuenciasIds(archivo);
+        assertEquals(1, secuencias.siguiente(TipoSecuencia.CITA));
+        long primero = secuencias.reservar(TipoSecuencia.CITA, 2500);
+        assertEquals(2, primero);
+        secuencias.avanzarMasAllaDe(TipoSecuencia.PACIENTE, 41);
+        assertEquals(42, secuencias.verSiguiente(TipoSecuencia.PACIENTE));
+
+        SecuenciasIds reabiertas = new SecuenciasIds(archivo);
+        assertTrue(reabiertas.siguiente(TipoSecuencia.CITA) >= primero + 2500);
+        assertTrue(reabiertas.siguiente(TipoSecuencia.PACIENTE) >= 42);
+    }
+
+    @Test
+    void noEntregaNumerosSiNoPuedeGuardarElLimite() throws IOException {
+        // El directorio de datos es un archivo, así que el límite no se puede escribir
+        Path bloqueado = Files.createFile(directorio.resolve("bloqueado"));
+        SecuenciasIds secuencias = new SecuenciasIds(bloqueado.resolve("secuencias.properties"));
+
+        assertThrows(UncheckedIOException.class, () -> secuencias.siguiente(TipoSecuencia.CITA));
+        assertThrows(UncheckedIOException.class, () -> secuencias.reservar(TipoSecuencia.CITA, 10));
+        // Un ID que ya está en uso se sigue contando aunque su límite no se guarde
+        secuencias.avanzarMasAllaDe(TipoSecuencia.CITA, 100);
+        assertTrue(secuencias.verSiguiente(TipoSecuencia.CITA) > 100);
+        assertThrows(UncheckedIOException.class, () -> secuencias.siguiente(TipoSecuencia.CITA));
+    }
+
+    @Test
+    void noArrancaConUnLimiteInvalido() throws IOException {
+        Path archivo = directorio.resolve("secuencias.properties");
+        Files.writeString(archivo, "CITA=12x\n");
+        UncheckedIOException error = assertThrows(UncheckedIOException.class, () -> new SecuenciasIds(archivo));
+        assertTrue(error.getMessage().contains("CITA"));
+
+        Files.writeString(archivo, "CITA=0\n");
+        assertThrows(UncheckedIOException.class, () -> new SecuenciasIds(archivo));
+    }
+}
@@ -0,0 +1,299 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Agendamiento con CitaFacade sobre un Hospital real: reservas de turno,
+ * lotes y cambios de estado
+ */
+class CitaFacadeTest {
+
+    private static final LocalTime NUEVE = LocalTime.of(9, 0);
+    private static final LocalTime DIEZ = LocalTime.of(10, 0);
+
+    private final Hospital hospital = HospitalDePrueba.obtener();
+    private final CitaFacade facade = new CitaFacade();
+    private final LocalDate dia = LocalDate.now().plusDays(7);
+
+    // ==================== RESERVA DE TURNOS ====================
+
+    @Test
+    void soloUnaDeVariasSolicitudesSimultaneasObtieneElTurno() throws Exception {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        int hilos = 16;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> intentos = new ArrayList<>();
+        try {
+            for (int i = 0; i < hilos; i++) {
+                String id = facade.generarIdCita();
+                intentos.add(ejecutor.submit(() -> {
+                    salida.await();
+                    try {
+                        facade.crearCita(id, paciente, medico, null, dia, NUEVE, 1000, "Control");
+                        return true;
+                    } catch (CitaException e) {
+                        return false;
+                    }
+                }));
+            }
+            salida.countDown();
+            int creadas = 0;
+            for (Future<Boolean> intento : intentos) {
+                creadas += intento.get() ? 1 : 0;
+            }
+            assertEquals(1, creadas);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        assertEquals(1, hospital.getCitasPorMedicoEnFecha(medico, dia).size());
+        assertFalse(hospital.verificarDisponibilidadMedico(medico, dia, NUEVE));
+    }
+
+    @Test
+    void unTurnoOcupadoSeRechazaYUnoCanceladoSeLibera() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita primera = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+
+        CitaException error = assertThrows(CitaException.class, () ->
+                facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control"));
+        assertEquals("El médico no está disponible en ese horario", error.getMessage());
+
+        facade.cancelarCita(primera);
+        assertTrue(hospital.verificarDisponibilidadMedico(medico, dia, NUEVE));
+        facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+        assertFalse(hospital.verificarDisponibilidadMedico(medico, dia, NUEVE));
+    }
+
+    @Test
+    void moverUnaCitaLiberaSuTurnoAnterior() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita cita = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+
+        Cita movida = facade.actualizarCita(cita, paciente, medico, null, dia, DIEZ, 1000, "Control");
+        assertEquals(DIEZ, movida.getHora());
+        assertTrue(hospital.verificarDisponibilidadMedico(medico, dia, NUEVE));
+        assertFalse(hospital.verificarDisponibilidadMedico(medico, dia, DIEZ));
+
+        facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+        assertThrows(CitaException.class, () ->
+                facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, DIEZ, 1000, "Control"));
+    }
+
+    // ==================== LOTES ====================
+
+    @Test
+    void crearCitasDaUnResultadoPorSolicitudEnSuOrden() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Medico otro = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+        String repetido = facade.generarIdCita();
+
+        List<SolicitudCita> solicitudes = List.of(
+                solicitud(null, paciente, medico, dia, DIEZ),
+                solicitud(repetido, paciente, otro, dia, NUEVE),
+                solicitud(repetido, paciente, otro, dia, LocalTime.of(11, 0)),
+                solicitud("", paciente, otro, dia, DIEZ),
+                solicitud(null, paciente, otro, dia, DIEZ),
+                solicitud(null, paciente, medico, dia, NUEVE),
+                solicitud(null, paciente, medico, LocalDate.now().minusDays(1), NUEVE),
+                solicitud(null, null, medico, dia, LocalTime.of(12, 0)));
+        List<ResultadoCita> resultados = facade.crearCitas(solicitudes);
+
+        assertEquals(solicitudes.size(), resultados.size());
+        for (int i = 0; i < resultados.size(); i++) {
+            assertEquals(solicitudes.get(i), resultados.get(i).solicitud());
+        }
+        assertEquals(List.of(true, true, false, true, false, false, false, false),
+                resultados.stream().map(ResultadoCita::isExitosa).toList());
+        assertEquals("El ID está repetido en el lote: " + repetido, resultados.get(2).error());
+        assertTrue(resultados.get(4).error().contains(resultados.get(3).cita().getId()));
+        assertEquals("El médico no está disponible en ese horario", resultados.get(5).error());
+        assertEquals("No se pueden programar citas en fechas pasadas", resultados.get(6).error());
+
+        // Las creadas quedan registradas con los IDs generados; las rechazadas no retienen turnos
+        assertEquals(repetido, resultados.get(1).cita().getId());
+        for (int i : new int[]{0, 1, 3}) {
+            Cita creada = resultados.get(i).cita();
+            assertEquals(EstadoCita.PROGRAMADA, hospital.buscarCitaPorId(creada.getId()).getEstado());
+        }
+        assertEquals(2, hospital.getCitasPorMedicoEnFecha(medico, dia).size());
+        assertEquals(2, hospital.getCitasPorMedicoEnFecha(otro, dia).size());
+        assertTrue(hospital.verificarDisponibilidadMedico(otro, dia, LocalTime.of(11, 0)));
+        assertTrue(hospital.verificarDisponibilidadMedico(medico, dia, LocalTime.of(12, 0)));
+    }
+
+    @Test
+    void dosLotesSimultaneosNoReservanElMismoTurno() throws Exception {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        List<SolicitudCita> lote = new ArrayList<>();
+        for (LocalTime hora : HorarioAtencion.getTurnos()) {
+            lote.add(solicitud(null, paciente, medico, dia, hora));
+        }
+        ExecutorService ejecutor = Executors.newFixedThreadPool(4);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<List<ResultadoCita>>> lotes = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                lotes.add(ejecutor.submit(() -> {
+                    salida.await();
+                    return facade.crearCitas(lote);
+                }));
+            }
+            salida.countDown();
+            long creadas = 0;
+            for (Future<List<ResultadoCita>> resultado : lotes) {
+                creadas += resultado.get().stream().filter(ResultadoCita::isExitosa).count();
+            }
+            assertEquals(HorarioAtencion.TURNOS_POR_DIA, creadas);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        assertEquals(HorarioAtencion.TURNOS_POR_DIA, hospital.getCitasPorMedicoEnFecha(medico, dia).size());
+    }
+
+    // ==================== CAMBIOS DE ESTADO EN LOTE ====================
+
+    @Test
+    void cancelarCitasDeMedicoSoloTocaSusProgramadasDelRango() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Medico otro = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita atendida = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+        facade.atenderCita(atendida);
+        Cita programada = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, DIEZ, 1000, "Control");
+        Cita siguienteDia = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia.plusDays(1), NUEVE,
+                1000, "Control");
+        Cita fueraDelRango = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia.plusDays(2), NUEVE,
+                1000, "Control");
+        Cita deOtro = facade.crearCita(facade.generarIdCita(), paciente, otro, null, dia, NUEVE, 1000, "Control");
+
+        List<Cita> canceladas = facade.cancelarCitasDeMedico(medico, dia, dia.plusDays(1));
+
+        assertEquals(List.of(programada.getId(), siguienteDia.getId()), canceladas.stream().map(Cita::getId).toList());
+        assertEquals(EstadoCita.ATENDIDA, estado(atendida));
+        assertEquals(EstadoCita.CANCELADA, estado(programada));
+        assertEquals(EstadoCita.CANCELADA, estado(siguienteDia));
+        assertEquals(EstadoCita.PROGRAMADA, estado(fueraDelRango));
+        assertEquals(EstadoCita.PROGRAMADA, estado(deOtro));
+        // Los turnos cancelados quedan libres
+        assertTrue(hospital.verificarDisponibilidadMedico(medico, dia, DIEZ));
+        assertTrue(hospital.verificarDisponibilidadMedico(medico, dia.plusDays(1), NUEVE));
+        assertFalse(hospital.verificarDisponibilidadMedico(medico, dia.plusDays(2), NUEVE));
+    }
+
+    @Test
+    void atenderCitasDeMedicoCierraSoloEseDia() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita cancelada = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+        facade.cancelarCita(cancelada);
+        Cita programada = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, DIEZ, 1000, "Control");
+        Cita otroDia = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia.plusDays(1), DIEZ,
+                1000, "Control");
+
+        List<Cita> atendidas = facade.atenderCitasDeMedico(medico, dia);
+
+        assertEquals(List.of(programada.getId()), atendidas.stream().map(Cita::getId).toList());
+        assertEquals(EstadoCita.ATENDIDA, atendidas.get(0).getEstado());
+        assertEquals(EstadoCita.CANCELADA, estado(cancelada));
+        assertEquals(EstadoCita.ATENDIDA, estado(programada));
+        assertEquals(EstadoCita.PROGRAMADA, estado(otroDia));
+        assertEquals(List.of(), facade.atenderCitasDeMedico(medico, dia));
+    }
+
+    @Test
+    void unLoteConUnaCitaInvalidaNoCambiaNinguna() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita primera = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, NUEVE, 1000, "Control");
+        Cita atendida = facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, DIEZ, 1000, "Control");
+        facade.atenderCita(atendida);
+        long version = hospital.getInstantaneaCitas().getVersion();
+
+        CitaException error = assertThrows(CitaException.class, () -> facade.cancelarCitas(List.of(primera, atendida)));
+        assertEquals("No se puede cancelar una cita ya atendida: " + atendida.getId(), error.getMessage());
+        assertEquals(EstadoCita.PROGRAMADA, estado(primera));
+        assertFalse(hospital.verificarDisponibilidadMedico(medico, dia, NUEVE));
+        assertEquals(version, hospital.getInstantaneaCitas().getVersion());
+
+        // Repetir una cita en la lista no la cambia dos veces
+        List<Cita> canceladas = facade.cancelarCitas(List.of(primera, primera));
+        assertEquals(1, canceladas.size());
+        assertEquals(EstadoCita.CANCELADA, estado(primera));
+        assertThrows(CitaException.class, () -> facade.atenderCitas(List.of(primera)));
+    }
+
+    // ==================== TURNOS LIBRES ====================
+
+    @Test
+    void losTurnosLibresDeLaEspecialidadSalenEnOrdenDeFechaYHora() throws CitaException {
+        // Ninguna otra prueba usa esta especialidad, así que sus médicos son solo estos
+        Medico primero = HospitalDePrueba.nuevoMedico(Especialidad.NEUROLOGIA);
+        Medico segundo = HospitalDePrueba.nuevoMedico(Especialidad.NEUROLOGIA);
+        String idInactivo = hospital.generarId(TipoSecuencia.MEDICO);
+        hospital.agregarPersona(new Medico(idInactivo, "D-" + idInactivo, "Médico " + idInactivo, null, null, null,
+                Especialidad.NEUROLOGIA, null, false));
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        LocalTime ocho = LocalTime.of(8, 0);
+        LocalTime ochoYMedia = LocalTime.of(8, 30);
+        facade.crearCita(facade.generarIdCita(), paciente, primero, null, dia, ocho, 1000, "Control");
+        facade.crearCita(facade.generarIdCita(), paciente, primero, null, dia, ochoYMedia, 1000, "Control");
+        facade.crearCita(facade.generarIdCita(), paciente, segundo, null, dia, ocho, 1000, "Control");
+        // Un turno reservado por un agendamiento en curso tampoco está libre
+        assertTrue(hospital.reservarTurno(segundo, dia, NUEVE, "EN-CURSO"));
+
+        try {
+            List<TurnoLibre> turnos = facade.buscarTurnosLibres(Especialidad.NEUROLOGIA, dia.atStartOfDay(), 4);
+            assertEquals(List.of(
+                    new TurnoLibre(segundo, dia, ochoYMedia),
+                    new TurnoLibre(primero, dia, NUEVE),
+                    new TurnoLibre(primero, dia, LocalTime.of(9, 30)),
+                    new TurnoLibre(segundo, dia, LocalTime.of(9, 30))), turnos);
+
+            // Desde media tarde, al acabarse el día se sigue con el siguiente
+            List<TurnoLibre> tarde = facade.buscarTurnosLibres(Especialidad.NEUROLOGIA, dia.atTime(17, 15), 3);
+            assertEquals(List.of(
+                    new TurnoLibre(primero, dia, LocalTime.of(17, 30)),
+                    new TurnoLibre(segundo, dia, LocalTime.of(17, 30)),
+                    new TurnoLibre(primero, dia.plusDays(1), ocho)), tarde);
+        } finally {
+            hospital.liberarTurno(segundo, dia, NUEVE, "EN-CURSO");
+        }
+        // Liberado el turno, vuelve a ofrecerse; a igual turno va primero el ID menor
+        assertEquals(List.of(new TurnoLibre(primero, dia, NUEVE), new TurnoLibre(segundo, dia, NUEVE)),
+                facade.buscarTurnosLibres(Especialidad.NEUROLOGIA, dia.atTime(9, 0), 2));
+        assertEquals(List.of(), facade.buscarTurnosLibres(Especialidad.NEUROLOGIA, dia.atStartOfDay(), 0));
+    }
+
+    private EstadoCita estado(Cita cita) {
+        return hospital.buscarCitaPorId(cita.getId()).getEstado();
+    }
+
+    private static SolicitudCita solicitud(String id, Paciente paciente, Medico medico, LocalDate fecha,
+                                           LocalTime hora) {
+        return new SolicitudCita(id, paciente, medico, null, fecha, hora, 1000, "Control");
+    }
+}
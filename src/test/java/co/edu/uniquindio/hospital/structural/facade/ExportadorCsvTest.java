@@ -0,0 +1,117 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Exportación CSV sobre un Hospital real. Las citas van en días que ninguna
+ * otra prueba usa, así que un rango cerrado solo contiene las de cada prueba;
+ * la del rango va en los últimos días, para que también uno abierto termine en
+ * las suyas.
+ */
+class ExportadorCsvTest {
+
+    private static final String ENCABEZADO = "id,pacienteId,pacienteDocumento,pacienteNombre,medicoId,"
+            + "medicoNombre,especialidad,fecha,hora,precio,estado,motivo,observaciones,diagnostico";
+    private static final LocalTime NUEVE = LocalTime.of(9, 0);
+    private static final LocalTime DIEZ = LocalTime.of(10, 0);
+
+    @TempDir
+    Path directorio;
+
+    private final Hospital hospital = HospitalDePrueba.obtener();
+    private final CitaFacade facade = new CitaFacade();
+    private final ExportadorCsv exportador = new ExportadorCsv();
+
+    @Test
+    void exportaSoloElRangoEnOrdenDeFechaYHora() throws Exception {
+        LocalDate dia = LocalDate.now().plusDays(330);
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita antes = crear(paciente, medico, dia.minusDays(1), NUEVE);
+        Cita tarde = crear(paciente, medico, dia, DIEZ);
+        Cita temprano = crear(paciente, medico, dia, NUEVE);
+        Cita ultimoDia = crear(paciente, medico, dia.plusDays(1), NUEVE);
+        Cita despues = crear(paciente, medico, dia.plusDays(2), NUEVE);
+        facade.cancelarCita(tarde);
+
+        Path archivo = directorio.resolve("citas.csv");
+        assertEquals(3, exportador.exportarCitas(archivo, dia, dia.plusDays(1)));
+        assertEquals(List.of(temprano.getId(), tarde.getId(), ultimoDia.getId()), ids(archivo));
+        assertEquals("CANCELADA", leer(archivo).get(2).split(",")[10]);
+
+        // Un rango abierto por un lado llega hasta la última o desde la primera
+        exportador.exportarCitas(archivo, dia.plusDays(1), null);
+        assertEquals(List.of(ultimoDia.getId(), despues.getId()), ids(archivo));
+        exportador.exportarCitas(archivo, null, dia.minusDays(1));
+        List<String> hastaAntes = ids(archivo);
+        assertEquals(antes.getId(), hastaAntes.get(hastaAntes.size() - 1));
+        assertFalse(Files.exists(directorio.resolve("citas.csv.tmp")));
+    }
+
+    @Test
+    void laAgendaSoloTieneLasCitasDelMedico() throws Exception {
+        LocalDate dia = LocalDate.now().plusDays(310);
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Medico otro = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        Cita primera = crear(paciente, medico, dia, DIEZ);
+        crear(paciente, otro, dia, NUEVE);
+        Cita segunda = crear(paciente, medico, dia.plusDays(3), NUEVE);
+        crear(paciente, otro, dia.plusDays(3), DIEZ);
+
+        Path archivo = directorio.resolve("agenda.csv");
+        assertEquals(2, exportador.exportarAgenda(archivo, medico, null, null));
+        assertEquals(List.of(primera.getId(), segunda.getId()), ids(archivo));
+        assertEquals(1, exportador.exportarAgenda(archivo, medico, dia.plusDays(1), null));
+        assertEquals(List.of(segunda.getId()), ids(archivo));
+    }
+
+    @Test
+    void entrecomillaLosCamposQueLoNecesitan() throws Exception {
+        LocalDate dia = LocalDate.now().plusDays(300);
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        String id = hospital.generarId(TipoSecuencia.PACIENTE);
+        Paciente paciente = new Paciente(id, "D-" + id, "Pérez, \"Lucho\"", null, null, null, null, null, null);
+        hospital.agregarPersona(paciente);
+        Cita cita = facade.crearCita(facade.generarIdCita(), paciente, medico, Especialidad.MEDICINA_GENERAL,
+                dia, NUEVE, 1500.5, "Dolor\nfiebre");
+
+        Path archivo = directorio.resolve("comillas.csv");
+        exportador.exportarAgenda(archivo, medico, dia, dia);
+
+        String esperado = ENCABEZADO + "\n"
+                + cita.getId() + "," + id + ",D-" + id + ",\"Pérez, \"\"Lucho\"\"\"," + medico.getId() + ","
+                + medico.getNombre() + ",MEDICINA_GENERAL," + dia + ",09:00,1500.5,PROGRAMADA,"
+                + "\"Dolor\nfiebre\",,\n";
+        assertEquals(esperado, Files.readString(archivo, StandardCharsets.UTF_8));
+    }
+
+    private Cita crear(Paciente paciente, Medico medico, LocalDate fecha, LocalTime hora) throws CitaException {
+        return facade.crearCita(facade.generarIdCita(), paciente, medico, null, fecha, hora, 1000, "Control");
+    }
+
+    private static List<String> leer(Path archivo) throws IOException {
+        List<String> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+        assertEquals(ENCABEZADO, lineas.get(0));
+        return lineas;
+    }
+
+    private static List<String> ids(Path archivo) throws IOException {
+        return leer(archivo).stream().skip(1).map(linea -> linea.split(",")[0]).toList();
+    }
+}
@@ -0,0 +1,136 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import co.edu.uniquindio.hospital.creational.singleton.TipoSecuencia;
+import co.edu.uniquindio.hospital.structural.facade.ResultadoImportacion.ErrorFila;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Importación CSV sobre un Hospital real: cada fila inválida se informa con su
+ * línea y no impide importar las demás
+ */
+class ImportadorCsvTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Hospital hospital = HospitalDePrueba.obtener();
+    private final LocalDate dia = LocalDate.now().plusDays(7);
+
+    @Test
+    void rechazaCadaPacienteInvalidoConSuLinea() throws IOException {
+        String id = hospital.generarId(TipoSecuencia.PACIENTE);
+        Path archivo = escribir("pacientes.csv",
+                "id,documento,nombre,correo,telefono,fechaNacimiento,direccion,genero",
+                id + ",D-" + id + ",Ana,ana@correo.com,300,1990-01-01,\"Calle 1, apto 2\",F",
+                ",E-" + id + ",\"Luis \"\"Lucho\"\" Pérez\",luis@correo.com,301,1991-02-02,\"Carrera 5",
+                "piso 2\",M",
+                "",
+                id + ",F-" + id + ",Repetido,rep@correo.com,302,1990-01-01,Calle 3,F",
+                ",G-" + id + ",,sin@correo.com,303,1990-01-01,Calle 4,F",
+                ",H-" + id + ",Eva,eva@correo.com,304,1990-13-01,Calle 5,F",
+                ",I-" + id + ",Solo,cuatro",
+                ",J-" + id + ",\"Sin cerrar,x@correo.com,305,1990-01-01,Calle 6,F");
+
+        ResultadoImportacion resultado = new ImportadorCsv().importarPacientes(archivo);
+
+        assertEquals(7, resultado.getLeidas());
+        assertEquals(2, resultado.getImportadas());
+        assertEquals(5, resultado.getRechazadas());
+        assertEquals(List.of(
+                new ErrorFila(6, "Ya existe una persona con ID: " + id),
+                new ErrorFila(7, "Falta el nombre"),
+                new ErrorFila(8, "Fecha inválida: 1990-13-01"),
+                new ErrorFila(9, "Se esperaban 8 columnas y hay 4"),
+                new ErrorFila(10, "Hay comillas sin cerrar")), resultado.getErrores());
+
+        Paciente ana = assertInstanceOf(Paciente.class, hospital.buscarPersonaPorId(id));
+        assertEquals("Calle 1, apto 2", ana.getDireccion());
+        Paciente luis = hospital.getTodosPacientes().stream()
+                .filter(paciente -> paciente.getDocumento().equals("E-" + id))
+                .findFirst().orElseThrow();
+        assertEquals("Luis \"Lucho\" Pérez", luis.getNombre());
+        assertEquals("Carrera 5\npiso 2", luis.getDireccion());
+    }
+
+    @Test
+    void rechazaCadaCitaInvalidaYReservaLosTurnosEnElOrdenDelArchivo() throws IOException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.MEDICINA_GENERAL);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        String p = paciente.getId();
+        String m = medico.getId();
+        Path archivo = escribir("citas.csv",
+                "id,pacienteId,medicoId,especialidad,fecha,hora,precio,motivo",
+                "," + p + "," + m + ",," + dia + ",09:00,1000,Control",
+                "," + p + "," + m + ",," + dia + ",09:00,1000,Otra",
+                ",NADIE," + m + ",," + dia + ",10:00,,",
+                "," + p + "," + m + ",," + LocalDate.now().minusDays(1) + ",10:00,,",
+                "," + p + "," + m + ",Astrología," + dia + ",10:00,,",
+                "," + p + "," + m + ",," + dia + ",10:00,abc,",
+                "," + p + "," + m + ",," + dia + ",10:00,1500.5,\"Dolor, fiebre\"");
+
+        ResultadoImportacion resultado = new ImportadorCsv().importarCitas(archivo);
+
+        assertEquals(7, resultado.getLeidas());
+        assertEquals(2, resultado.getImportadas());
+        assertEquals(List.of(
+                new ErrorFila(3, "El médico no está disponible en ese horario"),
+                new ErrorFila(4, "No existe el paciente: NADIE"),
+                new ErrorFila(5, "No se pueden programar citas en fechas pasadas"),
+                new ErrorFila(6, "Especialidad desconocida: Astrología"),
+                new ErrorFila(7, "Número inválido: abc")), resultado.getErrores());
+
+        List<Cita> citas = hospital.getCitasPorMedicoEnFecha(medico, dia);
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(10, 0)),
+                citas.stream().map(Cita::getHora).sorted().toList());
+        Cita segunda = citas.stream().filter(cita -> cita.getHora().equals(LocalTime.of(10, 0)))
+                .findFirst().orElseThrow();
+        assertEquals("Dolor, fiebre", segunda.getMotivo());
+        assertEquals(1500.5, segunda.getPrecio());
+        assertEquals(Especialidad.MEDICINA_GENERAL, segunda.getEspecialidad());
+        assertEquals(EstadoCita.PROGRAMADA, segunda.getEstado());
+    }
+
+    @Test
+    void losLotesParalelosSeConfirmanEnElOrdenDelArchivo() throws IOException {
+        // Más de dos lotes, convertidos por varios hilos; la fila repetida pierde
+        // aunque su lote se haya convertido antes que el de la original
+        String id = hospital.generarId(TipoSecuencia.PACIENTE);
+        List<String> lineas = new ArrayList<>();
+        lineas.add("id,documento,nombre,correo,telefono,fechaNacimiento,direccion,genero");
+        for (int i = 0; i < 2500; i++) {
+            String filaId = i == 100 || i == 2400 ? id : "";
+            lineas.add(filaId + ",L-" + id + "-" + i + ",Paciente " + i + ",p" + i + "@correo.com,300,1990-01-01,Calle,F");
+        }
+        Path archivo = escribir("muchos.csv", lineas.toArray(new String[0]));
+
+        ResultadoImportacion resultado = new ImportadorCsv(4).importarPacientes(archivo);
+
+        assertEquals(2500, resultado.getLeidas());
+        assertEquals(2499, resultado.getImportadas());
+        assertEquals(List.of(new ErrorFila(2402, "Ya existe una persona con ID: " + id)), resultado.getErrores());
+        assertEquals("L-" + id + "-100", hospital.buscarPersonaPorId(id).getDocumento());
+        assertNull(hospital.getTodosPacientes().stream()
+                .filter(paciente -> paciente.getDocumento().equals("L-" + id + "-2400"))
+                .findFirst().orElse(null));
+    }
+
+    private Path escribir(String nombre, String... lineas) throws IOException {
+        return Files.write(directorio.resolve(nombre), List.of(lineas), StandardCharsets.UTF_8);
+    }
+}
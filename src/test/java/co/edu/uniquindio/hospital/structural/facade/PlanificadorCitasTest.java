@@ -0,0 +1,113 @@
+package co.edu.uniquindio.hospital.structural.facade;
+
+import co.edu.uniquindio.hospital.*;
+import co.edu.uniquindio.hospital.creational.singleton.Hospital;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Planificación de lotes sobre un Hospital real. Cada prueba usa una especialidad
+ * que ninguna otra prueba usa, así que sus médicos son solo los que crea.
+ */
+class PlanificadorCitasTest {
+
+    private final Hospital hospital = HospitalDePrueba.obtener();
+    private final CitaFacade facade = new CitaFacade();
+    private final PlanificadorCitas planificador = new PlanificadorCitas();
+    private final LocalDate dia = LocalDate.now().plusDays(7);
+
+    @Test
+    void atiendePrimeroLasVentanasQueTerminanAntes() throws CitaException {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.OFTALMOLOGIA);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        facade.crearCita(facade.generarIdCita(), paciente, medico, null, dia, hora(9, 0).toLocalTime(), 1000, "Control");
+
+        SolicitudAgendamiento amplia = solicitud(paciente, Especialidad.OFTALMOLOGIA, hora(8, 0), hora(9, 0));
+        SolicitudAgendamiento estrecha = solicitud(paciente, Especialidad.OFTALMOLOGIA, hora(8, 0), hora(8, 30));
+        SolicitudAgendamiento sinLugar = solicitud(paciente, Especialidad.OFTALMOLOGIA, hora(8, 0), hora(8, 30));
+        SolicitudAgendamiento trasLaOcupada = solicitud(paciente, Especialidad.OFTALMOLOGIA, hora(9, 0), hora(10, 0));
+        SolicitudAgendamiento invertida = solicitud(paciente, Especialidad.OFTALMOLOGIA, hora(10, 0), hora(9, 0));
+        SolicitudAgendamiento sinMedicos = solicitud(paciente, Especialidad.PEDIATRIA, hora(8, 0), hora(9, 0));
+        PlanCitas plan = planificador.planificar(
+                List.of(amplia, estrecha, sinLugar, trasLaOcupada, invertida, sinMedicos));
+
+        // Atender en el orden de la lista daría 8:00 a la amplia y dejaría sin turno a la estrecha
+        List<Cita> citas = plan.getCitas();
+        assertEquals(3, citas.size());
+        assertEquals(hora(8, 30), momento(citas.get(0)));
+        assertEquals(hora(8, 0), momento(citas.get(1)));
+        assertEquals(hora(9, 30), momento(citas.get(2)));
+        for (Cita cita : citas) {
+            assertSame(medico, cita.getMedico());
+            assertEquals(EstadoCita.PROGRAMADA, cita.getEstado());
+        }
+        assertEquals(List.of(sinLugar, invertida, sinMedicos), plan.getSinAsignar());
+        // El plan no se guarda por sí solo
+        assertEquals(1, hospital.getCitasPorMedicoEnFecha(medico, dia).size());
+    }
+
+    @Test
+    void repartePorCargaContandoLasYaAsignadasEnElLote() throws CitaException {
+        Medico ocupado = HospitalDePrueba.nuevoMedico(Especialidad.GINECOLOGIA);
+        Medico libre = HospitalDePrueba.nuevoMedico(Especialidad.GINECOLOGIA);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        for (int i = 0; i < 3; i++) {
+            facade.crearCita(facade.generarIdCita(), paciente, ocupado, null, dia.plusDays(1),
+                    HorarioAtencion.horaDeTurno(i), 1000, "Control");
+        }
+
+        PlanCitas plan = planificador.planificar(List.of(
+                solicitud(paciente, Especialidad.GINECOLOGIA, hora(8, 0), hora(8, 30)),
+                solicitud(paciente, Especialidad.GINECOLOGIA, hora(8, 30), hora(9, 0)),
+                solicitud(paciente, Especialidad.GINECOLOGIA, hora(9, 0), hora(9, 30)),
+                solicitud(paciente, Especialidad.GINECOLOGIA, hora(8, 0), hora(8, 30))));
+
+        // El libre toma turnos hasta igualar la carga del ocupado; luego solo queda este
+        assertEquals(List.of(libre, libre, libre, ocupado),
+                plan.getCitas().stream().map(Cita::getMedico).toList());
+        assertTrue(plan.getSinAsignar().isEmpty());
+    }
+
+    @Test
+    void elPlanConfirmadoOcupaSusTurnos() {
+        Medico medico = HospitalDePrueba.nuevoMedico(Especialidad.TRAUMATOLOGIA);
+        Paciente paciente = HospitalDePrueba.nuevoPaciente();
+        List<SolicitudAgendamiento> solicitudes = List.of(
+                solicitud(paciente, Especialidad.TRAUMATOLOGIA, hora(8, 0), hora(12, 0)),
+                solicitud(paciente, Especialidad.TRAUMATOLOGIA, hora(8, 0), hora(12, 0)));
+
+        PlanCitas plan = planificador.planificar(solicitudes);
+        List<ResultadoCita> resultados = facade.crearCitas(plan.getSolicitudes());
+        assertTrue(resultados.stream().allMatch(ResultadoCita::isExitosa));
+        for (Cita cita : plan.getCitas()) {
+            assertEquals(medico.getId(), hospital.buscarCitaPorId(cita.getId()).getMedico().getId());
+        }
+
+        // Un segundo plan con las mismas solicitudes toma los turnos siguientes
+        PlanCitas otro = planificador.planificar(solicitudes);
+        assertEquals(List.of(hora(8, 0), hora(8, 30)), plan.getCitas().stream().map(this::momento).toList());
+        assertEquals(List.of(hora(9, 0), hora(9, 30)), otro.getCitas().stream().map(this::momento).toList());
+        assertNotEquals(plan.getCitas().get(0).getId(), otro.getCitas().get(0).getId());
+    }
+
+    private LocalDateTime hora(int hora, int minuto) {
+        return dia.atTime(hora, minuto);
+    }
+
+    private LocalDateTime momento(Cita cita) {
+        return LocalDateTime.of(cita.getFecha(), cita.getHora());
+    }
+
+    private static SolicitudAgendamiento solicitud(Paciente paciente, Especialidad especialidad,
+                                                   LocalDateTime desde, LocalDateTime hasta) {
+        return new SolicitudAgendamiento(paciente, especialidad, desde, hasta, 1000, "Control");
+    }
+}